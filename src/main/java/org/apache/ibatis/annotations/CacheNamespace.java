@@ -24,6 +24,7 @@ import java.lang.annotation.Target;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.mapping.CacheCopyStrategy;
 
 /**
  * The annotation that specify to use cache on namespace(e.g. mapper interface).
@@ -83,6 +84,14 @@ public @interface CacheNamespace {
    */
   boolean readWrite() default true;
 
+  /**
+   * Returns how a read/write cache copies its entries.
+   *
+   * @return the copy strategy
+   * @since 3.5.4
+   */
+  CacheCopyStrategy copyStrategy() default CacheCopyStrategy.SERIALIZATION;
+
   /**
    * Returns whether block the cache at request time or not.
    *
@@ -47,4 +47,13 @@ public @interface Many {
    */
   FetchType fetchType() default FetchType.DEFAULT;
 
+  /**
+   * Returns the maximum number of keys the nested statement loads at once.
+   * When greater than 0, an eager nested statement is run once for the keys of several rows.
+   *
+   * @return the batch size, 0 to run the nested statement for each row
+   * @since 3.5.4
+   */
+  int batchSize() default 0;
+
 }
@@ -132,4 +132,43 @@ public @interface Options {
    * @return result set names that separate with comma(',')
    */
   String resultSets() default "";
+
+  /**
+   * Returns the time to live in milliseconds of cached empty results.
+   * <p>
+   * A value greater than zero caches queries that return no rows, independently of the 2nd level cache.
+   * </p>
+   *
+   * @return the time to live in milliseconds
+   * @since 3.5.4
+   */
+  int negativeCacheTtl() default -1;
+
+  /**
+   * Returns the maximum number of cached empty results.
+   *
+   * @return the maximum number of cached empty results
+   * @since 3.5.4
+   */
+  int negativeCacheSize() default -1;
+
+  /**
+   * Returns whether the statement looks an entity up by id and can be answered from the identity cache of its
+   * result map.
+   *
+   * @return {@code true} if the statement is an identity lookup; {@code false} if otherwise
+   * @since 3.5.4
+   */
+  boolean identityLookup() default false;
+
+  /**
+   * Returns the number of objects a cursor of the statement reads ahead on a thread of the async executor.
+   * <p>
+   * The session must not be used while such a cursor is open, since the reading thread uses its connection.
+   * </p>
+   *
+   * @return the number of objects read ahead, a value of zero or less does not read ahead
+   * @since 3.5.4
+   */
+  int cursorPrefetchSize() default -1;
 }
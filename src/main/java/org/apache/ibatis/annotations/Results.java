@@ -57,4 +57,12 @@ public @interface Results {
    * @return mapping definitions
    */
   Result[] value() default {};
+
+  /**
+   * Returns whether the objects mapped by this result map are indexed by their id properties.
+   *
+   * @return {@code true} if indexed; {@code false} if otherwise
+   * @since 3.5.4
+   */
+  boolean identityCache() default false;
 }
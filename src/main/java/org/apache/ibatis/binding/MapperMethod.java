@@ -23,10 +23,14 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.CursorSubscription;
+import org.apache.ibatis.cursor.defaults.FlowPublisher;
+import org.apache.ibatis.executor.result.ColumnarResult;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
@@ -59,6 +63,28 @@ public class MapperMethod {
   }
   //todo 它会根据SQL语句的类型调用SqlSession对应的方法完成数据库操作
   public Object execute(SqlSession sqlSession, Object[] args) {
+    if (method.returnsFuture()) {
+      //todo 返回值为CompletableFuture的方法，在异步线程中使用新的SqlSession执行
+      return executeAsync(sqlSession.getConfiguration(), args);
+    }
+    return executeBlocking(sqlSession, args);
+  }
+
+  /**
+   * Executes the statement on the async executor of the configuration, with a session of its own
+   * that is committed once the statement succeeded.
+   */
+  private CompletableFuture<Object> executeAsync(Configuration configuration, Object[] args) {
+    return CompletableFuture.supplyAsync(() -> {
+      try (SqlSession session = configuration.getAsyncSessionFactory().openSession()) {
+        Object result = executeBlocking(session, args);
+        session.commit();
+        return result;
+      }
+    }, configuration.getAsyncExecutor());
+  }
+
+  private Object executeBlocking(SqlSession sqlSession, Object[] args) {
     Object result;
     //todo 根据SQL语句的类型调用SqlSession对应的方法
     switch (command.getType()) {
@@ -95,6 +121,12 @@ public class MapperMethod {
         } else if (method.returnsCursor()) {
           //todo 处理返回值为Cursor的方法
           result = executeForCursor(sqlSession, args);
+        } else if (method.returnsColumnar()) {
+          //todo 处理返回值为ColumnarResult的方法，结果集按列读取到基本类型数组中
+          result = executeForColumnar(sqlSession, args);
+        } else if (method.returnsPublisher()) {
+          //todo 处理返回值为Flow.Publisher的方法
+          result = executeForPublisher(sqlSession.getConfiguration(), args);
         } else {
           //todo 处理返回值为单一对象的方法
           Object param = method.convertArgsToSqlCommandParam(args);
@@ -197,6 +229,23 @@ public class MapperMethod {
     return result;
   }
 
+  private ColumnarResult executeForColumnar(SqlSession sqlSession, Object[] args) {
+    Object param = method.convertArgsToSqlCommandParam(args);
+    if (method.hasRowBounds()) {
+      RowBounds rowBounds = method.extractRowBounds(args);
+      return sqlSession.selectColumnar(command.getName(), param, rowBounds);
+    }
+    return sqlSession.selectColumnar(command.getName(), param);
+  }
+
+  //todo 每个订阅者使用自己的SqlSession和Cursor，按照订阅者的请求读取数据
+  private <T> Object executeForPublisher(Configuration configuration, Object[] args) {
+    Object param = method.convertArgsToSqlCommandParam(args);
+    RowBounds rowBounds = method.hasRowBounds() ? method.extractRowBounds(args) : RowBounds.DEFAULT;
+    return FlowPublisher.<T>newPublisher(method.getPublisherType(), subscriber -> new CursorSubscription<>(configuration.getAsyncSessionFactory(),
+        session -> session.selectCursor(command.getName(), param, rowBounds), configuration.getAsyncExecutor(), subscriber));
+  }
+
   //todo 将返回结果转换成 List
   private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
     //todo  通过反射方式创建集合对象
@@ -328,6 +377,12 @@ public class MapperMethod {
     private final boolean returnsCursor;
 
     private final boolean returnsOptional;
+    //todo 返回值是否为ColumnarResult类型
+    private final boolean returnsColumnar;
+    //todo 返回值是否为CompletableFuture类型，此时以下的返回值信息都针对其泛型参数
+    private final boolean returnsFuture;
+    //todo 返回值是否为Flow.Publisher类型，此时returnType为其泛型参数
+    private final Class<?> publisherType;
     //todo 返回值类型
     private final Class<?> returnType;
     //todo 如果返回值类型是Map.则该字段记录了作为key的列名
@@ -342,18 +397,28 @@ public class MapperMethod {
     public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
       //todo 解析相应的Method对象，解析方法的返回值类型
       Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+      this.returnsFuture = CompletableFuture.class.equals(method.getReturnType());
+      this.publisherType = FlowPublisher.isPublisher(method.getReturnType()) ? method.getReturnType() : null;
+      if (returnsFuture || publisherType != null) {
+        resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+            ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      }
       if (resolvedReturnType instanceof Class<?>) {
         this.returnType = (Class<?>) resolvedReturnType;
       } else if (resolvedReturnType instanceof ParameterizedType) {
         this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
       } else {
-        this.returnType = method.getReturnType();
+        this.returnType = returnsFuture || publisherType != null ? Object.class : method.getReturnType();
       }
-      this.returnsVoid = void.class.equals(this.returnType);
+      this.returnsVoid = void.class.equals(this.returnType) || returnsFuture && Void.class.equals(this.returnType);
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       this.returnsCursor = Cursor.class.equals(this.returnType);
+      if (returnsFuture && returnsCursor) {
+        throw new BindingException(method.getName() + " cannot return a Cursor asynchronously, the session is closed once the future completes");
+      }
       this.returnsOptional = Optional.class.equals(this.returnType);
-      this.mapKey = getMapKey(method);
+      this.returnsColumnar = ColumnarResult.class.equals(this.returnType);
+      this.mapKey = getMapKey(method, this.returnType);
       this.returnsMap = this.mapKey != null;
       this.rowBoundsIndex = getUniqueParamIndex(method, RowBounds.class);
       this.resultHandlerIndex = getUniqueParamIndex(method, ResultHandler.class);
@@ -413,6 +478,39 @@ public class MapperMethod {
       return returnsOptional;
     }
 
+    /**
+     * return whether return type is {@code org.apache.ibatis.executor.result.ColumnarResult}.
+     * @return return {@code true}, if return type is {@code org.apache.ibatis.executor.result.ColumnarResult}
+     * @since 3.5.4
+     */
+    public boolean returnsColumnar() {
+      return returnsColumnar;
+    }
+
+    /**
+     * return whether return type is {@code java.util.concurrent.CompletableFuture}.
+     * In that case the other return type information describes the type argument of the future.
+     * @return return {@code true}, if return type is {@code java.util.concurrent.CompletableFuture}
+     * @since 3.5.4
+     */
+    public boolean returnsFuture() {
+      return returnsFuture;
+    }
+
+    /**
+     * return whether return type is {@code java.util.concurrent.Flow.Publisher}.
+     * In that case the return type is the type of the published items.
+     * @return return {@code true}, if return type is {@code java.util.concurrent.Flow.Publisher}
+     * @since 3.5.4
+     */
+    public boolean returnsPublisher() {
+      return publisherType != null;
+    }
+
+    Class<?> getPublisherType() {
+      return publisherType;
+    }
+
     //todo 查找指定类型的参数在参数列表中的位置
     private Integer getUniqueParamIndex(Method method, Class<?> paramType) {
       Integer index = null;
@@ -432,9 +530,9 @@ public class MapperMethod {
       return index;
     }
 
-    private String getMapKey(Method method) {
+    private String getMapKey(Method method, Class<?> returnType) {
       String mapKey = null;
-      if (Map.class.isAssignableFrom(method.getReturnType())) {
+      if (Map.class.isAssignableFrom(returnType)) {
         final MapKey mapKeyAnnotation = method.getAnnotation(MapKey.class);
         if (mapKeyAnnotation != null) {
           mapKey = mapKeyAnnotation.value();
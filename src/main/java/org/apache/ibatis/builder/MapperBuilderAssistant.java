@@ -27,10 +27,12 @@ import java.util.StringTokenizer;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.decorators.LruCache;
+import org.apache.ibatis.cache.impl.NegativeResultCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.mapping.CacheCopyStrategy;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMap;
@@ -137,6 +139,20 @@ public class MapperBuilderAssistant extends BaseBuilder {
       boolean readWrite,
       boolean blocking,
       Properties props) {
+    return useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, CacheCopyStrategy.SERIALIZATION, blocking, props);
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public Cache useNewCache(Class<? extends Cache> typeClass,
+      Class<? extends Cache> evictionClass,
+      Long flushInterval,
+      Integer size,
+      boolean readWrite,
+      CacheCopyStrategy copyStrategy,
+      boolean blocking,
+      Properties props) {
     //todo 创建Cache对象，使用建造者模式，CacheBuilder是建造者的角色，而Cache是生成的产品
     Cache cache = new CacheBuilder(currentNamespace)
         .implementation(valueOrDefault(typeClass, PerpetualCache.class))
@@ -144,7 +160,9 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .clearInterval(flushInterval)
         .size(size)
         .readWrite(readWrite)
+        .copyStrategy(copyStrategy)
         .blocking(blocking)
+        .snapshotManager(configuration.getCacheSnapshotManager())
         .properties(props)
         .build();
     //todo 将cache添加到Configuration.caches集合中保存，其中会将Cache的id作为key，Cache对象本身作为value
@@ -192,6 +210,20 @@ public class MapperBuilderAssistant extends BaseBuilder {
       Discriminator discriminator,
       List<ResultMapping> resultMappings,
       Boolean autoMapping) {
+    return addResultMap(id, type, extend, discriminator, resultMappings, autoMapping, false);
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public ResultMap addResultMap(
+      String id,
+      Class<?> type,
+      String extend,
+      Discriminator discriminator,
+      List<ResultMapping> resultMappings,
+      Boolean autoMapping,
+      boolean identityCache) {
     id = applyCurrentNamespace(id, false);
     extend = applyCurrentNamespace(extend, true);
 
@@ -217,6 +249,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
     }
     ResultMap resultMap = new ResultMap.Builder(configuration, id, type, resultMappings, autoMapping)
         .discriminator(discriminator)
+        .identityCache(identityCache)
         .build();
     configuration.addResultMap(resultMap);
     return resultMap;
@@ -275,6 +308,45 @@ public class MapperBuilderAssistant extends BaseBuilder {
       String databaseId,
       LanguageDriver lang,
       String resultSets) {
+    return addMappedStatement(
+      id, sqlSource, statementType, sqlCommandType, fetchSize, timeout,
+      parameterMap, parameterType, resultMap, resultType, resultSetType,
+      flushCache, useCache, resultOrdered, keyGenerator, keyProperty,
+      keyColumn, databaseId, lang, resultSets, null, null, false, null);
+  }
+
+  /**
+   * @param negativeCacheTtl time to live in milliseconds of cached empty results, {@code null} to not cache them
+   * @param negativeCacheSize maximum number of cached empty results, {@code null} for the default
+   * @param identityLookup whether the statement looks an entity up by id and can be answered from the identity cache
+   * @param cursorPrefetchSize number of objects a cursor of the statement reads ahead, {@code null} to not read ahead
+   * @since 3.5.4
+   */
+  public MappedStatement addMappedStatement(
+      String id,
+      SqlSource sqlSource,
+      StatementType statementType,
+      SqlCommandType sqlCommandType,
+      Integer fetchSize,
+      Integer timeout,
+      String parameterMap,
+      Class<?> parameterType,
+      String resultMap,
+      Class<?> resultType,
+      ResultSetType resultSetType,
+      boolean flushCache,
+      boolean useCache,
+      boolean resultOrdered,
+      KeyGenerator keyGenerator,
+      String keyProperty,
+      String keyColumn,
+      String databaseId,
+      LanguageDriver lang,
+      String resultSets,
+      Integer negativeCacheTtl,
+      Integer negativeCacheSize,
+      boolean identityLookup,
+      Integer cursorPrefetchSize) {
 
     if (unresolvedCacheRef) {
       throw new IncompleteElementException("Cache-ref not yet resolved");
@@ -294,6 +366,8 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .databaseId(databaseId)
         .lang(lang)
         .resultOrdered(resultOrdered)
+        .identityLookup(identityLookup)
+        .cursorPrefetchSize(isSelect && cursorPrefetchSize != null && cursorPrefetchSize > 0 ? cursorPrefetchSize : null)
         .resultSets(resultSets)
         .resultMaps(getStatementResultMaps(resultMap, resultType, id))
         .resultSetType(resultSetType)
@@ -301,6 +375,13 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .useCache(valueOrDefault(useCache, isSelect))
         .cache(currentCache);
 
+    if (isSelect && negativeCacheTtl != null && negativeCacheTtl > 0) {
+      Cache negativeCache = new NegativeResultCache(id, negativeCacheTtl,
+          valueOrDefault(negativeCacheSize, NegativeResultCache.DEFAULT_SIZE));
+      statementBuilder.negativeCache(negativeCache);
+      configuration.addNegativeCache(currentCache != null ? currentCache.getId() : currentNamespace, negativeCache);
+    }
+
     ParameterMap statementParameterMap = getStatementParameterMap(parameterMap, parameterType, id);
     if (statementParameterMap != null) {
       statementBuilder.parameterMap(statementParameterMap);
@@ -383,6 +464,29 @@ public class MapperBuilderAssistant extends BaseBuilder {
       String resultSet,
       String foreignColumn,
       boolean lazy) {
+    return buildResultMapping(resultType, property, column, javaType, jdbcType, nestedSelect, nestedResultMap,
+        notNullColumn, columnPrefix, typeHandler, flags, resultSet, foreignColumn, lazy, 0);
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public ResultMapping buildResultMapping(
+      Class<?> resultType,
+      String property,
+      String column,
+      Class<?> javaType,
+      JdbcType jdbcType,
+      String nestedSelect,
+      String nestedResultMap,
+      String notNullColumn,
+      String columnPrefix,
+      Class<? extends TypeHandler<?>> typeHandler,
+      List<ResultFlag> flags,
+      String resultSet,
+      String foreignColumn,
+      boolean lazy,
+      int batchSize) {
     //todo 解析<resultType> 节点指定的property属性的类型
     Class<?> javaTypeClass = resolveResultJavaType(resultType, property, javaType);
     //todo 获取typeHandler指定的TypeHandler对象，底层依赖于typeHandlerRegistry
@@ -407,6 +511,7 @@ public class MapperBuilderAssistant extends BaseBuilder {
         .columnPrefix(columnPrefix)
         .foreignColumn(foreignColumn)
         .lazy(lazy)
+        .batchSize(batchSize)
         .build();
   }
 
@@ -33,8 +33,16 @@ public class ResultMapResolver {
   private final Discriminator discriminator;
   private final List<ResultMapping> resultMappings;
   private final Boolean autoMapping;
+  private final boolean identityCache;
 
   public ResultMapResolver(MapperBuilderAssistant assistant, String id, Class<?> type, String extend, Discriminator discriminator, List<ResultMapping> resultMappings, Boolean autoMapping) {
+    this(assistant, id, type, extend, discriminator, resultMappings, autoMapping, false);
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public ResultMapResolver(MapperBuilderAssistant assistant, String id, Class<?> type, String extend, Discriminator discriminator, List<ResultMapping> resultMappings, Boolean autoMapping, boolean identityCache) {
     this.assistant = assistant;
     this.id = id;
     this.type = type;
@@ -42,10 +50,11 @@ public class ResultMapResolver {
     this.discriminator = discriminator;
     this.resultMappings = resultMappings;
     this.autoMapping = autoMapping;
+    this.identityCache = identityCache;
   }
 
   public ResultMap resolve() {
-    return assistant.addResultMap(this.id, this.type, this.extend, this.discriminator, this.resultMappings, this.autoMapping);
+    return assistant.addResultMap(this.id, this.type, this.extend, this.discriminator, this.resultMappings, this.autoMapping, this.identityCache);
   }
 
 }
@@ -34,6 +34,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.annotations.Arg;
 import org.apache.ibatis.annotations.CacheNamespace;
@@ -66,6 +67,7 @@ import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.defaults.FlowPublisher;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
@@ -197,7 +199,7 @@ public class MapperAnnotationBuilder {
       Integer size = cacheDomain.size() == 0 ? null : cacheDomain.size();
       Long flushInterval = cacheDomain.flushInterval() == 0 ? null : cacheDomain.flushInterval();
       Properties props = convertToProperties(cacheDomain.properties());
-      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
+      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.copyStrategy(), cacheDomain.blocking(), props);
     }
   }
 
@@ -239,7 +241,9 @@ public class MapperAnnotationBuilder {
     Result[] results = method.getAnnotationsByType(Result.class);
     TypeDiscriminator typeDiscriminator = method.getAnnotation(TypeDiscriminator.class);
     String resultMapId = generateResultMapName(method);
-    applyResultMap(resultMapId, returnType, args, results, typeDiscriminator);
+    Results resultsAnnotation = method.getAnnotation(Results.class);
+    boolean identityCache = resultsAnnotation != null && resultsAnnotation.identityCache();
+    applyResultMap(resultMapId, returnType, args, results, typeDiscriminator, identityCache);
     return resultMapId;
   }
 
@@ -259,13 +263,13 @@ public class MapperAnnotationBuilder {
     return type.getName() + "." + method.getName() + suffix;
   }
 
-  private void applyResultMap(String resultMapId, Class<?> returnType, Arg[] args, Result[] results, TypeDiscriminator discriminator) {
+  private void applyResultMap(String resultMapId, Class<?> returnType, Arg[] args, Result[] results, TypeDiscriminator discriminator, boolean identityCache) {
     List<ResultMapping> resultMappings = new ArrayList<>();
     applyConstructorArgs(args, returnType, resultMappings);
     applyResults(results, returnType, resultMappings);
     Discriminator disc = applyDiscriminator(resultMapId, returnType, discriminator);
     // TODO add AutoMappingBehaviour
-    assistant.addResultMap(resultMapId, returnType, null, disc, resultMappings, null);
+    assistant.addResultMap(resultMapId, returnType, null, disc, resultMappings, null, identityCache);
     createDiscriminatorResultMaps(resultMapId, returnType, discriminator);
   }
 
@@ -386,7 +390,11 @@ public class MapperAnnotationBuilder {
           null,
           languageDriver,
           // ResultSets
-          options != null ? nullOrEmpty(options.resultSets()) : null);
+          options != null ? nullOrEmpty(options.resultSets()) : null,
+          options != null && options.negativeCacheTtl() > 0 ? options.negativeCacheTtl() : null,
+          options != null && options.negativeCacheSize() > 0 ? options.negativeCacheSize() : null,
+          options != null && options.identityLookup(),
+          options != null && options.cursorPrefetchSize() > 0 ? options.cursorPrefetchSize() : null);
     }
   }
 
@@ -418,6 +426,12 @@ public class MapperAnnotationBuilder {
   private Class<?> getReturnType(Method method) {
     Class<?> returnType = method.getReturnType();
     Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+    if ((CompletableFuture.class.equals(returnType) || FlowPublisher.isPublisher(returnType))
+        && resolvedReturnType instanceof ParameterizedType) {
+      // the result type of an asynchronous method is the type argument of the future or publisher
+      resolvedReturnType = ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0];
+      returnType = Object.class;
+    }
     if (resolvedReturnType instanceof Class) {
       returnType = (Class<?>) resolvedReturnType;
       if (returnType.isArray()) {
@@ -567,7 +581,8 @@ public class MapperAnnotationBuilder {
           flags,
           null,
           null,
-          isLazy(result));
+          isLazy(result),
+          batchSize(result));
       resultMappings.add(resultMapping);
     }
   }
@@ -593,6 +608,10 @@ public class MapperAnnotationBuilder {
     return isLazy;
   }
 
+  private int batchSize(Result result) {
+    return result.one().select().length() > 0 ? result.one().batchSize() : result.many().batchSize();
+  }
+
   private boolean hasNestedSelect(Result result) {
     if (result.one().select().length() > 0 && result.many().select().length() > 0) {
       throw new BuilderException("Cannot use both @One and @Many annotations in the same @Result");
@@ -17,6 +17,7 @@ package org.apache.ibatis.builder.xml;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.util.HashSet;
 import java.util.Properties;
 import javax.sql.DataSource;
 
@@ -25,6 +26,7 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.datasource.DataSourceFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
@@ -40,6 +42,7 @@ import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.reflection.wrapper.ObjectWrapperFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
+import org.apache.ibatis.session.CacheSnapshotLoading;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
@@ -293,6 +296,25 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
     configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
     configuration.setLocalCacheScope(LocalCacheScope.valueOf(props.getProperty("localCacheScope", "SESSION")));
+    configuration.setLocalCacheMaxEntries(integerValueOf(props.getProperty("localCacheMaxEntries"), null));
+    configuration.setLocalCacheMaxRows(integerValueOf(props.getProperty("localCacheMaxRows"), null));
+    configuration.setCacheSnapshotDirectory(props.getProperty("cacheSnapshotDirectory"));
+    configuration.setCacheSnapshotLoading(CacheSnapshotLoading.valueOf(props.getProperty("cacheSnapshotLoading", "LAZY")));
+    configuration.setBatchMaxStatements(integerValueOf(props.getProperty("batchMaxStatements"), null));
+    configuration.setBatchMaxParameters(integerValueOf(props.getProperty("batchMaxParameters"), null));
+    configuration.setBatchMaxBytes(integerValueOf(props.getProperty("batchMaxBytes"), null));
+    String batchGroupingNamespaces = props.getProperty("batchGroupingNamespaces");
+    configuration.setBatchGroupingNamespaces(batchGroupingNamespaces == null ? new HashSet<>() : stringSetValueOf(batchGroupingNamespaces, null));
+    configuration.setRewriteBatchedInserts(booleanValueOf(props.getProperty("rewriteBatchedInserts"), false));
+    configuration.setRewriteBatchedInsertsMaxParameters(integerValueOf(props.getProperty("rewriteBatchedInsertsMaxParameters"), null));
+    configuration.setDatabasePagination(booleanValueOf(props.getProperty("databasePagination"), false));
+    configuration.setPaginationDialect((PaginationDialect) createInstance(props.getProperty("paginationDialect")));
+    configuration.setMultiStatementQueries(booleanValueOf(props.getProperty("multiStatementQueries"), false));
+    configuration.setParallelQueries(booleanValueOf(props.getProperty("parallelQueries"), false));
+    configuration.setCompileRowMappers(booleanValueOf(props.getProperty("compileRowMappers"), false));
+    configuration.setCompactRowMaps(booleanValueOf(props.getProperty("compactRowMaps"), false));
+    configuration.setStreamNestedResults(booleanValueOf(props.getProperty("streamNestedResults"), false));
+    configuration.setParallelRowMapping(booleanValueOf(props.getProperty("parallelRowMapping"), false));
     configuration.setJdbcTypeForNull(JdbcType.valueOf(props.getProperty("jdbcTypeForNull", "OTHER")));
     configuration.setLazyLoadTriggerMethods(stringSetValueOf(props.getProperty("lazyLoadTriggerMethods"), "equals,clone,hashCode,toString"));
     configuration.setSafeResultHandlerEnabled(booleanValueOf(props.getProperty("safeResultHandlerEnabled"), true));
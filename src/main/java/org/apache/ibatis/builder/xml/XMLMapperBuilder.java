@@ -35,6 +35,7 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.CacheCopyStrategy;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
@@ -248,12 +249,13 @@ public class XMLMapperBuilder extends BaseBuilder {
       Integer size = context.getIntAttribute("size");
       //todo 获取readOnly属性，默认值是false
       boolean readWrite = !context.getBooleanAttribute("readOnly", false);
+      CacheCopyStrategy copyStrategy = CacheCopyStrategy.valueOf(context.getStringAttribute("copyStrategy", "SERIALIZATION"));
       //todo 获取blocking属性，默认值是false
       boolean blocking = context.getBooleanAttribute("blocking", false);
       //todo 获取其中配置的参数，将用于初始化二级缓存
       Properties props = context.getChildrenAsProperties();
       //todo 通过MapperBuilderAssistant创建Cache对象，并添加到Configuration.cache集合中保存
-      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, copyStrategy, blocking, props);
     }
   }
 
@@ -338,7 +340,9 @@ public class XMLMapperBuilder extends BaseBuilder {
     String extend = resultMapNode.getStringAttribute("extends");
     //todo 读取<resultMap> 节点的autoMapping属性么，并占该属性设置为true,则启动自动映射功能
     Boolean autoMapping = resultMapNode.getBooleanAttribute("autoMapping");
-    ResultMapResolver resultMapResolver = new ResultMapResolver(builderAssistant, id, typeClass, extend, discriminator, resultMappings, autoMapping);
+    //todo 读取<resultMap>节点的identityCache属性，为true时按<id>缓存映射出的对象
+    boolean identityCache = resultMapNode.getBooleanAttribute("identityCache", false);
+    ResultMapResolver resultMapResolver = new ResultMapResolver(builderAssistant, id, typeClass, extend, discriminator, resultMappings, autoMapping, identityCache);
     try {
       //todo 创建resultMap，并添加到configuration.resultMaps中
       return resultMapResolver.resolve();
@@ -452,11 +456,12 @@ public class XMLMapperBuilder extends BaseBuilder {
     String resultSet = context.getStringAttribute("resultSet");
     String foreignColumn = context.getStringAttribute("foreignColumn");
     boolean lazy = "lazy".equals(context.getStringAttribute("fetchType", configuration.isLazyLoadingEnabled() ? "lazy" : "eager"));
+    int batchSize = context.getIntAttribute("batchSize", 0);
     //todo  解析javaType 和typeHandler以及JdbcType ,根据别名找到对应的实体类
     Class<?> javaTypeClass = resolveClass(javaType);
     Class<? extends TypeHandler<?>> typeHandlerClass = resolveClass(typeHandler);
     JdbcType jdbcTypeEnum = resolveJdbcType(jdbcType);
-    return builderAssistant.buildResultMapping(resultType, property, column, javaTypeClass, jdbcTypeEnum, nestedSelect, nestedResultMap, notNullColumn, columnPrefix, typeHandlerClass, flags, resultSet, foreignColumn, lazy);
+    return builderAssistant.buildResultMapping(resultType, property, column, javaTypeClass, jdbcTypeEnum, nestedSelect, nestedResultMap, notNullColumn, columnPrefix, typeHandlerClass, flags, resultSet, foreignColumn, lazy, batchSize);
   }
 
   private String processNestedResultMappings(XNode context, List<ResultMapping> resultMappings, Class<?> enclosingType) {
@@ -118,12 +118,20 @@ public class XMLStatementBuilder extends BaseBuilder {
     String keyProperty = context.getStringAttribute("keyProperty");
     String keyColumn = context.getStringAttribute("keyColumn");
     String resultSets = context.getStringAttribute("resultSets");
+    //todo 获取负结果(空结果)缓存的存活时间(毫秒)和容量
+    Integer negativeCacheTtl = context.getIntAttribute("negativeCacheTtl");
+    Integer negativeCacheSize = context.getIntAttribute("negativeCacheSize");
+    //todo 是否为按照主键查询的语句，为true时可以直接从会话的实体标识缓存中获取结果
+    boolean identityLookup = context.getBooleanAttribute("identityLookup", false);
+    //todo 游标预读的对象个数，只有显式设置的语句才会在后台线程上预读
+    Integer cursorPrefetchSize = context.getIntAttribute("cursorPrefetchSize");
 
     //todo 创建MappedStatement对象，并添加到Configuration.mappedStatements中
     builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
         fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
         resultSetTypeEnum, flushCache, useCache, resultOrdered,
-        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets);
+        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets,
+        negativeCacheTtl, negativeCacheSize, identityLookup, cursorPrefetchSize);
   }
 
   //todo 处理selectKey节点
@@ -17,6 +17,7 @@ package org.apache.ibatis.cache;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.StringJoiner;
 
@@ -73,6 +74,15 @@ public class CacheKey implements Cloneable, Serializable {
     return updateList.size();
   }
 
+  /**
+   * Returns the objects this key was computed from.
+   *
+   * @since 3.5.4
+   */
+  List<Object> getUpdateList() {
+    return Collections.unmodifiableList(updateList);
+  }
+
   public void update(Object object) {
     int baseHashCode = object == null ? 1 : ArrayUtil.hashCode(object);
 
@@ -0,0 +1,343 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SnapshotCache;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.scripting.defaults.RawSqlSource;
+import org.apache.ibatis.session.CacheSnapshotLoading;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Persists the contents of the 2nd level caches to a local directory and restores them on startup.
+ * <p>
+ * Each namespace cache is written to its own file together with a fingerprint of the statements
+ * that use it (static SQL, result mappings and the content of the mapper resources). A snapshot
+ * whose fingerprint does not match the current configuration, or that cannot be read, is discarded.
+ * Entries whose key or value is not serializable are skipped when saving, as well as entries whose key depends on
+ * an identity hash code (of an enum for instance), which differs after a restart so the key would never match again.
+ *
+ * @since 3.5.4
+ */
+public class CacheSnapshotManager {
+
+  private static final Log log = LogFactory.getLog(CacheSnapshotManager.class);
+  private static final String SNAPSHOT_VERSION = "2";
+  private static final String FILE_SUFFIX = ".cache";
+
+  private final Configuration configuration;
+  private final File directory;
+  //todo 记录namespace的cache(最外层装饰器)与记录其key的SnapshotCache之间的对应关系
+  private final Map<Cache, SnapshotCache> caches = new LinkedHashMap<>();
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final AtomicBoolean loaded = new AtomicBoolean();
+  //todo 记录各个类型的hashCode()是否由对象的值决定
+  private final Map<Class<?>, Boolean> valueHashCodes = new ConcurrentHashMap<>();
+
+  public CacheSnapshotManager(Configuration configuration, File directory) {
+    this.configuration = configuration;
+    this.directory = directory;
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+  public synchronized void register(Cache cache, SnapshotCache snapshotCache) {
+    caches.put(cache, snapshotCache);
+  }
+
+  /**
+   * Called once the configuration is complete. Starts loading the snapshot in the background
+   * when {@link CacheSnapshotLoading#BACKGROUND} is configured.
+   */
+  public void start() {
+    if (started.compareAndSet(false, true) && configuration.getCacheSnapshotLoading() == CacheSnapshotLoading.BACKGROUND) {
+      Thread thread = new Thread(this::ensureLoaded, "mybatis-cache-snapshot-loader");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * Loads the snapshot unless it has already been loaded or is being loaded.
+   */
+  public void ensureLoaded() {
+    if (!loaded.get() && loaded.compareAndSet(false, true)) {
+      for (Map.Entry<Cache, SnapshotCache> entry : registeredCaches().entrySet()) {
+        load(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Writes the contents of all registered caches.
+   */
+  public synchronized void save() {
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      log.warn("Could not create cache snapshot directory " + directory);
+      return;
+    }
+    for (Map.Entry<Cache, SnapshotCache> entry : caches.entrySet()) {
+      save(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private synchronized Map<Cache, SnapshotCache> registeredCaches() {
+    return new LinkedHashMap<>(caches);
+  }
+
+  private void save(Cache cache, SnapshotCache snapshotCache) {
+    File file = fileFor(cache);
+    int saved = 0;
+    int skipped = 0;
+    try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeUTF(fingerprint(cache));
+      for (Object key : snapshotCache.getKeys()) {
+        Object value = cache.getObject(key);
+        if (value == null) {
+          // evicted meanwhile, releases the lock of a blocking cache
+          cache.removeObject(key);
+          continue;
+        }
+        byte[] entry = hasValueHashCode(key) ? serialize(key, value) : null;
+        if (entry == null) {
+          skipped++;
+          continue;
+        }
+        out.writeBoolean(true);
+        out.writeObject(entry);
+        saved++;
+      }
+      out.writeBoolean(false);
+    } catch (IOException e) {
+      log.warn("Could not write cache snapshot " + file + ". Cause: " + e);
+      discard(file);
+      return;
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Saved " + saved + " entries of cache " + cache.getId() + " (" + skipped + " skipped)");
+    }
+  }
+
+  private void load(Cache cache, SnapshotCache snapshotCache) {
+    File file = fileFor(cache);
+    if (!file.isFile()) {
+      return;
+    }
+    List<Object[]> entries = new ArrayList<>();
+    try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (!fingerprint(cache).equals(in.readUTF())) {
+        log.debug("Discarding stale cache snapshot " + file);
+        discard(file);
+        return;
+      }
+      while (in.readBoolean()) {
+        entries.add(deserialize((byte[]) in.readObject()));
+      }
+    } catch (Exception e) {
+      log.warn("Discarding unreadable cache snapshot " + file + ". Cause: " + e);
+      discard(file);
+      return;
+    }
+    for (Object[] entry : entries) {
+      // a get first acquires the lock of a blocking cache, the restore checks again atomically
+      if (cache.getObject(entry[0]) == null) {
+        snapshotCache.restore(cache, entry[0], entry[1]);
+      }
+    }
+    if (log.isDebugEnabled()) {
+      log.debug("Loaded " + entries.size() + " entries of cache " + cache.getId());
+    }
+  }
+
+  /**
+   * Returns whether the hash code of a key is computed from values only, and is thus the same after a restart.
+   */
+  private boolean hasValueHashCode(Object key) {
+    if (key instanceof CacheKey) {
+      for (Object object : ((CacheKey) key).getUpdateList()) {
+        if (!hasValueHashCode(object)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (key == null) {
+      return true;
+    }
+    if (key instanceof Object[]) {
+      for (Object element : (Object[]) key) {
+        if (!hasValueHashCode(element)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return valueHashCodes.computeIfAbsent(key.getClass(), CacheSnapshotManager::overridesHashCode);
+  }
+
+  private static boolean overridesHashCode(Class<?> type) {
+    if (type.isArray()) {
+      // arrays of primitives, hashed by their content
+      return true;
+    }
+    if (Enum.class.isAssignableFrom(type) || type == Class.class) {
+      return false;
+    }
+    try {
+      return type.getMethod("hashCode").getDeclaringClass() != Object.class;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+
+  private static byte[] serialize(Object key, Object value) {
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+        oos.writeObject(key);
+        oos.writeObject(value);
+      }
+      return bos.toByteArray();
+    } catch (IOException e) {
+      // NotSerializableException for the key, the value or an object they reference
+      return null;
+    }
+  }
+
+  private static Object[] deserialize(byte[] entry) throws IOException, ClassNotFoundException {
+    try (ObjectInputStream ois = new SerializedCache.CustomObjectInputStream(new ByteArrayInputStream(entry))) {
+      return new Object[] { ois.readObject(), ois.readObject() };
+    }
+  }
+
+  private static void discard(File file) {
+    if (!file.delete()) {
+      file.deleteOnExit();
+    }
+  }
+
+  private File fileFor(Cache cache) {
+    return new File(directory, cache.getId().replaceAll("[^A-Za-z0-9._-]", "_") + FILE_SUFFIX);
+  }
+
+  /**
+   * Computes a digest of everything that shapes the cached results of the given cache.
+   */
+  String fingerprint(Cache cache) {
+    StringBuilder builder = new StringBuilder(SNAPSHOT_VERSION).append('\n');
+    Map<String, MappedStatement> statements = new TreeMap<>();
+    for (MappedStatement ms : configuration.getMappedStatements()) {
+      if (ms.getCache() == cache) {
+        statements.put(ms.getId(), ms);
+      }
+    }
+    TreeSet<String> resources = new TreeSet<>();
+    for (MappedStatement ms : statements.values()) {
+      builder.append(ms.getId()).append('|').append(ms.getSqlCommandType()).append('|').append(staticSql(ms.getSqlSource()));
+      for (ResultMap resultMap : ms.getResultMaps()) {
+        builder.append('|').append(resultMap.getId()).append(':').append(resultMap.getType().getName());
+        for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+          builder.append(',').append(resultMapping.getProperty()).append('=').append(resultMapping.getColumn());
+        }
+      }
+      builder.append('\n');
+      if (ms.getResource() != null) {
+        resources.add(ms.getResource());
+      }
+    }
+    for (String resource : resources) {
+      builder.append(resource).append('=').append(resourceDigest(resource)).append('\n');
+    }
+    return hex(digest(builder.toString().getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String staticSql(SqlSource sqlSource) {
+    if (sqlSource instanceof RawSqlSource || sqlSource instanceof StaticSqlSource) {
+      return sqlSource.getBoundSql(null).getSql();
+    }
+    // dynamic SQL is covered by the digest of the mapper resource
+    return sqlSource.getClass().getName();
+  }
+
+  private static String resourceDigest(String resource) {
+    try (InputStream in = resource.contains(":") ? Resources.getUrlAsStream(resource) : Resources.getResourceAsStream(resource)) {
+      MessageDigest md = newDigest();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        md.update(buffer, 0, read);
+      }
+      return hex(md.digest());
+    } catch (IOException e) {
+      // e.g. a mapper interface, described by its statements only
+      return "";
+    }
+  }
+
+  private static byte[] digest(byte[] bytes) {
+    return newDigest().digest(bytes);
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new CacheException("SHA-256 is not available. Cause: " + e, e);
+    }
+  }
+
+  private static String hex(byte[] bytes) {
+    StringBuilder builder = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return builder.toString();
+  }
+
+}
@@ -0,0 +1,333 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+import org.apache.ibatis.reflection.invoker.Invoker;
+
+/**
+ * Read/write cache decorator that hands out deep copies of its entries.
+ * <p>
+ * Unlike {@link SerializedCache}, object graphs are copied through the getters and setters
+ * resolved by a {@link Reflector}. Immutable values (strings, boxed primitives, big numbers, enums
+ * and java.time types) are shared instead of copied. Shared references and cycles are preserved.
+ * Collections and maps that cannot be instantiated (e.g. unmodifiable views) are copied into
+ * their standard mutable counterpart. Other objects that cannot be copied reflectively
+ * (no default constructor, lazy loading proxies, other JDK types) fall back to serialization.
+ *
+ * @since 3.5.4
+ */
+public class DeepCopyCache implements Cache {
+
+  private static final Object[] NO_ARGUMENTS = new Object[0];
+  private static final Set<Class<?>> IMMUTABLE_TYPES = new HashSet<>(Arrays.asList(
+      String.class, Boolean.class, Character.class, Byte.class, Short.class, Integer.class, Long.class,
+      Float.class, Double.class, BigInteger.class, BigDecimal.class, Class.class, UUID.class, Locale.class));
+  private static final ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+  private static final Map<Class<?>, CopyPlan> copyPlans = new ConcurrentHashMap<>();
+
+  private final Cache delegate;
+
+  public DeepCopyCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object object) {
+    delegate.putObject(key, copy(object));
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object object = delegate.getObject(key);
+    return object == null ? null : copy(object);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    delegate.clear();
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  /**
+   * Returns a deep copy of the given object graph.
+   */
+  public static Object copy(Object object) {
+    try {
+      return new GraphCopier().copy(object);
+    } catch (CacheException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new CacheException("Error copying object.  Cause: " + e, e);
+    }
+  }
+
+  private static boolean isImmutable(Class<?> type) {
+    return IMMUTABLE_TYPES.contains(type) || type.isEnum() || Enum.class.isAssignableFrom(type)
+        || type.getName().startsWith("java.time.");
+  }
+
+  private static CopyPlan planFor(Class<?> type) {
+    return copyPlans.computeIfAbsent(type, CopyPlan::new);
+  }
+
+  private static class GraphCopier {
+
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    Object copy(Object original) throws Exception {
+      if (original == null || isImmutable(original.getClass())) {
+        return original;
+      }
+      Object copy = copies.get(original);
+      if (copy != null) {
+        return copy;
+      }
+      Class<?> type = original.getClass();
+      if (type.isArray()) {
+        return copyArray(original, type.getComponentType());
+      } else if (original instanceof Date) {
+        return register(original, ((Date) original).clone());
+      } else if (original instanceof Calendar) {
+        return register(original, ((Calendar) original).clone());
+      }
+      CopyPlan plan = planFor(type);
+      if (plan.isCollection()) {
+        return copyCollection((Collection<?>) original, plan);
+      } else if (plan.isMap()) {
+        return copyMap((Map<?, ?>) original, plan);
+      } else if (plan.isBean()) {
+        return copyBean(original, plan);
+      }
+      return register(original, serializedCopy(original));
+    }
+
+    private Object register(Object original, Object copy) {
+      copies.put(original, copy);
+      return copy;
+    }
+
+    private Object copyArray(Object original, Class<?> componentType) throws Exception {
+      int length = Array.getLength(original);
+      Object copy = register(original, Array.newInstance(componentType, length));
+      if (componentType.isPrimitive()) {
+        System.arraycopy(original, 0, copy, 0, length);
+      } else {
+        Object[] source = (Object[]) original;
+        Object[] target = (Object[]) copy;
+        for (int i = 0; i < length; i++) {
+          target[i] = copy(source[i]);
+        }
+      }
+      return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object copyCollection(Collection<?> original, CopyPlan plan) throws Exception {
+      Collection<Object> copy = (Collection<Object>) register(original, plan.newContainer(original));
+      for (Object element : original) {
+        copy.add(copy(element));
+      }
+      return copy;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object copyMap(Map<?, ?> original, CopyPlan plan) throws Exception {
+      Map<Object, Object> copy = (Map<Object, Object>) register(original, plan.newContainer(original));
+      for (Map.Entry<?, ?> entry : original.entrySet()) {
+        copy.put(copy(entry.getKey()), copy(entry.getValue()));
+      }
+      return copy;
+    }
+
+    private Object copyBean(Object original, CopyPlan plan) throws Exception {
+      Object copy = register(original, plan.newInstance());
+      for (int i = 0; i < plan.getters.length; i++) {
+        Object value = plan.getters[i].invoke(original, NO_ARGUMENTS);
+        plan.setters[i].invoke(copy, new Object[] { copy(value) });
+      }
+      return copy;
+    }
+
+    private Object serializedCopy(Object original) throws Exception {
+      if (!(original instanceof Serializable)) {
+        throw new CacheException("DeepCopyCache failed to make a copy of a non-serializable object: " + original);
+      }
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      try (ObjectOutputStream oos = new ObjectOutputStream(bos)) {
+        oos.writeObject(original);
+      }
+      try (ObjectInputStream ois = new SerializedCache.CustomObjectInputStream(new ByteArrayInputStream(bos.toByteArray()))) {
+        return ois.readObject();
+      }
+    }
+  }
+
+  /**
+   * Precomputed way of copying instances of one class.
+   */
+  private static class CopyPlan {
+
+    private enum Kind {
+      COLLECTION, MAP, BEAN, UNSUPPORTED
+    }
+
+    private final Kind kind;
+    private final Constructor<?> constructor;
+    private final Invoker[] getters;
+    private final Invoker[] setters;
+
+    CopyPlan(Class<?> type) {
+      Reflector reflector = reflectorFactory.findForClass(type);
+      boolean sorted = SortedSet.class.isAssignableFrom(type) || SortedMap.class.isAssignableFrom(type);
+      this.constructor = reflector.hasDefaultConstructor() && !sorted ? accessible(reflector.getDefaultConstructor()) : null;
+      List<Invoker> getterList = new ArrayList<>();
+      List<Invoker> setterList = new ArrayList<>();
+      if (Collection.class.isAssignableFrom(type)) {
+        this.kind = Kind.COLLECTION;
+      } else if (Map.class.isAssignableFrom(type)) {
+        this.kind = Kind.MAP;
+      } else if (constructor == null || WriteReplaceInterface.class.isAssignableFrom(type)
+          || type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+        this.kind = Kind.UNSUPPORTED;
+      } else {
+        this.kind = Kind.BEAN;
+        for (String property : reflector.getGetablePropertyNames()) {
+          if (reflector.hasSetter(property)) {
+            getterList.add(reflector.getGetInvoker(property));
+            setterList.add(reflector.getSetInvoker(property));
+          }
+        }
+      }
+      this.getters = getterList.toArray(new Invoker[0]);
+      this.setters = setterList.toArray(new Invoker[0]);
+    }
+
+    boolean isCollection() {
+      return kind == Kind.COLLECTION;
+    }
+
+    boolean isMap() {
+      return kind == Kind.MAP;
+    }
+
+    boolean isBean() {
+      return kind == Kind.BEAN;
+    }
+
+    Object newInstance() throws Exception {
+      return constructor.newInstance();
+    }
+
+    /**
+     * Creates an empty container for copying the given collection or map.
+     * Sorted containers keep their comparator, containers that cannot be instantiated
+     * (e.g. unmodifiable or singleton views) are copied into their standard mutable counterpart.
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    Object newContainer(Object original) throws Exception {
+      if (original instanceof SortedSet) {
+        return new TreeSet(((SortedSet) original).comparator());
+      } else if (original instanceof SortedMap) {
+        return new TreeMap(((SortedMap) original).comparator());
+      } else if (constructor != null) {
+        return constructor.newInstance();
+      } else if (original instanceof Map) {
+        return new LinkedHashMap<>();
+      } else if (original instanceof Set) {
+        return new LinkedHashSet<>();
+      } else {
+        return new ArrayList<>();
+      }
+    }
+
+    private static Constructor<?> accessible(Constructor<?> constructor) {
+      if (Modifier.isPublic(constructor.getModifiers()) && Modifier.isPublic(constructor.getDeclaringClass().getModifiers())) {
+        return constructor;
+      }
+      if (!Reflector.canControlMemberAccessible()) {
+        return null;
+      }
+      try {
+        constructor.setAccessible(true);
+        return constructor;
+      } catch (RuntimeException e) {
+        // e.g. a non-public JDK class on a modular runtime, copied through serialization instead
+        return null;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Keeps track of the keys of the cache it decorates so its contents can be persisted.
+ * <p>
+ * It wraps the base cache of a namespace, below the eviction decorators, so evicted
+ * entries are forgotten as well.
+ *
+ * @see org.apache.ibatis.cache.CacheSnapshotManager
+ * @since 3.5.4
+ */
+public class SnapshotCache implements Cache {
+
+  private final Cache delegate;
+  private final Set<Object> keys = ConcurrentHashMap.newKeySet();
+  //todo 为true时当前线程正在恢复快照中的缓存项，只有key不存在时才写入
+  private final ThreadLocal<Boolean> restoring = new ThreadLocal<>();
+
+  public SnapshotCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object object) {
+    synchronized (this) {
+      if (restoring.get() != null && delegate.getObject(key) != null) {
+        // a value cached since startup is more recent than the snapshot
+        return;
+      }
+      delegate.putObject(key, object);
+      keys.add(key);
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return delegate.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    keys.remove(key);
+    return delegate.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    keys.clear();
+    delegate.clear();
+  }
+
+  /**
+   * Puts a restored entry through the given cache, which decorates this one, unless the key already has a value.
+   * The check and the put are atomic with respect to the other puts of this cache.
+   *
+   * @param cache the namespace cache decorating this one
+   */
+  public void restore(Cache cache, Object key, Object object) {
+    restoring.set(Boolean.TRUE);
+    try {
+      cache.putObject(key, object);
+    } finally {
+      restoring.remove();
+    }
+  }
+
+  /**
+   * Returns a copy of the keys currently held by the decorated cache.
+   */
+  public List<Object> getKeys() {
+    return new ArrayList<>(keys);
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+}
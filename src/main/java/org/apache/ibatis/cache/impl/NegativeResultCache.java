@@ -0,0 +1,143 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * Cache of queries known to return no rows.
+ * <p>
+ * Only the expiry time of an entry is kept, whatever value is put, so a miss costs a key and a
+ * timestamp instead of an empty result list. Entries expire after their own time to live,
+ * independently of the 2nd level cache of the namespace, and the least recently used entries are
+ * evicted once the size cap is reached. {@link #getObject(Object)} returns {@link #EMPTY_RESULT}
+ * for live entries. Instances are shared between sessions and are thread safe.
+ *
+ * @since 3.5.4
+ */
+public class NegativeResultCache implements Cache {
+
+  public static final int DEFAULT_SIZE = 1024;
+
+  /**
+   * Sentinel returned for a cached negative result.
+   */
+  public static final Object EMPTY_RESULT = new Object() {
+    @Override
+    public String toString() {
+      return "EMPTY_RESULT";
+    }
+  };
+
+  private final String id;
+  private final long timeToLive;
+  private final int size;
+  //todo access-order map of cache keys and the time (in nanos) they expire at
+  private final LinkedHashMap<Object, Long> expiries;
+
+  public NegativeResultCache(String id, long timeToLive) {
+    this(id, timeToLive, DEFAULT_SIZE);
+  }
+
+  /**
+   * @param id the cache id
+   * @param timeToLive time to live of an entry in milliseconds
+   * @param size maximum number of entries
+   */
+  public NegativeResultCache(String id, long timeToLive, int size) {
+    this.id = id;
+    this.timeToLive = timeToLive * 1000000L;
+    this.size = size;
+    this.expiries = new LinkedHashMap<>(16, .75F, true);
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public synchronized int getSize() {
+    return expiries.size();
+  }
+
+  @Override
+  public synchronized void putObject(Object key, Object value) {
+    if (value == null) {
+      // e.g. a missed entry released by TransactionalCache
+      return;
+    }
+    expiries.put(key, now() + timeToLive);
+    if (expiries.size() > size) {
+      evict();
+    }
+  }
+
+  @Override
+  public synchronized Object getObject(Object key) {
+    Long expiry = expiries.get(key);
+    if (expiry == null) {
+      return null;
+    }
+    if (expiry - now() <= 0) {
+      expiries.remove(key);
+      return null;
+    }
+    return EMPTY_RESULT;
+  }
+
+  @Override
+  public synchronized Object removeObject(Object key) {
+    return expiries.remove(key) == null ? null : EMPTY_RESULT;
+  }
+
+  @Override
+  public synchronized void clear() {
+    expiries.clear();
+  }
+
+  private void evict() {
+    Iterator<Object> iterator = expiries.keySet().iterator();
+    while (expiries.size() > size && iterator.hasNext()) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  protected long now() {
+    return System.nanoTime();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof NegativeResultCache)) {
+      return false;
+    }
+    return id.equals(((NegativeResultCache) o).getId());
+  }
+
+  @Override
+  public int hashCode() {
+    return id.hashCode();
+  }
+
+}
@@ -0,0 +1,178 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.util.Iterator;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+
+/**
+ * Streams the results of a cursor to a subscriber as it requests them, following the reactive streams rules.
+ * <p>
+ * The session and the cursor are opened on the first request and closed once the results are consumed,
+ * the subscription is cancelled or an error occurred. Rows are read on the given executor, one drain at a time,
+ * and the fetch size of the cursor follows the outstanding demand.
+ *
+ * @since 3.5.4
+ */
+public class CursorSubscription<T> {
+
+  private static final int MAX_FETCH_SIZE = 1000;
+
+  private final SqlSessionFactory sqlSessionFactory;
+  private final Function<SqlSession, Cursor<T>> query;
+  private final Executor executor;
+  private final Subscriber<T> subscriber;
+
+  private final AtomicLong requested = new AtomicLong();
+  //todo 等待处理的信号个数，保证同一时刻只有一个线程读取游标
+  private final AtomicInteger wip = new AtomicInteger();
+  private volatile boolean cancelled;
+  private volatile Throwable invalidRequest;
+
+  // only accessed by the drain
+  private boolean done;
+  private SqlSession sqlSession;
+  private Cursor<T> cursor;
+  private Iterator<T> iterator;
+
+  public CursorSubscription(SqlSessionFactory sqlSessionFactory, Function<SqlSession, Cursor<T>> query,
+      Executor executor, Subscriber<T> subscriber) {
+    this.sqlSessionFactory = sqlSessionFactory;
+    this.query = query;
+    this.executor = executor;
+    this.subscriber = subscriber;
+  }
+
+  public void request(long n) {
+    if (n <= 0) {
+      invalidRequest = new IllegalArgumentException("Non-positive request of " + n + " items (reactive streams rule 3.9)");
+    } else {
+      long current;
+      long next;
+      do {
+        current = requested.get();
+        next = current + n < 0 ? Long.MAX_VALUE : current + n;
+      } while (!requested.compareAndSet(current, next));
+    }
+    drain();
+  }
+
+  public void cancel() {
+    cancelled = true;
+    drain();
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() == 0) {
+      executor.execute(this::drainLoop);
+    }
+  }
+
+  private void drainLoop() {
+    int missed = 1;
+    do {
+      if (!done) {
+        emit();
+      }
+      missed = wip.addAndGet(-missed);
+    } while (missed != 0);
+  }
+
+  private void emit() {
+    try {
+      if (cancelled) {
+        release();
+        return;
+      }
+      if (invalidRequest != null) {
+        release();
+        subscriber.onError(invalidRequest);
+        return;
+      }
+      long demand = requested.get();
+      if (demand == 0) {
+        return;
+      }
+      if (cursor == null) {
+        sqlSession = sqlSessionFactory.openSession();
+        cursor = query.apply(sqlSession);
+        iterator = cursor.iterator();
+      }
+      if (cursor instanceof DefaultCursor) {
+        //todo 根据订阅者请求的元素个数调整每次从数据库读取的行数
+        ((DefaultCursor<T>) cursor).setFetchSize((int) Math.min(demand, MAX_FETCH_SIZE));
+      }
+      long emitted = 0;
+      while (emitted != demand) {
+        if (cancelled) {
+          release();
+          return;
+        }
+        if (!iterator.hasNext()) {
+          release();
+          subscriber.onComplete();
+          return;
+        }
+        subscriber.onNext(iterator.next());
+        emitted++;
+      }
+      if (demand != Long.MAX_VALUE) {
+        requested.addAndGet(-emitted);
+      }
+    } catch (Throwable t) {
+      release();
+      subscriber.onError(t);
+    }
+  }
+
+  private void release() {
+    done = true;
+    try {
+      if (cursor != null) {
+        cursor.close();
+      }
+    } catch (Exception e) {
+      // ignore, the session closes it anyway
+    } finally {
+      cursor = null;
+      iterator = null;
+      if (sqlSession != null) {
+        sqlSession.close();
+        sqlSession = null;
+      }
+    }
+  }
+
+  /**
+   * Receives the results of a {@link CursorSubscription}, signals are never sent concurrently.
+   */
+  public interface Subscriber<T> {
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+  }
+
+}
@@ -19,6 +19,11 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
@@ -49,6 +54,11 @@ public class DefaultCursor<T> implements Cursor<T> {
   private CursorStatus status = CursorStatus.CREATED;
   private int indexWithRowBound = -1;
 
+  private int prefetchSize;
+  private Executor prefetchExecutor;
+  //todo 后台读取线程，启动后由它独占结果集
+  private Prefetcher prefetcher;
+
   private enum CursorStatus {
 
     /**
@@ -109,6 +119,10 @@ public class DefaultCursor<T> implements Cursor<T> {
       return;
     }
 
+    if (prefetcher != null) {
+      //todo 先停止后台读取线程，再关闭结果集
+      prefetcher.cancel();
+    }
     ResultSet rs = rsw.getResultSet();
     try {
       if (rs != null) {
@@ -121,6 +135,44 @@ public class DefaultCursor<T> implements Cursor<T> {
     }
   }
 
+  /**
+   * Gives the driver a hint on the number of rows to fetch from the database when more rows are needed.
+   *
+   * @param fetchSize the number of rows to fetch
+   * @since 3.5.4
+   */
+  public void setFetchSize(int fetchSize) {
+    if (isClosed() || prefetcher != null) {
+      return;
+    }
+    try {
+      rsw.getResultSet().setFetchSize(fetchSize);
+    } catch (SQLException e) {
+      // ignore, it is only a hint
+    }
+  }
+
+  /**
+   * Reads ahead up to the given number of objects on a thread of the executor, so that the database is read while
+   * the objects already fetched are processed. Once the iteration has started, that thread is the only one to use
+   * the result set, until the cursor is consumed or closed.
+   * <p>
+   * That thread uses the connection of the session, which is not safe for concurrent use: the session must stay idle,
+   * running no other statement, commit or rollback, until the cursor is consumed or closed.
+   *
+   * @param prefetchSize the maximum number of objects read ahead, prefetching is disabled if it is not positive
+   * @param executor the executor running the read-ahead, the objects are read on the calling thread if it rejects
+   *        the read-ahead
+   * @since 3.5.4
+   */
+  public void setPrefetch(int prefetchSize, Executor executor) {
+    if (status != CursorStatus.CREATED) {
+      throw new IllegalStateException("Prefetching can only be set before the cursor is used.");
+    }
+    this.prefetchSize = prefetchSize;
+    this.prefetchExecutor = executor;
+  }
+
   protected T fetchNextUsingRowBound() {
     T result = fetchNextObjectFromDatabase();
     while (objectWrapperResultHandler.fetched && indexWithRowBound < rowBounds.getOffset()) {
@@ -134,14 +186,23 @@ public class DefaultCursor<T> implements Cursor<T> {
       return null;
     }
 
-    try {
-      objectWrapperResultHandler.fetched = false;
-      status = CursorStatus.OPEN;
-      if (!rsw.getResultSet().isClosed()) {
-        resultSetHandler.handleRowValues(rsw, resultMap, objectWrapperResultHandler, RowBounds.DEFAULT, null);
+    objectWrapperResultHandler.fetched = false;
+    status = CursorStatus.OPEN;
+    if (prefetchSize > 0 && prefetcher == null) {
+      Prefetcher newPrefetcher = new Prefetcher(prefetchSize);
+      try {
+        prefetchExecutor.execute(newPrefetcher);
+        //todo 提交成功后才记录，否则close()会一直等待一个不会运行的读取任务
+        prefetcher = newPrefetcher;
+      } catch (RejectedExecutionException e) {
+        //todo 执行器拒绝时不再预读，在当前线程中读取
+        prefetchSize = 0;
       }
-    } catch (SQLException e) {
-      throw new RuntimeException(e);
+    }
+    if (prefetcher != null) {
+      prefetcher.take(objectWrapperResultHandler);
+    } else {
+      fetchNextObject(objectWrapperResultHandler);
     }
 
     T next = objectWrapperResultHandler.result;
@@ -158,6 +219,16 @@ public class DefaultCursor<T> implements Cursor<T> {
     return next;
   }
 
+  private void fetchNextObject(ObjectWrapperResultHandler<T> resultHandler) {
+    try {
+      if (!rsw.getResultSet().isClosed()) {
+        resultSetHandler.handleRowValues(rsw, resultMap, resultHandler, RowBounds.DEFAULT, null);
+      }
+    } catch (SQLException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
   private boolean isClosed() {
     return status == CursorStatus.CLOSED || status == CursorStatus.CONSUMED;
   }
@@ -179,6 +250,108 @@ public class DefaultCursor<T> implements Cursor<T> {
     }
   }
 
+  /**
+   * Fetches the objects of the cursor ahead of the iteration into a bounded buffer.
+   */
+  private final class Prefetcher implements Runnable {
+
+    private final Object end = new Object();
+    private final Object nullObject = new Object();
+    private final BlockingQueue<Object> buffer;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private final long maxObjects = (long) rowBounds.getOffset() + rowBounds.getLimit();
+    private volatile boolean cancelled;
+
+    Prefetcher(int size) {
+      this.buffer = new ArrayBlockingQueue<>(size);
+    }
+
+    @Override
+    public void run() {
+      ObjectWrapperResultHandler<T> resultHandler = new ObjectWrapperResultHandler<>();
+      Object last = end;
+      try {
+        for (long count = 0; count < maxObjects && !cancelled; count++) {
+          resultHandler.fetched = false;
+          fetchNextObject(resultHandler);
+          if (!resultHandler.fetched) {
+            break;
+          }
+          buffer.put(resultHandler.result == null ? nullObject : resultHandler.result);
+          resultHandler.result = null;
+        }
+      } catch (Throwable t) {
+        last = new PrefetchFailure(t);
+      } finally {
+        stopped.countDown();
+      }
+      if (!cancelled) {
+        try {
+          buffer.put(last);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    @SuppressWarnings("unchecked")
+    void take(ObjectWrapperResultHandler<T> resultHandler) {
+      Object next;
+      try {
+        next = buffer.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new RuntimeException("Interrupted while waiting for the next object of the cursor.", e);
+      }
+      if (next instanceof PrefetchFailure) {
+        Throwable cause = ((PrefetchFailure) next).cause;
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new RuntimeException(cause);
+      }
+      if (next != end) {
+        resultHandler.result = next == nullObject ? null : (T) next;
+        resultHandler.fetched = true;
+      }
+    }
+
+    /**
+     * Stops the read-ahead, and waits until the result set is no longer used.
+     */
+    void cancel() {
+      cancelled = true;
+      //todo 清空缓冲区，唤醒阻塞在put上的读取线程
+      buffer.clear();
+      boolean interrupted = false;
+      while (true) {
+        try {
+          stopped.await();
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+      buffer.clear();
+    }
+
+  }
+
+  private static final class PrefetchFailure {
+
+    private final Throwable cause;
+
+    PrefetchFailure(Throwable cause) {
+      this.cause = cause;
+    }
+
+  }
+
   protected class CursorIterator implements Iterator<T> {
 
     /**
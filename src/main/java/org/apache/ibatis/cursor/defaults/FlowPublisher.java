@@ -0,0 +1,142 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.function.Function;
+
+import org.apache.ibatis.reflection.ExceptionUtil;
+
+/**
+ * Implements {@code java.util.concurrent.Flow.Publisher} on top of {@link CursorSubscription}.
+ * <p>
+ * The Flow interfaces exist since Java 9 only, so they are looked up and implemented reflectively.
+ *
+ * @since 3.5.4
+ */
+public final class FlowPublisher {
+
+  public static final String PUBLISHER_CLASS_NAME = "java.util.concurrent.Flow$Publisher";
+  private static final String SUBSCRIBER_CLASS_NAME = "java.util.concurrent.Flow$Subscriber";
+  private static final String SUBSCRIPTION_CLASS_NAME = "java.util.concurrent.Flow$Subscription";
+
+  private FlowPublisher() {
+    // Prevent Instantiation
+  }
+
+  public static boolean isPublisher(Class<?> type) {
+    return PUBLISHER_CLASS_NAME.equals(type.getName());
+  }
+
+  /**
+   * Creates a cold publisher, each subscriber gets a subscription of its own.
+   *
+   * @param publisherType the {@code Flow.Publisher} class
+   * @param subscriptionFactory creates the subscription that feeds a subscriber
+   * @return a {@code Flow.Publisher}
+   */
+  public static <T> Object newPublisher(Class<?> publisherType,
+      Function<CursorSubscription.Subscriber<T>, CursorSubscription<T>> subscriptionFactory) {
+    ClassLoader classLoader = FlowPublisher.class.getClassLoader();
+    final Class<?> subscriberType;
+    final Class<?> subscriptionType;
+    final Method onSubscribe;
+    final Method onNext;
+    final Method onError;
+    final Method onComplete;
+    try {
+      subscriberType = Class.forName(SUBSCRIBER_CLASS_NAME, false, classLoader);
+      subscriptionType = Class.forName(SUBSCRIPTION_CLASS_NAME, false, classLoader);
+      onSubscribe = subscriberType.getMethod("onSubscribe", subscriptionType);
+      onNext = subscriberType.getMethod("onNext", Object.class);
+      onError = subscriberType.getMethod("onError", Throwable.class);
+      onComplete = subscriberType.getMethod("onComplete");
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Flow is not available on this JVM. Cause: " + e, e);
+    }
+    return newProxy(publisherType, (proxy, method, args) -> {
+      if (!"subscribe".equals(method.getName())) {
+        return objectMethod(proxy, method, args);
+      }
+      Object subscriber = args[0];
+      if (subscriber == null) {
+        throw new NullPointerException("subscriber is null (reactive streams rule 1.9)");
+      }
+      CursorSubscription<T> subscription = subscriptionFactory.apply(new CursorSubscription.Subscriber<T>() {
+        @Override
+        public void onNext(T item) {
+          invoke(onNext, subscriber, item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+          invoke(onError, subscriber, throwable);
+        }
+
+        @Override
+        public void onComplete() {
+          invoke(onComplete, subscriber);
+        }
+      });
+      Object flowSubscription = newProxy(subscriptionType, (subscriptionProxy, subscriptionMethod, subscriptionArgs) -> {
+        if ("request".equals(subscriptionMethod.getName())) {
+          subscription.request((Long) subscriptionArgs[0]);
+          return null;
+        } else if ("cancel".equals(subscriptionMethod.getName())) {
+          subscription.cancel();
+          return null;
+        }
+        return objectMethod(subscriptionProxy, subscriptionMethod, subscriptionArgs);
+      });
+      invoke(onSubscribe, subscriber, flowSubscription);
+      return null;
+    });
+  }
+
+  private static Object newProxy(Class<?> type, InvocationHandler handler) {
+    return Proxy.newProxyInstance(FlowPublisher.class.getClassLoader(), new Class<?>[] { type }, handler);
+  }
+
+  private static Object objectMethod(Object proxy, Method method, Object[] args) {
+    switch (method.getName()) {
+      case "equals":
+        return proxy == args[0];
+      case "hashCode":
+        return System.identityHashCode(proxy);
+      case "toString":
+        return proxy.getClass().getInterfaces()[0].getName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+      default:
+        throw new UnsupportedOperationException(method.toString());
+    }
+  }
+
+  private static void invoke(Method method, Object target, Object... args) {
+    try {
+      method.invoke(target, args);
+    } catch (ReflectiveOperationException e) {
+      Throwable cause = ExceptionUtil.unwrapThrowable(e);
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+}
@@ -26,6 +26,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.pagination.Pagination;
 import org.apache.ibatis.executor.statement.StatementUtil;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
@@ -38,6 +39,7 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetRowBounds;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -62,6 +64,8 @@ public abstract class BaseExecutor implements Executor {
   protected PerpetualCache localCache;
   //todo 一级缓存，用于缓存输出类型的参数
   protected PerpetualCache localOutputParameterCache;
+  //todo 实体标识缓存，按<id>记录查询出的对象，与一级缓存的生命周期相同
+  private IdentityCache identityCache;
   protected Configuration configuration;
 
   //todo  用来记录嵌套查询的层数
@@ -71,8 +75,13 @@ public abstract class BaseExecutor implements Executor {
   protected BaseExecutor(Configuration configuration, Transaction transaction) {
     this.transaction = transaction;
     this.deferredLoads = new ConcurrentLinkedQueue<>();
-    this.localCache = new PerpetualCache("LocalCache");
+    //todo ResultLoaderMap.ClosedExecutor没有配置，使用不限大小的一级缓存
+    this.localCache = configuration == null ? new LocalCache("LocalCache")
+        : new LocalCache("LocalCache", valueOf(configuration.getLocalCacheMaxEntries()), valueOf(configuration.getLocalCacheMaxRows()));
     this.localOutputParameterCache = new PerpetualCache("LocalOutputParameterCache");
+    this.identityCache = new IdentityCache(configuration);
+    //todo 一级缓存淘汰查询结果时，一并移除由该结果建立的实体标识索引
+    ((LocalCache) localCache).setEvictionListener(identityCache::forget);
     this.closed = false;
     this.configuration = configuration;
     this.wrapper = this;
@@ -102,10 +111,15 @@ public abstract class BaseExecutor implements Executor {
       // Ignore.  There's nothing that can be done at this point.
       log.warn("Unexpected exception on closing transaction.  Cause: " + e);
     } finally {
+      if (log.isDebugEnabled() && localCache instanceof LocalCache) {
+        log.debug("Local cache high-water mark: " + getLocalCacheHighWaterEntries() + " entries, "
+            + getLocalCacheHighWaterRows() + " rows");
+      }
       transaction = null;
       deferredLoads = null;
       localCache = null;
       localOutputParameterCache = null;
+      identityCache = null;
       closed = true;
     }
   }
@@ -168,6 +182,10 @@ public abstract class BaseExecutor implements Executor {
       queryStack++;
       //TODO  查询一级缓存中是否存在key 也就是sql加参数 ，一级缓存的作用域只在当前session中
       list = resultHandler == null ? (List<E>) localCache.getObject(key) : null;
+      if (list == null && resultHandler == null && ms.isIdentityLookup()) {
+        //todo 按主键查询的语句，先尝试从实体标识缓存中获取之前其他语句查询出的对象
+        list = identityCache.lookup(ms, parameter, rowBounds);
+      }
       if (list != null) {
         //TODO 针对存储过程调用的处理，其功能是：在一级缓存命中时，获取缓存中保存的输出类型参数，并设置到用户传入的实参（parameter）对象中
         handleLocallyCachedOutputParameters(ms, key, parameter, boundSql);
@@ -188,6 +206,9 @@ public abstract class BaseExecutor implements Executor {
       }
       // todo 加载完成之后清空
       deferredLoads.clear();
+      if (localCache instanceof LocalCache) {
+        ((LocalCache) localCache).unpinAll();
+      }
       if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
         // todo 根据localCacheScope配置决定是否清空一级缓存，localCacheShope配置是影响一级缓存中结果对象存活时长的第二个方面
         clearLocalCache();
@@ -200,6 +221,10 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
     BoundSql boundSql = ms.getBoundSql(parameter);
+    BoundSql pageSql = Pagination.paginate(ms, boundSql, rowBounds);
+    if (pageSql != null) {
+      return doQueryCursor(ms, parameter, Pagination.remainingRowBounds(rowBounds), pageSql);
+    }
     return doQueryCursor(ms, parameter, rowBounds, boundSql);
   }
 
@@ -215,6 +240,10 @@ public abstract class BaseExecutor implements Executor {
       deferredLoad.load();
     } else {
       //todo 将Deferred对象添加到deferredLoads队列中，待整个外层查询结束后，再加载该结果对象
+      if (localCache instanceof LocalCache) {
+        // the entry must survive eviction until the deferred load has been resolved
+        ((LocalCache) localCache).pin(key);
+      }
       deferredLoads.add(new DeferredLoad(resultObject, property, key, localCache, configuration, targetType));
     }
   }
@@ -230,6 +259,16 @@ public abstract class BaseExecutor implements Executor {
     cacheKey.update(ms.getId());
     cacheKey.update(rowBounds.getOffset());
     cacheKey.update(rowBounds.getLimit());
+    if (rowBounds instanceof KeysetRowBounds) {
+      //todo 按key分页时，key列和上一页最后一行的key值也决定了查询结果
+      KeysetRowBounds keysetRowBounds = (KeysetRowBounds) rowBounds;
+      cacheKey.update(keysetRowBounds.isDescending());
+      cacheKey.updateAll(keysetRowBounds.getColumns());
+      Object[] after = keysetRowBounds.getAfter();
+      if (after != null) {
+        cacheKey.updateAll(after);
+      }
+    }
     cacheKey.update(boundSql.getSql());
     List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
     TypeHandlerRegistry typeHandlerRegistry = ms.getConfiguration().getTypeHandlerRegistry();
@@ -299,9 +338,26 @@ public abstract class BaseExecutor implements Executor {
     if (!closed) {
       localCache.clear();
       localOutputParameterCache.clear();
+      identityCache.clear();
     }
   }
 
+  /**
+   * Returns the largest number of entries the local cache held during the lifetime of this executor.
+   * @since 3.5.4
+   */
+  public int getLocalCacheHighWaterEntries() {
+    return localCache instanceof LocalCache ? ((LocalCache) localCache).getHighWaterEntries() : 0;
+  }
+
+  /**
+   * Returns the largest number of result objects the local cache held during the lifetime of this executor.
+   * @since 3.5.4
+   */
+  public int getLocalCacheHighWaterRows() {
+    return localCache instanceof LocalCache ? ((LocalCache) localCache).getHighWaterRows() : 0;
+  }
+
   protected abstract int doUpdate(MappedStatement ms, Object parameter)
       throws SQLException;
 
@@ -335,6 +391,25 @@ public abstract class BaseExecutor implements Executor {
     StatementUtil.applyTransactionTimeout(statement, statement.getQueryTimeout(), transaction.getTimeout());
   }
 
+  /**
+   * Apply the timeouts to a statement that is executed again.
+   * <p>
+   * The query timeout of the mapped statement is set again, since the deadline of a previous execution may have
+   * lowered it, then the transaction timeout and the deadline of the current thread are applied.
+   *
+   * @param ms the mapped statement executed
+   * @param statement a reused statement
+   * @throws SQLException if the deadline has already passed or a database access error occurs
+   * @see StatementUtil#applyDeadline(Statement)
+   * @since 3.5.4
+   */
+  protected void applyTimeouts(MappedStatement ms, Statement statement) throws SQLException {
+    Integer queryTimeout = ms.getTimeout() != null ? ms.getTimeout() : configuration.getDefaultStatementTimeout();
+    statement.setQueryTimeout(queryTimeout == null ? 0 : queryTimeout);
+    applyTransactionTimeout(statement);
+    StatementUtil.applyDeadline(statement);
+  }
+
   private void handleLocallyCachedOutputParameters(MappedStatement ms, CacheKey key, Object parameter, BoundSql boundSql) {
     if (ms.getStatementType() == StatementType.CALLABLE) {
       final Object cachedParameter = localOutputParameterCache.getObject(key);
@@ -357,14 +432,25 @@ public abstract class BaseExecutor implements Executor {
     //todo 先在缓存中添加占位符
     localCache.putObject(key, EXECUTION_PLACEHOLDER);
     try {
-      //todo 调用doQuery方法完成查询操作
-      list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+      //todo 调用doQuery方法完成查询操作，可能的话由数据库完成分页
+      BoundSql pageSql = Pagination.paginate(ms, boundSql, rowBounds);
+      if (pageSql != null) {
+        list = doQuery(ms, parameter, Pagination.remainingRowBounds(rowBounds), resultHandler, pageSql);
+      } else {
+        list = doQuery(ms, parameter, rowBounds, resultHandler, boundSql);
+      }
     } finally {
       //todo 删除占位符
       localCache.removeObject(key);
     }
-    //todo 将真正的结果对象添加到一级缓存中
-    localCache.putObject(key, list);
+    //todo 将真正的结果对象添加到一级缓存中，selectOne()只读取了两行时结果可能不完整，不缓存
+    if (!SingleResultRowBounds.isTruncated(rowBounds, list)) {
+      localCache.putObject(key, list);
+      //todo 按<id>记录查询出的对象，结果仍在一级缓存中时才记录，随一级缓存的淘汰而移除
+      if (localCache.getObject(key) == list) {
+        identityCache.index(key, ms, list);
+      }
+    }
     //todo 判断是不是存储过程调用
     if (ms.getStatementType() == StatementType.CALLABLE) {
       //todo 缓存输出类型的参数
@@ -389,6 +475,10 @@ public abstract class BaseExecutor implements Executor {
     this.wrapper = wrapper;
   }
 
+  private static int valueOf(Integer bound) {
+    return bound == null ? 0 : bound;
+  }
+
   //todo 负责从loaclCache缓存中延迟加载结果对象
   private static class DeferredLoad {
 
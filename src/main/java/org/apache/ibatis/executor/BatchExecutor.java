@@ -17,11 +17,22 @@ package org.apache.ibatis.executor;
 
 import java.sql.BatchUpdateException;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -30,6 +41,11 @@ import org.apache.ibatis.executor.keygen.NoKeyGenerator;
 import org.apache.ibatis.executor.statement.StatementHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -43,6 +59,16 @@ public class BatchExecutor extends BaseExecutor {
 
   public static final int BATCH_UPDATE_RETURN_VALUE = Integer.MIN_VALUE + 1002;
 
+  private static final int DEFAULT_REWRITE_MAX_PARAMETERS = 2000;
+
+  //todo 识别SQL语句中的标识符、带引号的标识符、字符串常量以及其他单个字符
+  private static final Pattern SQL_TOKEN = Pattern.compile(
+      "[A-Za-z_][\\w$]*(?:\\.[A-Za-z_][\\w$]*)*|\"[^\"]*\"|`[^`]*`|\\[[^\\]]*\\]|'(?:[^']|'')*'|\\S");
+  private static final Set<String> TABLE_KEYWORDS = new HashSet<>(Arrays.asList("from", "join", "into", "update", "using"));
+  private static final Set<String> CLAUSE_KEYWORDS = new HashSet<>(Arrays.asList("where", "set", "on", "join", "inner",
+      "left", "right", "full", "cross", "outer", "natural", "values", "value", "select", "default", "order", "group",
+      "limit", "using", "returning", "output", "union", "partition", "when", "with"));
+
   //todo 缓存多个Statement对象，其中每个Statement对象中都缓存了多条SQL语句
   private final List<Statement> statementList = new ArrayList<>();
   //todo 记录批处理的结果，BatchResult中通过UpdateCounts字段 记录每个Statement 执行批处理的结果
@@ -51,9 +77,38 @@ public class BatchExecutor extends BaseExecutor {
   private String currentSql;
   //todo 记录当前执行的MappedStatement对象
   private MappedStatement currentStatement;
+  //todo 自动刷新时已经执行的批处理结果，按照MappedStatement和SQL合并，不再保留实参对象
+  private final List<BatchResult> autoFlushedResults = new ArrayList<>();
+  //todo 自动刷新的阈值，以及尚未执行的SQL语句条数、参数个数和估算的字节数
+  private final int maxStatements;
+  private final int maxParameters;
+  private final long maxBytes;
+  private int pendingStatements;
+  private int pendingParameters;
+  private long pendingBytes;
+  //todo 开启分组时，记录每条SQL语句对应的、仍然可以追加的Statement在statementList中的下标
+  private final Map<String, Integer> openGroups = new HashMap<>();
+  private final Set<String> groupingNamespaces;
+  //todo 分组时按SQL语句缓存其访问的表，空集合表示无法识别
+  private final Map<String, Set<String>> tablesBySql = new HashMap<>();
+  //todo 开启多行插入改写时，按SQL语句记录尚未创建Statement对象的插入语句。参与分组的插入语句各自等待，
+  //  并在statementList中占一个位置；不参与分组的插入语句只能连续执行，等待时没有其他插入语句
+  private final boolean rewriteInserts;
+  private final int rewriteMaxParameters;
+  private final Map<String, PendingInsert> pendingInserts = new LinkedHashMap<>();
+  //todo 记录改写后的多行插入语句对应的BatchResult对象，执行后需要将影响行数拆分到每一行
+  private final Map<BatchResult, RewrittenBatch> rewrittenBatches = new IdentityHashMap<>();
 
   public BatchExecutor(Configuration configuration, Transaction transaction) {
     super(configuration, transaction);
+    this.maxStatements = positive(configuration.getBatchMaxStatements());
+    this.maxParameters = positive(configuration.getBatchMaxParameters());
+    this.maxBytes = positive(configuration.getBatchMaxBytes());
+    this.groupingNamespaces = configuration.getBatchGroupingNamespaces();
+    this.rewriteInserts = configuration.isRewriteBatchedInserts();
+    Integer rewriteMaxParameters = configuration.getRewriteBatchedInsertsMaxParameters();
+    this.rewriteMaxParameters = rewriteMaxParameters == null || rewriteMaxParameters <= 0
+        ? DEFAULT_REWRITE_MAX_PARAMETERS : rewriteMaxParameters;
   }
 
   @Override
@@ -65,21 +120,61 @@ public class BatchExecutor extends BaseExecutor {
     final BoundSql boundSql = handler.getBoundSql();
     //todo 获取SQL语句
     final String sql = boundSql.getSql();
+    boolean grouped = isGrouped(ms);
+    if (rewriteInserts) {
+      //todo 与等待中的插入语句相同，只记录实参，执行前再合并成多行插入语句
+      PendingInsert pendingInsert = pendingInserts.get(sql);
+      if (pendingInsert != null && pendingInsert.accepts(ms, sql)) {
+        pendingInsert.add(handler, parameterObject);
+        if (isAutoFlushRequired(boundSql, parameterObject, false)) {
+          autoFlush();
+        }
+        return BATCH_UPDATE_RETURN_VALUE;
+      }
+      if (pendingInsert != null) {
+        writePendingInsert(pendingInsert);
+      }
+      //todo 不参与分组的语句是一个屏障，之前等待的插入语句都要先创建Statement对象；参与分组的语句只需等待不参与分组的插入语句
+      if (!grouped || pendingInserts.values().stream().anyMatch(pending -> pending.slot < 0)) {
+        writePendingInserts();
+      }
+      MultiRowInsert insert = rewritableInsert(ms, boundSql);
+      if (insert != null) {
+        if (grouped) {
+          closeConflictingGroups(sql);
+        }
+        pendingInsert = new PendingInsert(ms, sql, insert, grouped ? reserveSlot(ms, sql) : -1);
+        pendingInserts.put(sql, pendingInsert);
+        pendingInsert.add(handler, parameterObject);
+        if (isAutoFlushRequired(boundSql, parameterObject, true)) {
+          autoFlush();
+        }
+        return BATCH_UPDATE_RETURN_VALUE;
+      }
+    }
     final Statement stmt;
-    //todo 如果当前执行的SQL模式与上次执行的SQL模式相同且对应的MappedStatement对象相同
-    if (sql.equals(currentSql) && ms.equals(currentStatement)) {
-      //todo 获取statementList的最后一个Statement对象
-      int last = statementList.size() - 1;
-      stmt = statementList.get(last);
+    boolean newStatement = false;
+    //todo 开启分组时，查找之前为相同SQL语句创建的Statement对象，即使中间穿插执行了其他SQL语句
+    int index = grouped ? openGroupIndex(ms, sql) : -1;
+    if (index < 0 && sql.equals(currentSql) && ms.equals(currentStatement)) {
+      //todo 如果当前执行的SQL模式与上次执行的SQL模式相同且对应的MappedStatement对象相同，获取statementList的最后一个Statement对象
+      index = statementList.size() - 1;
+    }
+    if (index >= 0) {
+      stmt = statementList.get(index);
       applyTransactionTimeout(stmt);
       handler.parameterize(stmt);//todo 绑定实参，处理"?"占位符
       //todo 查找对应的BatchResult对象，并记录用户传入的实参
-      BatchResult batchResult = batchResultList.get(last);
+      BatchResult batchResult = batchResultList.get(index);
       batchResult.addParameterObject(parameterObject);
     } else {
+      if (grouped) {
+        closeConflictingGroups(sql);
+      }
       Connection connection = getConnection(ms.getStatementLog());
       //todo 创建新的Statement对象
       stmt = handler.prepare(connection, transaction.getTimeout());
+      newStatement = true;
       //todo 处理"?"占位符
       handler.parameterize(stmt);
       //todo 更新currentSql 和CurrentStatement
@@ -89,12 +184,324 @@ public class BatchExecutor extends BaseExecutor {
       statementList.add(stmt);
       //todo 添加新的BatchResult对象
       batchResultList.add(new BatchResult(ms, sql, parameterObject));
+      if (grouped) {
+        openGroups.put(sql, statementList.size() - 1);
+      } else {
+        //todo 不参与分组的语句是一个屏障，之后的语句不能再追加到它之前创建的Statement中，以保证执行顺序
+        openGroups.clear();
+      }
     }
     //todo 底层通过调用Statement.addBatch()方法添加SQL语句
     handler.batch(stmt);
+    //todo 超过配置的阈值时，自动执行已经缓存的SQL语句，避免内存无限增长
+    if (isAutoFlushRequired(boundSql, parameterObject, newStatement)) {
+      autoFlush();
+    }
     return BATCH_UPDATE_RETURN_VALUE;
   }
 
+  private static MultiRowInsert rewritableInsert(MappedStatement ms, BoundSql boundSql) {
+    if (ms.getSqlCommandType() != SqlCommandType.INSERT || ms.getStatementType() != StatementType.PREPARED) {
+      return null;
+    }
+    //todo 其他KeyGenerator需要逐行处理，不能改写
+    Class<?> keyGeneratorType = ms.getKeyGenerator().getClass();
+    if (!NoKeyGenerator.class.equals(keyGeneratorType) && !Jdbc3KeyGenerator.class.equals(keyGeneratorType)) {
+      return null;
+    }
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      if (parameterMapping.getMode() != ParameterMode.IN) {
+        return null;
+      }
+    }
+    MultiRowInsert insert = MultiRowInsert.parse(boundSql.getSql());
+    return insert != null && insert.getParameterCount() == boundSql.getParameterMappings().size() ? insert : null;
+  }
+
+  /**
+   * Reserves the position of a grouped insert in the statement list, so that its rows are executed in the order
+   * of its first row even though its statements are created later.
+   */
+  private int reserveSlot(MappedStatement ms, String sql) {
+    statementList.add(null);
+    batchResultList.add(new BatchResult(ms, sql));
+    //todo 占位之后，后续语句不能再追加到之前最后一个Statement中
+    currentSql = null;
+    currentStatement = null;
+    return statementList.size() - 1;
+  }
+
+  private void writePendingInserts() throws SQLException {
+    for (PendingInsert insert : new ArrayList<>(pendingInserts.values())) {
+      writePendingInsert(insert);
+    }
+  }
+
+  /**
+   * Creates the statements of a pending insert, each inserting as many rows as the parameter limit allows.
+   */
+  private void writePendingInsert(PendingInsert insert) throws SQLException {
+    pendingInserts.remove(insert.sql);
+    int position = insert.slot;
+    if (position >= 0) {
+      //todo 移除占位，改写后的Statement对象放在占位的位置
+      statementList.remove(position);
+      batchResultList.remove(position);
+    } else {
+      position = statementList.size();
+    }
+    int parameterCount = insert.insert.getParameterCount();
+    int rowsPerStatement = parameterCount == 0 ? rewriteMaxParameters : Math.max(1, rewriteMaxParameters / parameterCount);
+    int rows = insert.parameterObjects.size();
+    int fullStatements = rows / rowsPerStatement;
+    int added = 0;
+    BatchResult target = null;
+    if (fullStatements > 0) {
+      target = addRewrittenStatement(insert, position + added++, 0, fullStatements, rowsPerStatement, null);
+    }
+    if (rows % rowsPerStatement > 0) {
+      addRewrittenStatement(insert, position + added++, fullStatements * rowsPerStatement, 1, rows % rowsPerStatement, target);
+    }
+    if (insert.slot >= 0) {
+      shiftPositions(insert.slot, added - 1);
+    } else {
+      //todo 改写后的Statement对象不能再追加其他实参，不参与分组的插入语句同时也是一个屏障
+      currentSql = null;
+      currentStatement = null;
+      openGroups.clear();
+    }
+  }
+
+  //todo 占位被替换后，更新其后的Statement对象的下标
+  private void shiftPositions(int slot, int delta) {
+    if (delta == 0) {
+      return;
+    }
+    openGroups.replaceAll((sql, index) -> index > slot ? index + delta : index);
+    for (PendingInsert pending : pendingInserts.values()) {
+      if (pending.slot > slot) {
+        pending.slot += delta;
+      }
+    }
+  }
+
+  private BatchResult addRewrittenStatement(PendingInsert insert, int position, int from, int statements, int rows,
+      BatchResult target) throws SQLException {
+    MappedStatement ms = insert.ms;
+    int parameterCount = insert.insert.getParameterCount();
+    String sql = insert.insert.sql(rows);
+    List<ParameterMapping> parameterMappings = new ArrayList<>(rows * parameterCount);
+    for (int i = from; i < from + rows; i++) {
+      parameterMappings.addAll(insert.handlers.get(i).getBoundSql().getParameterMappings());
+    }
+    Object parameterObject = insert.parameterObjects.get(from);
+    BoundSql boundSql = new BoundSql(configuration, sql, parameterMappings, parameterObject);
+    StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, boundSql);
+    Connection connection = getConnection(ms.getStatementLog());
+    Statement stmt = handler.prepare(connection, transaction.getTimeout());
+    BatchResult batchResult = new BatchResult(ms, insert.sql);
+    statementList.add(position, stmt);
+    batchResultList.add(position, batchResult);
+    rewrittenBatches.put(batchResult, new RewrittenBatch(rows, target));
+    OffsetPreparedStatement rowStatement = new OffsetPreparedStatement((PreparedStatement) stmt);
+    for (int i = from, end = from + statements * rows; i < end; i += rows) {
+      for (int row = 0; row < rows; row++) {
+        //todo 每一行的实参由各自的StatementHandler绑定到对应位置的"?"占位符，插件同样可以拦截每一行的parameterize()方法
+        rowStatement.setOffset(row * parameterCount);
+        insert.handlers.get(i + row).parameterize(rowStatement);
+        batchResult.addParameterObject(insert.parameterObjects.get(i + row));
+      }
+      handler.batch(stmt);
+    }
+    return batchResult;
+  }
+
+  /**
+   * Splits the update count of each multi-row statement into one count per row.
+   */
+  private static int[] perRowUpdateCounts(int[] updateCounts, int rowsPerStatement, int rows) {
+    int[] counts = new int[rows];
+    for (int i = 0, statement = 0; i < rows; i += rowsPerStatement, statement++) {
+      int statementRows = Math.min(rowsPerStatement, rows - i);
+      int count = statement < updateCounts.length ? updateCounts[statement] : Statement.SUCCESS_NO_INFO;
+      int rowCount = count == statementRows ? 1 : count == 0 ? 0 : Statement.SUCCESS_NO_INFO;
+      Arrays.fill(counts, i, i + statementRows, rowCount);
+    }
+    return counts;
+  }
+
+  private boolean isGrouped(MappedStatement ms) {
+    if (groupingNamespaces.isEmpty()) {
+      return false;
+    }
+    if (groupingNamespaces.contains("*") || groupingNamespaces.contains(ms.getId())) {
+      return true;
+    }
+    String id = ms.getId();
+    for (int i = id.lastIndexOf('.'); i > 0; i = id.lastIndexOf('.', i - 1)) {
+      if (groupingNamespaces.contains(id.substring(0, i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Closes the open groups and writes the pending grouped inserts that may access a table of the given statement,
+   * as their later rows would otherwise be executed before it.
+   */
+  private void closeConflictingGroups(String sql) throws SQLException {
+    Set<String> tables = tables(sql);
+    for (PendingInsert pending : new ArrayList<>(pendingInserts.values())) {
+      if (pending.slot >= 0 && !pending.sql.equals(sql) && conflicts(tables, tables(pending.sql))) {
+        writePendingInsert(pending);
+      }
+    }
+    openGroups.keySet().removeIf(groupSql -> !groupSql.equals(sql) && conflicts(tables, tables(groupSql)));
+  }
+
+  private Set<String> tables(String sql) {
+    return tablesBySql.computeIfAbsent(sql, BatchExecutor::parseTables);
+  }
+
+  private static boolean conflicts(Set<String> tables, Set<String> otherTables) {
+    return tables.isEmpty() || otherTables.isEmpty() || !Collections.disjoint(tables, otherTables);
+  }
+
+  /**
+   * Returns the lower case names of the tables an {@code INSERT}, {@code UPDATE} or {@code DELETE} statement reads
+   * or writes, or an empty set when they cannot be told for sure, e.g. for other statements, comma joins or comments.
+   * Tables accessed by triggers or cascading foreign keys are not known either.
+   */
+  static Set<String> parseTables(String sql) {
+    List<String> tokens = new ArrayList<>();
+    Matcher matcher = SQL_TOKEN.matcher(sql);
+    while (matcher.find()) {
+      tokens.add(matcher.group());
+    }
+    if (tokens.isEmpty() || !Arrays.asList("insert", "update", "delete", "replace").contains(tokens.get(0).toLowerCase(Locale.ENGLISH))
+        || sql.contains("--") || sql.contains("/*")) {
+      return Collections.emptySet();
+    }
+    Set<String> tables = new HashSet<>();
+    for (int i = 0; i < tokens.size(); i++) {
+      if (!TABLE_KEYWORDS.contains(tokens.get(i).toLowerCase(Locale.ENGLISH))) {
+        continue;
+      }
+      int next = i + 1;
+      String name = next < tokens.size() ? tableName(tokens.get(next)) : null;
+      if (name == null) {
+        //todo 子查询等派生表中的表会在之后被识别
+        continue;
+      }
+      tables.add(name);
+      next++;
+      if (next < tokens.size() && ".".equals(tokens.get(next))) {
+        //todo 带引号的schema或者表名
+        return Collections.emptySet();
+      }
+      //todo 跳过别名，之后如果是逗号，说明还访问了其他的表
+      if (next < tokens.size() && "as".equalsIgnoreCase(tokens.get(next))) {
+        next += 2;
+      } else if (next < tokens.size() && tableName(tokens.get(next)) != null
+          && !CLAUSE_KEYWORDS.contains(tokens.get(next).toLowerCase(Locale.ENGLISH))) {
+        next++;
+      }
+      if (next < tokens.size() && ",".equals(tokens.get(next))) {
+        return Collections.emptySet();
+      }
+    }
+    return tables;
+  }
+
+  private static String tableName(String token) {
+    char first = token.charAt(0);
+    String name;
+    if (first == '"' || first == '`' || first == '[') {
+      name = token.substring(1, token.length() - 1);
+    } else if (Character.isLetter(first) || first == '_') {
+      name = token;
+    } else {
+      return null;
+    }
+    //todo 忽略schema，同名的表都视为同一个表
+    return name.substring(name.lastIndexOf('.') + 1).toLowerCase(Locale.ENGLISH);
+  }
+
+  private int openGroupIndex(MappedStatement ms, String sql) {
+    Integer index = openGroups.get(sql);
+    return index != null && batchResultList.get(index).getMappedStatement().equals(ms) ? index : -1;
+  }
+
+  private boolean isAutoFlushRequired(BoundSql boundSql, Object parameterObject, boolean newStatement) {
+    pendingStatements++;
+    pendingParameters += boundSql.getParameterMappings().size();
+    if (maxBytes > 0) {
+      pendingBytes += estimateSize(boundSql, parameterObject, newStatement);
+    }
+    return (maxStatements > 0 && pendingStatements >= maxStatements)
+        || (maxParameters > 0 && pendingParameters >= maxParameters)
+        || (maxBytes > 0 && pendingBytes >= maxBytes);
+  }
+
+  /**
+   * Roughly estimates the memory a batched row holds until it is executed: the bound values,
+   * plus the SQL for a new statement.
+   */
+  private long estimateSize(BoundSql boundSql, Object parameterObject, boolean newStatement) {
+    long size = newStatement ? 64 + 2L * boundSql.getSql().length() : 16;
+    MetaObject metaObject = null;
+    for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
+      String propertyName = parameterMapping.getProperty();
+      Object value;
+      if (boundSql.hasAdditionalParameter(propertyName)) {
+        value = boundSql.getAdditionalParameter(propertyName);
+      } else if (parameterObject == null) {
+        value = null;
+      } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+        value = parameterObject;
+      } else {
+        if (metaObject == null) {
+          metaObject = configuration.newMetaObject(parameterObject);
+        }
+        value = metaObject.getValue(propertyName);
+      }
+      size += estimateSize(value);
+    }
+    return size;
+  }
+
+  private static long estimateSize(Object value) {
+    if (value instanceof CharSequence) {
+      return 40 + 2L * ((CharSequence) value).length();
+    } else if (value instanceof byte[]) {
+      return 16 + ((byte[]) value).length;
+    } else if (value instanceof char[]) {
+      return 16 + 2L * ((char[]) value).length;
+    }
+    return 24;
+  }
+
+  private void autoFlush() throws SQLException {
+    List<BatchResult> results = executeBatches();
+    for (BatchResult result : results) {
+      aggregate(result);
+    }
+  }
+
+  /**
+   * Merges the result into the last aggregated result of the same statement and SQL,
+   * keeping only its update counts.
+   */
+  private void aggregate(BatchResult result) {
+    BatchResult last = autoFlushedResults.isEmpty() ? null : autoFlushedResults.get(autoFlushedResults.size() - 1);
+    if (last == null || !last.getMappedStatement().equals(result.getMappedStatement()) || !last.getSql().equals(result.getSql())) {
+      last = new BatchResult(result.getMappedStatement(), result.getSql());
+      autoFlushedResults.add(last);
+    }
+    last.appendUpdateCounts(result.getUpdateCounts());
+  }
+
   @Override
   public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
       throws SQLException {
@@ -129,22 +536,46 @@ public class BatchExecutor extends BaseExecutor {
   @Override
   public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
     try {
-      //todo 用于缓存批处理的结果
-      List<BatchResult> results = new ArrayList<>();
       //todo 如果明确指定要回滚事务，则直接返回空集合
       if (isRollback) {
+        discardStatements();
         return Collections.emptyList();
       }
+      List<BatchResult> results = executeBatches();
+      if (autoFlushedResults.isEmpty()) {
+        return results;
+      }
+      //todo 已经自动刷新过，将本次结果合并到之前的结果中一起返回
+      for (BatchResult result : results) {
+        aggregate(result);
+      }
+      return new ArrayList<>(autoFlushedResults);
+    } finally {
+      autoFlushedResults.clear();
+    }
+  }
+
+  private List<BatchResult> executeBatches() throws SQLException {
+    try {
+      writePendingInserts();
+      //todo 用于缓存批处理的结果
+      List<BatchResult> results = new ArrayList<>();
       //todo 遍历statementList集合
       for (int i = 0, n = statementList.size(); i < n; i++) {
         //todo 获取Statement对象
         Statement stmt = statementList.get(i);
-        applyTransactionTimeout(stmt);
         //todo 获取对应的BatchResult对象
         BatchResult batchResult = batchResultList.get(i);
+        //todo 批处理在此时才执行，按当前线程的截止时间设置超时时间
+        applyTimeouts(batchResult.getMappedStatement(), stmt);
         try {
           //todo 调用Statement.executeBatch()方法批量执行其中记录的Sql语句，并使用返回的int数组更新BatchResult.updateCounts字段，其中每个元素都表示每一条Sql语句影响记录条数
           batchResult.setUpdateCounts(stmt.executeBatch());
+          RewrittenBatch rewritten = rewrittenBatches.get(batchResult);
+          if (rewritten != null) {
+            batchResult.setUpdateCounts(perRowUpdateCounts(batchResult.getUpdateCounts(), rewritten.rowsPerStatement,
+                batchResult.getParameterObjects().size()));
+          }
           MappedStatement ms = batchResult.getMappedStatement();
           List<Object> parameterObjects = batchResult.getParameterObjects();
           //todo 获取配置的KeyGenerator对象
@@ -172,19 +603,80 @@ public class BatchExecutor extends BaseExecutor {
                 .append(i)
                 .append(" prior sub executor(s) completed successfully, but will be rolled back.");
           }
-          throw new BatchExecutorException(message.toString(), e, results, batchResult);
+          List<BatchResult> successfulResults = new ArrayList<>(autoFlushedResults);
+          successfulResults.addAll(results);
+          throw new BatchExecutorException(message.toString(), e, successfulResults, batchResult);
+        }
+        RewrittenBatch rewritten = rewrittenBatches.get(batchResult);
+        if (rewritten != null && rewritten.target != null) {
+          //todo 同一组插入语句剩余的行，合并到前一个BatchResult中
+          rewritten.target.appendUpdateCounts(batchResult.getUpdateCounts());
+          rewritten.target.getParameterObjects().addAll(batchResult.getParameterObjects());
+        } else {
+          results.add(batchResult);
         }
-        results.add(batchResult);
       }
       return results;
     } finally {
-      //todo 关闭所有的Statement对象
-      for (Statement stmt : statementList) {
-        closeStatement(stmt);
-      }
-      currentSql = null;
-      statementList.clear();
-      batchResultList.clear();
+      discardStatements();
+    }
+  }
+
+  private void discardStatements() {
+    //todo 关闭所有的Statement对象
+    for (Statement stmt : statementList) {
+      closeStatement(stmt);
+    }
+    currentSql = null;
+    statementList.clear();
+    batchResultList.clear();
+    openGroups.clear();
+    tablesBySql.clear();
+    pendingInserts.clear();
+    rewrittenBatches.clear();
+    pendingStatements = 0;
+    pendingParameters = 0;
+    pendingBytes = 0;
+  }
+
+  private static int positive(Integer value) {
+    return value == null || value < 0 ? 0 : value;
+  }
+
+  private static final class PendingInsert {
+    private final MappedStatement ms;
+    private final String sql;
+    private final MultiRowInsert insert;
+    private final List<StatementHandler> handlers = new ArrayList<>();
+    private final List<Object> parameterObjects = new ArrayList<>();
+    //todo 参与分组时在statementList中占的位置，不参与分组时为-1
+    private int slot;
+
+    PendingInsert(MappedStatement ms, String sql, MultiRowInsert insert, int slot) {
+      this.ms = ms;
+      this.sql = sql;
+      this.insert = insert;
+      this.slot = slot;
+    }
+
+    boolean accepts(MappedStatement ms, String sql) {
+      return this.ms.equals(ms) && this.sql.equals(sql);
+    }
+
+    void add(StatementHandler handler, Object parameterObject) {
+      handlers.add(handler);
+      parameterObjects.add(parameterObject);
+    }
+  }
+
+  private static final class RewrittenBatch {
+    private final int rowsPerStatement;
+    //todo 同一组插入语句的第一个BatchResult，为null表示自身就是第一个
+    private final BatchResult target;
+
+    RewrittenBatch(int rowsPerStatement, BatchResult target) {
+      this.rowsPerStatement = rowsPerStatement;
+      this.target = target;
     }
   }
 
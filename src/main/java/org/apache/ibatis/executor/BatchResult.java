@@ -16,6 +16,7 @@
 package org.apache.ibatis.executor;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.ibatis.mapping.MappedStatement;
@@ -30,6 +31,8 @@ public class BatchResult {
   private final List<Object> parameterObjects;
 
   private int[] updateCounts;
+  //todo 通过appendUpdateCounts()合并多次批处理的结果时，updateCounts中有效元素的个数
+  private int updateCountSize;
 
   public BatchResult(MappedStatement mappedStatement, String sql) {
     super();
@@ -61,11 +64,31 @@ public class BatchResult {
   }
 
   public int[] getUpdateCounts() {
+    if (updateCounts != null && updateCounts.length != updateCountSize) {
+      updateCounts = Arrays.copyOf(updateCounts, updateCountSize);
+    }
     return updateCounts;
   }
 
   public void setUpdateCounts(int[] updateCounts) {
     this.updateCounts = updateCounts;
+    this.updateCountSize = updateCounts == null ? 0 : updateCounts.length;
+  }
+
+  /**
+   * Appends the update counts of a further execution of the same statement.
+   *
+   * @param counts the update counts to append
+   * @since 3.5.4
+   */
+  public void appendUpdateCounts(int[] counts) {
+    if (updateCounts == null) {
+      updateCounts = new int[Math.max(counts.length, 16)];
+    } else if (updateCounts.length - updateCountSize < counts.length) {
+      updateCounts = Arrays.copyOf(updateCounts, Math.max(updateCounts.length * 2, updateCountSize + counts.length));
+    }
+    System.arraycopy(counts, 0, updateCounts, updateCountSize, counts.length);
+    updateCountSize += counts.length;
   }
 
   public void addParameterObject(Object parameterObject) {
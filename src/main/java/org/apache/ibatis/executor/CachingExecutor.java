@@ -16,11 +16,13 @@
 package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.impl.NegativeResultCache;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -99,19 +101,30 @@ public class CachingExecutor implements Executor {
       throws SQLException {
     //todo 检测是否开启了二级缓存
     Cache cache = ms.getCache();
-    if (cache != null) {
+    //todo 检测是否开启了负结果(空结果)缓存，它不依赖于namespace的二级缓存
+    Cache negativeCache = ms.getNegativeCache();
+    if (cache != null || negativeCache != null) {
       flushCacheIfRequired(ms);
       if (ms.isUseCache() && resultHandler == null) {
         //todo 检测查询操作是否包含输出类型的参数，如果是这种情况，则报错
         ensureNoOutParams(ms, boundSql);
+        //todo 负结果缓存命中，说明该查询最近没有返回任何记录
+        if (negativeCache != null && tcm.getObject(negativeCache, key) != null) {
+          return new ArrayList<>();
+        }
         @SuppressWarnings("unchecked")
           //todo 查询二级缓存，如果二级缓存中查找到相应的结果对象，则直接返回相应的结果对象
-        List<E> list = (List<E>) tcm.getObject(cache, key);
+        List<E> list = cache == null ? null : (List<E>) tcm.getObject(cache, key);
         if (list == null) {
           //todo 如果二级缓存没有相应的结果对象，调用底层封装的executor对象的query（先查一级缓存，再查询数据库）
           list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
-          //todo 将查询回来的数据添加到 TransactionalCache的entriesToAddOnCommit集合中保存
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          if (negativeCache != null && list.isEmpty()) {
+            //todo 空结果只记录在负结果缓存中，不在二级缓存中保存空的List
+            tcm.putObject(negativeCache, key, NegativeResultCache.EMPTY_RESULT);
+          } else if (cache != null && !SingleResultRowBounds.isTruncated(rowBounds, list)) {
+            //todo 将查询回来的数据添加到 TransactionalCache的entriesToAddOnCommit集合中保存
+            tcm.putObject(cache, key, list); // issue #578 and #116
+          }
         }
         return list;
       }
@@ -176,10 +189,23 @@ public class CachingExecutor implements Executor {
   }
 
   private void flushCacheIfRequired(MappedStatement ms) {
+    if (!ms.isFlushCacheRequired()) {
+      return;
+    }
     Cache cache = ms.getCache();
-    if (cache != null && ms.isFlushCacheRequired()) {
+    if (cache != null) {
       tcm.clear(cache);
     }
+    //todo 同时清空该namespace(或其使用的cache)下所有语句的负结果缓存
+    for (Cache negativeCache : ms.getConfiguration().getNegativeCaches(cache != null ? cache.getId() : namespaceOf(ms))) {
+      tcm.clear(negativeCache);
+    }
+  }
+
+  private static String namespaceOf(MappedStatement ms) {
+    String id = ms.getId();
+    int lastPeriod = id.lastIndexOf('.');
+    return lastPeriod < 0 ? id : id.substring(0, lastPeriod);
   }
 
   @Override
@@ -0,0 +1,258 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultFlag;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.MetaClass;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Session scoped index of the objects mapped by result maps with {@code identityCache} enabled,
+ * keyed by result map and the values of their {@code <id>} properties.
+ * <p>
+ * Statements flagged with {@code identityLookup} are answered from it when their parameter
+ * carries the id values of their result map. It lives as long as the local cache, and the objects of a result
+ * are dropped once the local cache evicts that result, so it is bounded like the local cache.
+ *
+ * @since 3.5.4
+ */
+class IdentityCache {
+
+  private static final IdProperty[] NOT_INDEXABLE = new IdProperty[0];
+
+  private final Configuration configuration;
+  private final Map<IdentityKey, Object> entities = new HashMap<>();
+  //todo 一级缓存的key -> 由该查询结果建立的索引项，用于随一级缓存淘汰
+  private final Map<Object, List<Entry<IdentityKey, Object>>> entriesByCacheKey = new HashMap<>();
+  //todo 记录每个ResultMap的<id>属性名称及类型，不能按id索引的ResultMap对应NOT_INDEXABLE
+  private final Map<String, IdProperty[]> idProperties = new HashMap<>();
+
+  IdentityCache(Configuration configuration) {
+    this.configuration = configuration;
+  }
+
+  /**
+   * Indexes the results of a query whose result map has the identity cache enabled, cached in the local cache
+   * under the given key.
+   */
+  void index(Object cacheKey, MappedStatement ms, List<?> results) {
+    forget(cacheKey);
+    ResultMap resultMap = singleResultMap(ms);
+    if (resultMap == null || !resultMap.isIdentityCache() || results.isEmpty()) {
+      return;
+    }
+    IdProperty[] properties = idPropertiesOf(resultMap);
+    if (properties == NOT_INDEXABLE) {
+      return;
+    }
+    List<Entry<IdentityKey, Object>> indexed = new ArrayList<>();
+    for (Object result : results) {
+      if (result == null) {
+        continue;
+      }
+      MetaObject metaObject = configuration.newMetaObject(result);
+      Object[] ids = new Object[properties.length];
+      for (int i = 0; i < properties.length; i++) {
+        ids[i] = metaObject.getValue(properties[i].name);
+      }
+      IdentityKey key = IdentityKey.of(resultMap.getId(), ids);
+      if (key != null) {
+        entities.put(key, result);
+        indexed.add(new SimpleImmutableEntry<>(key, result));
+      }
+    }
+    if (!indexed.isEmpty()) {
+      entriesByCacheKey.put(cacheKey, indexed);
+    }
+  }
+
+  /**
+   * Drops the objects indexed from the result cached under the given key, unless another result indexed them since.
+   */
+  void forget(Object cacheKey) {
+    List<Entry<IdentityKey, Object>> indexed = entriesByCacheKey.remove(cacheKey);
+    if (indexed != null) {
+      for (Entry<IdentityKey, Object> entry : indexed) {
+        entities.remove(entry.getKey(), entry.getValue());
+      }
+    }
+  }
+
+  /**
+   * Returns the cached result of an identity lookup statement, or {@code null} when it has to be executed.
+   * <p>
+   * Only the objects mapped by the result map of the statement are returned, since an object mapped by another
+   * result map of the same type may lack some of the properties.
+   */
+  <E> List<E> lookup(MappedStatement ms, Object parameter, RowBounds rowBounds) {
+    ResultMap resultMap = singleResultMap(ms);
+    if (resultMap == null || parameter == null || entities.isEmpty()
+        || rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET) {
+      return null;
+    }
+    IdProperty[] properties = idPropertiesOf(resultMap);
+    if (properties == NOT_INDEXABLE) {
+      return null;
+    }
+    Object[] ids = new Object[properties.length];
+    if (properties.length == 1 && configuration.getTypeHandlerRegistry().hasTypeHandler(parameter.getClass())) {
+      ids[0] = properties[0].coerce(parameter);
+    } else {
+      MetaObject metaParameter = configuration.newMetaObject(parameter);
+      for (int i = 0; i < properties.length; i++) {
+        if (!metaParameter.hasGetter(properties[i].name)) {
+          return null;
+        }
+        ids[i] = properties[i].coerce(metaParameter.getValue(properties[i].name));
+      }
+    }
+    IdentityKey key = IdentityKey.of(resultMap.getId(), ids);
+    Object entity = key == null ? null : entities.get(key);
+    if (entity == null) {
+      return null;
+    }
+    List<E> list = new ArrayList<>(1);
+    @SuppressWarnings("unchecked")
+    E element = (E) entity;
+    list.add(element);
+    return list;
+  }
+
+  void clear() {
+    entities.clear();
+    entriesByCacheKey.clear();
+  }
+
+  int size() {
+    return entities.size();
+  }
+
+  private static ResultMap singleResultMap(MappedStatement ms) {
+    List<ResultMap> resultMaps = ms.getResultMaps();
+    return resultMaps.size() == 1 ? resultMaps.get(0) : null;
+  }
+
+  private IdProperty[] idPropertiesOf(ResultMap resultMap) {
+    return idProperties.computeIfAbsent(resultMap.getId(), k -> {
+      MetaClass metaClass = MetaClass.forClass(resultMap.getType(), configuration.getReflectorFactory());
+      List<IdProperty> properties = new ArrayList<>();
+      for (ResultMapping idMapping : resultMap.getIdResultMappings()) {
+        // without an explicit <id> all mappings are used as id, which does not identify an entity
+        if (!idMapping.getFlags().contains(ResultFlag.ID) || idMapping.getProperty() == null
+            || !metaClass.hasGetter(idMapping.getProperty())) {
+          return NOT_INDEXABLE;
+        }
+        properties.add(new IdProperty(idMapping.getProperty(), metaClass.getGetterType(idMapping.getProperty())));
+      }
+      return properties.isEmpty() ? NOT_INDEXABLE : properties.toArray(new IdProperty[0]);
+    });
+  }
+
+  private static final class IdProperty {
+
+    private final String name;
+    private final Class<?> type;
+
+    private IdProperty(String name, Class<?> type) {
+      this.name = name;
+      this.type = type;
+    }
+
+    /**
+     * Converts a numeric parameter to the type of the id property, e.g. an int parameter of a long id, so that it
+     * matches the indexed value. Any other value is kept as is and only matches an id of its own type.
+     */
+    Object coerce(Object value) {
+      if (!(value instanceof Number) || type.isInstance(value)) {
+        return value;
+      }
+      try {
+        BigDecimal number = value instanceof BigDecimal ? (BigDecimal) value : new BigDecimal(value.toString());
+        if (type == Long.class || type == long.class) {
+          return number.longValueExact();
+        } else if (type == Integer.class || type == int.class) {
+          return number.intValueExact();
+        } else if (type == Short.class || type == short.class) {
+          return number.shortValueExact();
+        } else if (type == Byte.class || type == byte.class) {
+          return number.byteValueExact();
+        } else if (type == BigInteger.class) {
+          return number.toBigIntegerExact();
+        } else if (type == BigDecimal.class) {
+          return number;
+        }
+      } catch (ArithmeticException | NumberFormatException e) {
+        // not representable as the id type, e.g. a fraction or NaN
+      }
+      return value;
+    }
+  }
+
+  private static final class IdentityKey {
+
+    private final String resultMapId;
+    private final Object[] ids;
+    private final int hashCode;
+
+    private IdentityKey(String resultMapId, Object[] ids) {
+      this.resultMapId = resultMapId;
+      this.ids = ids;
+      this.hashCode = 31 * resultMapId.hashCode() + Arrays.hashCode(ids);
+    }
+
+    static IdentityKey of(String resultMapId, Object[] ids) {
+      for (Object id : ids) {
+        if (id == null) {
+          return null;
+        }
+      }
+      return new IdentityKey(resultMapId, ids);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof IdentityKey)) {
+        return false;
+      }
+      IdentityKey other = (IdentityKey) o;
+      return resultMapId.equals(other.resultMapId) && Arrays.equals(ids, other.ids);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+}
@@ -0,0 +1,171 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.cache.impl.PerpetualCache;
+
+/**
+ * First level cache used by {@link BaseExecutor}.
+ * <p>
+ * When a maximum number of entries and/or rows is configured, the least recently used
+ * entries are evicted once a bound is exceeded. The weight of an entry is the number of
+ * result objects it holds. Execution placeholders and entries pinned by a pending deferred
+ * load are never evicted, so nested query resolution keeps working while the cache is bounded.
+ * An eviction listener is told about every evicted key, so that indexes of the cached results can follow.
+ *
+ * @since 3.5.4
+ */
+class LocalCache extends PerpetualCache {
+
+  private final int maxEntries;
+  private final int maxRows;
+  //todo access-order map of evictable keys and their weight, null when the cache is unbounded
+  private final Map<Object, Integer> weights;
+  private final Set<Object> pinnedKeys = new HashSet<>();
+  private Consumer<Object> evictionListener;
+  private int rows;
+  private int highWaterEntries;
+  private int highWaterRows;
+
+  LocalCache(String id) {
+    this(id, 0, 0);
+  }
+
+  LocalCache(String id, int maxEntries, int maxRows) {
+    super(id);
+    this.maxEntries = maxEntries;
+    this.maxRows = maxRows;
+    this.weights = isBounded() ? new LinkedHashMap<>(16, .75F, true) : null;
+  }
+
+  /**
+   * Sets the listener called with the key of each entry evicted because a bound was exceeded.
+   */
+  public void setEvictionListener(Consumer<Object> evictionListener) {
+    this.evictionListener = evictionListener;
+  }
+
+  public boolean isBounded() {
+    return maxEntries > 0 || maxRows > 0;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    untrack(key);
+    super.putObject(key, value);
+    if (value != EXECUTION_PLACEHOLDER) {
+      int weight = weightOf(value);
+      rows += weight;
+      if (weights != null) {
+        weights.put(key, weight);
+        evict();
+      }
+    }
+    highWaterEntries = Math.max(highWaterEntries, getSize());
+    highWaterRows = Math.max(highWaterRows, rows);
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    if (weights != null) {
+      weights.get(key); // touch
+    }
+    return super.getObject(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    untrack(key);
+    return super.removeObject(key);
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    if (weights != null) {
+      weights.clear();
+    }
+    pinnedKeys.clear();
+    rows = 0;
+  }
+
+  /**
+   * Protects an entry from eviction until {@link #unpinAll()} is called.
+   * Used for keys a deferred load will read once the outermost query completes.
+   */
+  public void pin(Object key) {
+    pinnedKeys.add(key);
+  }
+
+  public void unpinAll() {
+    pinnedKeys.clear();
+    if (weights != null) {
+      evict();
+    }
+  }
+
+  public int getHighWaterEntries() {
+    return highWaterEntries;
+  }
+
+  public int getHighWaterRows() {
+    return highWaterRows;
+  }
+
+  private void evict() {
+    Iterator<Map.Entry<Object, Integer>> iterator = weights.entrySet().iterator();
+    while (isOverflowed() && iterator.hasNext()) {
+      Map.Entry<Object, Integer> eldest = iterator.next();
+      if (!pinnedKeys.contains(eldest.getKey())) {
+        iterator.remove();
+        rows -= eldest.getValue();
+        super.removeObject(eldest.getKey());
+        if (evictionListener != null) {
+          evictionListener.accept(eldest.getKey());
+        }
+      }
+    }
+  }
+
+  private boolean isOverflowed() {
+    return (maxEntries > 0 && getSize() > maxEntries) || (maxRows > 0 && rows > maxRows);
+  }
+
+  private void untrack(Object key) {
+    Object previous = super.getObject(key);
+    if (previous != null && previous != EXECUTION_PLACEHOLDER) {
+      rows -= weightOf(previous);
+      if (weights != null) {
+        weights.remove(key);
+      }
+    }
+  }
+
+  private static int weightOf(Object value) {
+    return value instanceof Collection ? Math.max(1, ((Collection<?>) value).size()) : 1;
+  }
+
+}
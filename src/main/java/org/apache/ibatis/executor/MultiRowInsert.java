@@ -0,0 +1,126 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+/**
+ * A single row {@code INSERT ... VALUES (...)} statement that can be rewritten to insert several rows at once.
+ *
+ * @since 3.5.4
+ */
+final class MultiRowInsert {
+
+  private final String head;
+  private final String row;
+  private final int parameterCount;
+
+  private MultiRowInsert(String head, String row, int parameterCount) {
+    this.head = head;
+    this.row = row;
+    this.parameterCount = parameterCount;
+  }
+
+  /**
+   * Returns the rewritable form of the statement, or {@code null} when it is not a plain single row insert:
+   * the {@code VALUES} list has to end the statement and hold all the placeholders.
+   */
+  static MultiRowInsert parse(String sql) {
+    String trimmed = sql.trim();
+    if (!trimmed.regionMatches(true, 0, "insert", 0, 6)) {
+      return null;
+    }
+    int length = trimmed.length();
+    int depth = 0;
+    int values = -1;
+    int rowStart = -1;
+    int rowEnd = -1;
+    int placeholders = 0;
+    for (int i = 0; i < length; i++) {
+      char c = trimmed.charAt(i);
+      if (c == '\'' || c == '"' || c == '`') {
+        int close = trimmed.indexOf(c, i + 1);
+        if (close < 0) {
+          return null;
+        }
+        // a doubled quote is an escaped quote, scanning goes on from the second one
+        i = close;
+      } else if (c == '-' && i + 1 < length && trimmed.charAt(i + 1) == '-'
+          || c == '/' && i + 1 < length && trimmed.charAt(i + 1) == '*') {
+        // comments are not worth the trouble
+        return null;
+      } else if (rowEnd >= 0) {
+        // nothing but whitespace may follow the row, e.g. no ON DUPLICATE KEY UPDATE or RETURNING
+        if (!Character.isWhitespace(c)) {
+          return null;
+        }
+      } else if (c == '?') {
+        if (rowStart < 0) {
+          return null;
+        }
+        placeholders++;
+      } else if (c == '(') {
+        if (depth == 0 && values >= 0) {
+          rowStart = i;
+        }
+        depth++;
+      } else if (c == ')') {
+        depth--;
+        if (depth < 0) {
+          return null;
+        }
+        if (depth == 0 && rowStart >= 0) {
+          rowEnd = i + 1;
+        }
+      } else if (depth == 0 && Character.isLetter(c)) {
+        int end = i;
+        while (end < length && (Character.isLetterOrDigit(trimmed.charAt(end)) || trimmed.charAt(end) == '_')) {
+          end++;
+        }
+        String word = trimmed.substring(i, end);
+        if (values >= 0 || "select".equalsIgnoreCase(word)) {
+          return null;
+        }
+        if ("values".equalsIgnoreCase(word) || "value".equalsIgnoreCase(word)) {
+          values = end;
+        }
+        i = end - 1;
+      }
+    }
+    if (rowEnd < 0) {
+      return null;
+    }
+    return new MultiRowInsert(trimmed.substring(0, values) + " ", trimmed.substring(rowStart, rowEnd), placeholders);
+  }
+
+  int getParameterCount() {
+    return parameterCount;
+  }
+
+  /**
+   * Returns the statement inserting the given number of rows.
+   */
+  String sql(int rows) {
+    StringBuilder builder = new StringBuilder(head.length() + rows * (row.length() + 1));
+    builder.append(head);
+    for (int i = 0; i < rows; i++) {
+      if (i > 0) {
+        builder.append(',');
+      }
+      builder.append(row);
+    }
+    return builder.toString();
+  }
+
+}
@@ -25,7 +25,6 @@ import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.statement.StatementHandler;
-import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
@@ -51,7 +50,7 @@ public class ReuseExecutor extends BaseExecutor {
   public int doUpdate(MappedStatement ms, Object parameter) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(handler, ms);
     return handler.update(stmt);
   }
 
@@ -59,7 +58,7 @@ public class ReuseExecutor extends BaseExecutor {
   public <E> List<E> doQuery(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(handler, ms);
     return handler.query(stmt, resultHandler);
   }
 
@@ -67,7 +66,7 @@ public class ReuseExecutor extends BaseExecutor {
   protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
     Configuration configuration = ms.getConfiguration();
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(handler, ms);
     return handler.queryCursor(stmt);
   }
 
@@ -83,7 +82,7 @@ public class ReuseExecutor extends BaseExecutor {
   }
 
   //todo ReuseExecutor 会尝试从StatementMap中重用缓存的Statement对象
-  private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
+  private Statement prepareStatement(StatementHandler handler, MappedStatement ms) throws SQLException {
     Statement stmt;
     //todo 获取SQL语句
     BoundSql boundSql = handler.getBoundSql();
@@ -92,11 +91,11 @@ public class ReuseExecutor extends BaseExecutor {
     if (hasStatementFor(sql)) {
       //todo 获取statementMap中的缓存的Statement对象
       stmt = getStatement(sql);
-      //todo 修改超时时间
-      applyTransactionTimeout(stmt);
+      //todo 重新设置超时时间，上一次执行时可能按截止时间降低了超时时间
+      applyTimeouts(ms, stmt);
     } else {
       //todo 否则就获取数据库连接
-      Connection connection = getConnection(statementLog);
+      Connection connection = getConnection(ms.getStatementLog());
       //todo 获取statement对象
       stmt = handler.prepare(connection, transaction.getTimeout());
       //todo 缓存起来
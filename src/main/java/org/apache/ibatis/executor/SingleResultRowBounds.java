@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * The bounds of {@code selectOne()}: no offset and no limit, like {@link RowBounds#DEFAULT}, so the query shares its
+ * cache key and is not paginated, but the statement returns and maps at most {@link #MAX_RESULTS} rows, the second
+ * one proving that the result is not unique.
+ * <p>
+ * A result list of this size may miss rows, so it is not cached.
+ *
+ * @since 3.5.4
+ */
+public final class SingleResultRowBounds extends RowBounds {
+
+  public static final int MAX_RESULTS = 2;
+
+  public static final SingleResultRowBounds INSTANCE = new SingleResultRowBounds();
+
+  private SingleResultRowBounds() {
+  }
+
+  /**
+   * Returns the maximum number of results to map with the given bounds.
+   */
+  public static int resultLimit(RowBounds rowBounds) {
+    return rowBounds instanceof SingleResultRowBounds ? MAX_RESULTS : rowBounds.getLimit();
+  }
+
+  /**
+   * Returns whether a result list read with the given bounds may miss rows of the statement.
+   */
+  public static boolean isTruncated(RowBounds rowBounds, List<?> results) {
+    return rowBounds instanceof SingleResultRowBounds && results.size() >= MAX_RESULTS;
+  }
+
+}
@@ -0,0 +1,42 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * {@code LIMIT ? OFFSET ?}, as understood by MySQL, MariaDB, PostgreSQL, H2, HSQLDB and SQLite.
+ * Queries that already limit their rows or end with a locking clause such as {@code FOR UPDATE} are not paginated.
+ *
+ * @since 3.5.4
+ */
+public class LimitOffsetDialect implements PaginationDialect {
+
+  @Override
+  public String paginate(String sql, int offset, int limit, List<Object> parameters) {
+    PageableQuery query = PageableQuery.parse(sql);
+    if (query == null || query.hasKeyword("LIMIT", "OFFSET", "FETCH", "FOR", "LOCK", "INTO", "WITH")) {
+      return null;
+    }
+    parameters.add(limit);
+    if (offset == 0) {
+      return query.getSql() + " LIMIT ?";
+    }
+    parameters.add(offset);
+    return query.getSql() + " LIMIT ? OFFSET ?";
+  }
+
+}
@@ -0,0 +1,54 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * The standard {@code OFFSET ? ROWS FETCH FIRST ? ROWS ONLY}, as understood by Derby, DB2, Oracle 12c
+ * and SQL Server 2012 (which requires an {@code ORDER BY}).
+ * Queries that already limit their rows or end with a clause such as {@code FOR UPDATE} are not paginated.
+ *
+ * @since 3.5.4
+ */
+public class OffsetFetchDialect implements PaginationDialect {
+
+  private final boolean orderByRequired;
+
+  public OffsetFetchDialect() {
+    this(false);
+  }
+
+  /**
+   * @param orderByRequired whether queries without an {@code ORDER BY} are not paginated, as for SQL Server
+   */
+  public OffsetFetchDialect(boolean orderByRequired) {
+    this.orderByRequired = orderByRequired;
+  }
+
+  @Override
+  public String paginate(String sql, int offset, int limit, List<Object> parameters) {
+    PageableQuery query = PageableQuery.parse(sql);
+    if (query == null || query.hasKeyword("OFFSET", "FETCH", "LIMIT", "TOP", "FOR", "WITH", "OPTION")
+        || orderByRequired && !query.hasKeyword("ORDER")) {
+      return null;
+    }
+    parameters.add(offset);
+    parameters.add(limit);
+    return query.getSql() + " OFFSET ? ROWS FETCH FIRST ? ROWS ONLY";
+  }
+
+}
@@ -0,0 +1,122 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A query reduced to what the built-in dialects need to know: the SQL without a trailing terminator or comment,
+ * and the words outside of parentheses, quotes and comments.
+ *
+ * @since 3.5.4
+ */
+final class PageableQuery {
+
+  private final String sql;
+  private final List<String> words;
+
+  private PageableQuery(String sql, List<String> words) {
+    this.sql = sql;
+    this.words = words;
+  }
+
+  /**
+   * Returns the query, or {@code null} when it cannot be told apart, e.g. with an unterminated quote
+   * or several statements.
+   */
+  static PageableQuery parse(String sql) {
+    List<String> words = new ArrayList<>();
+    int length = sql.length();
+    int depth = 0;
+    int end = 0;
+    boolean terminated = false;
+    for (int i = 0; i < length; i++) {
+      char c = sql.charAt(i);
+      char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+      if (Character.isWhitespace(c)) {
+        continue;
+      } else if (c == '-' && next == '-') {
+        int lineEnd = sql.indexOf('\n', i);
+        i = lineEnd < 0 ? length : lineEnd;
+        continue;
+      } else if (c == '/' && next == '*') {
+        int commentEnd = sql.indexOf("*/", i + 2);
+        if (commentEnd < 0) {
+          return null;
+        }
+        i = commentEnd + 1;
+        continue;
+      } else if (c == ';' && depth == 0) {
+        terminated = true;
+        continue;
+      }
+      if (terminated) {
+        // only comments and terminators may follow the terminator
+        return null;
+      }
+      if (c == '\'' || c == '"' || c == '`' || c == '[') {
+        int close = sql.indexOf(c == '[' ? ']' : c, i + 1);
+        if (close < 0) {
+          return null;
+        }
+        // a doubled quote is an escaped quote, scanning goes on from the second one
+        i = close;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        if (--depth < 0) {
+          return null;
+        }
+      } else if (depth == 0 && (Character.isLetter(c) || c == '_')) {
+        int wordEnd = i;
+        while (wordEnd < length && (Character.isLetterOrDigit(sql.charAt(wordEnd)) || "_$.".indexOf(sql.charAt(wordEnd)) >= 0)) {
+          wordEnd++;
+        }
+        words.add(sql.substring(i, wordEnd).toUpperCase(Locale.ENGLISH));
+        i = wordEnd - 1;
+      }
+      end = i + 1;
+    }
+    return depth == 0 ? new PageableQuery(sql.substring(0, end), words) : null;
+  }
+
+  /**
+   * Returns the query without a trailing terminator or comment, so that clauses can be appended to it
+   * or that it can be nested.
+   */
+  String getSql() {
+    return sql;
+  }
+
+  /**
+   * Returns whether the query has one of the given keywords at its top level, e.g. {@code LIMIT} or
+   * the {@code FOR} of {@code FOR UPDATE}. The leading word is not considered, so that a leading
+   * {@code WITH} is not taken for a trailing one.
+   */
+  boolean hasKeyword(String... keywords) {
+    List<String> candidates = Arrays.asList(keywords);
+    for (int i = 1; i < words.size(); i++) {
+      if (candidates.contains(words.get(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+}
@@ -0,0 +1,164 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetRowBounds;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Pushes {@link RowBounds} down to the database by rewriting the bound SQL of a query.
+ *
+ * @since 3.5.4
+ */
+public final class Pagination {
+
+  private static final String PARAMETER_PREFIX = "_page_";
+  private static final PaginationDialect LIMIT_OFFSET = new LimitOffsetDialect();
+  private static final PaginationDialect OFFSET_FETCH = new OffsetFetchDialect();
+  private static final PaginationDialect SQL_SERVER = new OffsetFetchDialect(true);
+  private static final PaginationDialect ROWNUM = new RownumDialect();
+
+  private Pagination() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Returns the dialect of a database by the database id of the configuration,
+   * or {@code null} when it is not known.
+   */
+  public static PaginationDialect dialectFor(String databaseId) {
+    if (databaseId == null) {
+      return null;
+    }
+    String id = databaseId.toLowerCase(Locale.ENGLISH);
+    if (id.contains("mysql") || id.contains("mariadb") || id.contains("postgres") || id.contains("h2")
+        || id.contains("hsql") || id.contains("sqlite")) {
+      return LIMIT_OFFSET;
+    } else if (id.contains("sqlserver") || id.contains("sql server") || id.contains("mssql")) {
+      return SQL_SERVER;
+    } else if (id.contains("derby") || id.contains("db2")) {
+      return OFFSET_FETCH;
+    } else if (id.contains("oracle")) {
+      return ROWNUM;
+    }
+    return null;
+  }
+
+  /**
+   * Returns the bound SQL that selects the rows within the given bounds, or {@code null} when the bounds
+   * are applied while reading the result set. The rewritten query still has to be read with
+   * {@link #remainingRowBounds(RowBounds)}.
+   */
+  public static BoundSql paginate(MappedStatement ms, BoundSql boundSql, RowBounds rowBounds) {
+    Configuration configuration = ms.getConfiguration();
+    boolean keyset = rowBounds instanceof KeysetRowBounds;
+    boolean bounded = rowBounds.getOffset() > RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT;
+    if (!keyset && (!bounded || !configuration.isDatabasePagination())) {
+      return null;
+    }
+    if (ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getStatementType() != StatementType.PREPARED
+        || ms.hasNestedResultMaps()) {
+      if (keyset) {
+        throw new ExecutorException("Keyset pagination requires a prepared select without nested result maps, but "
+            + ms.getId() + " is not");
+      }
+      return null;
+    }
+    PaginationDialect dialect = configuration.getPaginationDialect();
+    if (!keyset && dialect == null) {
+      return null;
+    }
+    String sql = boundSql.getSql();
+    List<Object> values = new ArrayList<>();
+    if (keyset) {
+      PageableQuery query = PageableQuery.parse(sql);
+      sql = keyset(query != null ? query.getSql() : sql, (KeysetRowBounds) rowBounds, values);
+    }
+    if (dialect != null && bounded) {
+      String page = dialect.paginate(sql, rowBounds.getOffset(), rowBounds.getLimit(), values);
+      if (page == null && !keyset) {
+        return null;
+      }
+      //todo 无法改写时，通过RowBounds在读取结果集时跳过记录，键集分页的页大小同样在读取时限制
+      sql = page != null ? page : sql;
+    }
+    List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+    BoundSql page = boundSql.copy(configuration, sql, parameterMappings);
+    for (int i = 0; i < values.size(); i++) {
+      Object value = values.get(i);
+      Class<?> javaType = value.getClass();
+      if (!configuration.getTypeHandlerRegistry().hasTypeHandler(javaType)) {
+        javaType = Object.class;
+      }
+      String property = PARAMETER_PREFIX + i;
+      parameterMappings.add(new ParameterMapping.Builder(configuration, property, javaType).build());
+      page.setAdditionalParameter(property, value);
+    }
+    return page;
+  }
+
+  /**
+   * Returns the bounds that are left to apply while reading the rows of a rewritten query, i.e. the limit
+   * for a keyset query without a dialect. Applying the limit again is harmless otherwise.
+   */
+  public static RowBounds remainingRowBounds(RowBounds rowBounds) {
+    return rowBounds.getLimit() == RowBounds.NO_ROW_LIMIT ? RowBounds.DEFAULT : new RowBounds(RowBounds.NO_ROW_OFFSET, rowBounds.getLimit());
+  }
+
+  private static String keyset(String sql, KeysetRowBounds rowBounds, List<Object> values) {
+    String[] columns = rowBounds.getColumns();
+    Object[] after = rowBounds.getAfter();
+    String operator = rowBounds.isDescending() ? " < ?" : " > ?";
+    StringBuilder builder = new StringBuilder("SELECT * FROM (").append(sql).append(") keyset_");
+    if (after != null) {
+      // (c1 > ?) OR (c1 = ? AND c2 > ?) OR ...
+      builder.append(" WHERE ");
+      for (int i = 0; i < columns.length; i++) {
+        builder.append(i == 0 ? "(" : " OR (");
+        for (int j = 0; j < i; j++) {
+          builder.append(columns[j]).append(" = ? AND ");
+          values.add(keyValue(after, j));
+        }
+        builder.append(columns[i]).append(operator).append(')');
+        values.add(keyValue(after, i));
+      }
+    }
+    builder.append(" ORDER BY ");
+    for (int i = 0; i < columns.length; i++) {
+      builder.append(i == 0 ? "" : ", ").append(columns[i]).append(rowBounds.isDescending() ? " DESC" : "");
+    }
+    return builder.toString();
+  }
+
+  private static Object keyValue(Object[] after, int index) {
+    if (after[index] == null) {
+      throw new ExecutorException("The key values of keyset pagination must not be null");
+    }
+    return after[index];
+  }
+
+}
@@ -0,0 +1,40 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * Rewrites a query so that the database returns a single page of its rows.
+ *
+ * @since 3.5.4
+ */
+public interface PaginationDialect {
+
+  /**
+   * Returns the query restricted to the given page. Offset and limit are bound to placeholders
+   * appended after the placeholders of the query.
+   *
+   * @param sql the query
+   * @param offset the number of rows to skip, may be 0
+   * @param limit the maximum number of rows to return
+   * @param parameters receives the values of the appended placeholders, in order
+   * @return the paginated query, or {@code null} when the query cannot be paginated, in which case
+   *         the bounds are applied while reading the result set
+   */
+  String paginate(String sql, int offset, int limit, List<Object> parameters);
+
+}
@@ -0,0 +1,44 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import java.util.List;
+
+/**
+ * Filters on {@code ROWNUM}, for Oracle versions without {@code FETCH FIRST}.
+ * Queries ending with {@code FOR UPDATE} are not paginated, as they cannot be nested.
+ *
+ * @since 3.5.4
+ */
+public class RownumDialect implements PaginationDialect {
+
+  @Override
+  public String paginate(String sql, int offset, int limit, List<Object> parameters) {
+    PageableQuery query = PageableQuery.parse(sql);
+    if (query == null || query.hasKeyword("FOR")) {
+      return null;
+    }
+    sql = query.getSql();
+    int end = (int) Math.min((long) offset + limit, Integer.MAX_VALUE);
+    parameters.add(end);
+    if (offset == 0) {
+      return "SELECT * FROM (" + sql + ") WHERE ROWNUM <= ?";
+    }
+    parameters.add(offset);
+    return "SELECT * FROM (SELECT page_.*, ROWNUM rownum_ FROM (" + sql + ") page_ WHERE ROWNUM <= ?) WHERE rownum_ > ?";
+  }
+
+}
@@ -0,0 +1,396 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * The rows of a result set stored by column, in primitive arrays where the JDBC type allows it.
+ * <p>
+ * Values are read with the primitive getters of the result set and appended to chunks of arrays, so that no object
+ * is created per row for numeric and temporal columns. The JDBC types are stored as follows:
+ * <ul>
+ * <li>{@code TINYINT}, {@code SMALLINT} and {@code INTEGER} as {@link ColumnType#INT}</li>
+ * <li>{@code BIGINT}, and {@code DATE}, {@code TIME} and {@code TIMESTAMP} as milliseconds since the epoch,
+ * as {@link ColumnType#LONG}</li>
+ * <li>{@code REAL}, {@code FLOAT} and {@code DOUBLE} as {@link ColumnType#DOUBLE}</li>
+ * <li>{@code DECIMAL} and {@code NUMERIC} as {@link ColumnType#DECIMAL}, whose values are kept exact</li>
+ * <li>character types as {@link ColumnType#STRING}</li>
+ * <li>any other type as {@link ColumnType#OBJECT}</li>
+ * </ul>
+ * A {@code NULL} is stored as {@code 0} in primitive columns, and is told apart by {@link #isNull(String, int)}.
+ *
+ * @since 3.5.4
+ */
+public class ColumnarResult {
+
+  public enum ColumnType {
+    INT, LONG, DOUBLE, DECIMAL, STRING, OBJECT
+  }
+
+  private static final int CHUNK_SIZE = 4096;
+
+  private final List<String> columnNames;
+  private final Column[] columns;
+  private int size;
+
+  public ColumnarResult(List<String> columnNames, List<JdbcType> jdbcTypes) {
+    this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+    this.columns = new Column[columnNames.size()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = newColumn(jdbcTypes.get(i));
+    }
+  }
+
+  private static Column newColumn(JdbcType jdbcType) {
+    if (jdbcType == null) {
+      return new ObjectColumn();
+    }
+    switch (jdbcType) {
+      case TINYINT:
+      case SMALLINT:
+      case INTEGER:
+        return new IntColumn();
+      case BIGINT:
+        return new LongColumn();
+      case DATE:
+      case TIME:
+      case TIMESTAMP:
+        return new TemporalColumn(jdbcType);
+      case REAL:
+      case FLOAT:
+      case DOUBLE:
+        return new DoubleColumn();
+      case DECIMAL:
+      case NUMERIC:
+        return new DecimalColumn();
+      case CHAR:
+      case VARCHAR:
+      case LONGVARCHAR:
+      case NCHAR:
+      case NVARCHAR:
+      case LONGNVARCHAR:
+        return new StringColumn();
+      default:
+        return new ObjectColumn();
+    }
+  }
+
+  /**
+   * Appends the current row of the result set, whose columns are the columns of this result.
+   */
+  public void readRow(ResultSet rs) throws SQLException {
+    final int chunk = size / CHUNK_SIZE;
+    final int offset = size % CHUNK_SIZE;
+    for (int i = 0; i < columns.length; i++) {
+      Column column = columns[i];
+      if (offset == 0) {
+        column.addChunk();
+      }
+      if (!column.read(rs, i + 1, chunk, offset)) {
+        column.nulls.set(size);
+      }
+    }
+    size++;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public List<String> getColumnNames() {
+    return columnNames;
+  }
+
+  public ColumnType getColumnType(String columnName) {
+    return column(columnName).type;
+  }
+
+  public boolean isNull(String columnName, int row) {
+    checkRow(row);
+    return column(columnName).nulls.get(row);
+  }
+
+  public int[] getInts(String columnName) {
+    int[] values = new int[size];
+    ((IntColumn) column(columnName, ColumnType.INT)).copyTo(values, size);
+    return values;
+  }
+
+  public long[] getLongs(String columnName) {
+    long[] values = new long[size];
+    ((LongColumn) column(columnName, ColumnType.LONG)).copyTo(values, size);
+    return values;
+  }
+
+  public double[] getDoubles(String columnName) {
+    double[] values = new double[size];
+    ((DoubleColumn) column(columnName, ColumnType.DOUBLE)).copyTo(values, size);
+    return values;
+  }
+
+  public BigDecimal[] getDecimals(String columnName) {
+    BigDecimal[] values = new BigDecimal[size];
+    ((DecimalColumn) column(columnName, ColumnType.DECIMAL)).copyTo(values, size);
+    return values;
+  }
+
+  public String[] getStrings(String columnName) {
+    String[] values = new String[size];
+    ((StringColumn) column(columnName, ColumnType.STRING)).copyTo(values, size);
+    return values;
+  }
+
+  public Object[] getObjects(String columnName) {
+    Object[] values = new Object[size];
+    ((ObjectColumn) column(columnName, ColumnType.OBJECT)).copyTo(values, size);
+    return values;
+  }
+
+  private void checkRow(int row) {
+    if (row < 0 || row >= size) {
+      throw new IndexOutOfBoundsException("Row: " + row + ", size: " + size);
+    }
+  }
+
+  private Column column(String columnName, ColumnType type) {
+    Column column = column(columnName);
+    if (column.type != type) {
+      throw new ExecutorException("Column '" + columnName + "' is stored as " + column.type + ", not as " + type + ".");
+    }
+    return column;
+  }
+
+  private Column column(String columnName) {
+    int index = columnNames.indexOf(columnName);
+    if (index < 0) {
+      for (int i = 0; i < columnNames.size(); i++) {
+        if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+          index = i;
+          break;
+        }
+      }
+    }
+    if (index < 0) {
+      throw new ExecutorException("There is no column '" + columnName + "' in " + columnNames + ".");
+    }
+    return columns[index];
+  }
+
+  private abstract static class Column {
+    final ColumnType type;
+    final BitSet nulls = new BitSet();
+
+    Column(ColumnType type) {
+      this.type = type;
+    }
+
+    abstract void addChunk();
+
+    /**
+     * Reads the value of the column, and returns whether it was not null.
+     */
+    abstract boolean read(ResultSet rs, int columnIndex, int chunk, int offset) throws SQLException;
+
+    static void copy(List<?> chunks, Object target, int size) {
+      int copied = 0;
+      for (Object chunk : chunks) {
+        int length = Math.min(CHUNK_SIZE, size - copied);
+        System.arraycopy(chunk, 0, target, copied, length);
+        copied += length;
+      }
+    }
+  }
+
+  private static class IntColumn extends Column {
+    private final List<int[]> chunks = new ArrayList<>();
+
+    IntColumn() {
+      super(ColumnType.INT);
+    }
+
+    @Override
+    void addChunk() {
+      chunks.add(new int[CHUNK_SIZE]);
+    }
+
+    @Override
+    boolean read(ResultSet rs, int columnIndex, int chunk, int offset) throws SQLException {
+      int value = rs.getInt(columnIndex);
+      chunks.get(chunk)[offset] = value;
+      return value != 0 || !rs.wasNull();
+    }
+
+    void copyTo(int[] values, int size) {
+      copy(chunks, values, size);
+    }
+  }
+
+  private static class LongColumn extends Column {
+    final List<long[]> chunks = new ArrayList<>();
+
+    LongColumn() {
+      super(ColumnType.LONG);
+    }
+
+    @Override
+    void addChunk() {
+      chunks.add(new long[CHUNK_SIZE]);
+    }
+
+    @Override
+    boolean read(ResultSet rs, int columnIndex, int chunk, int offset) throws SQLException {
+      long value = rs.getLong(columnIndex);
+      chunks.get(chunk)[offset] = value;
+      return value != 0 || !rs.wasNull();
+    }
+
+    void copyTo(long[] values, int size) {
+      copy(chunks, values, size);
+    }
+  }
+
+  private static class TemporalColumn extends LongColumn {
+    private final JdbcType jdbcType;
+
+    TemporalColumn(JdbcType jdbcType) {
+      this.jdbcType = jdbcType;
+    }
+
+    @Override
+    boolean read(ResultSet rs, int columnIndex, int chunk, int offset) throws SQLException {
+      final java.util.Date value;
+      if (jdbcType == JdbcType.DATE) {
+        value = rs.getDate(columnIndex);
+      } else if (jdbcType == JdbcType.TIME) {
+        value = rs.getTime(columnIndex);
+      } else {
+        value = rs.getTimestamp(columnIndex);
+      }
+      if (value == null) {
+        return false;
+      }
+      chunks.get(chunk)[offset] = value.getTime();
+      return true;
+    }
+  }
+
+  private static class DoubleColumn extends Column {
+    private final List<double[]> chunks = new ArrayList<>();
+
+    DoubleColumn() {
+      super(ColumnType.DOUBLE);
+    }
+
+    @Override
+    void addChunk() {
+      chunks.add(new double[CHUNK_SIZE]);
+    }
+
+    @Override
+    boolean read(ResultSet rs, int columnIndex, int chunk, int offset) throws SQLException {
+      double value = rs.getDouble(columnIndex);
+      chunks.get(chunk)[offset] = value;
+      return value != 0 || !rs.wasNull();
+    }
+
+    void copyTo(double[] values, int size) {
+      copy(chunks, values, size);
+    }
+  }
+
+  private static class DecimalColumn extends Column {
+    private final List<BigDecimal[]> chunks = new ArrayList<>();
+
+    DecimalColumn() {
+      super(ColumnType.DECIMAL);
+    }
+
+    @Override
+    void addChunk() {
+      chunks.add(new BigDecimal[CHUNK_SIZE]);
+    }
+
+    @Override
+    boolean read(ResultSet rs, int columnIndex, int chunk, int offset) throws SQLException {
+      BigDecimal value = rs.getBigDecimal(columnIndex);
+      chunks.get(chunk)[offset] = value;
+      return value != null;
+    }
+
+    void copyTo(BigDecimal[] values, int size) {
+      copy(chunks, values, size);
+    }
+  }
+
+  private static class StringColumn extends Column {
+    private final List<String[]> chunks = new ArrayList<>();
+
+    StringColumn() {
+      super(ColumnType.STRING);
+    }
+
+    @Override
+    void addChunk() {
+      chunks.add(new String[CHUNK_SIZE]);
+    }
+
+    @Override
+    boolean read(ResultSet rs, int columnIndex, int chunk, int offset) throws SQLException {
+      String value = rs.getString(columnIndex);
+      chunks.get(chunk)[offset] = value;
+      return value != null;
+    }
+
+    void copyTo(String[] values, int size) {
+      copy(chunks, values, size);
+    }
+  }
+
+  private static class ObjectColumn extends Column {
+    private final List<Object[]> chunks = new ArrayList<>();
+
+    ObjectColumn() {
+      super(ColumnType.OBJECT);
+    }
+
+    @Override
+    void addChunk() {
+      chunks.add(new Object[CHUNK_SIZE]);
+    }
+
+    @Override
+    boolean read(ResultSet rs, int columnIndex, int chunk, int offset) throws SQLException {
+      Object value = rs.getObject(columnIndex);
+      chunks.get(chunk)[offset] = value;
+      return value != null;
+    }
+
+    void copyTo(Object[] values, int size) {
+      copy(chunks, values, size);
+    }
+  }
+
+}
@@ -0,0 +1,57 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.util.List;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Collects the first result set of a statement into a {@link ColumnarResult}.
+ * <p>
+ * The rows are not mapped: the result set handler reads them straight into the columns of the result, so the
+ * result maps of the statement are ignored.
+ *
+ * @since 3.5.4
+ */
+public class ColumnarResultHandler implements ResultHandler<Object> {
+
+  private ColumnarResult result;
+
+  /**
+   * Creates the result the rows will be read into, once the columns of the result set are known.
+   */
+  public ColumnarResult createResult(List<String> columnNames, List<JdbcType> jdbcTypes) {
+    result = new ColumnarResult(columnNames, jdbcTypes);
+    return result;
+  }
+
+  /**
+   * Returns the collected rows, or {@code null} if the statement did not return a result set.
+   */
+  public ColumnarResult getResult() {
+    return result;
+  }
+
+  @Override
+  public void handleResult(ResultContext<?> context) {
+    throw new ExecutorException("A columnar result is read from the result set, not from mapped objects.");
+  }
+
+}
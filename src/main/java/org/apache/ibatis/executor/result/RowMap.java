@@ -0,0 +1,289 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map holding the values of one row, whose keys are shared by all the rows of a result set.
+ * <p>
+ * Each row only holds an array of values, indexed through its {@link Keys}. It behaves as any other mutable map:
+ * keys that are not shared are kept in a map of the row, and iteration follows the order of the shared keys
+ * first. A row is serialized as a {@link LinkedHashMap}.
+ *
+ * @since 3.5.4
+ */
+public final class RowMap extends AbstractMap<String, Object> implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  //todo 值数组中表示没有该key的标记为null，因此值为null时使用该标记保存
+  private static final Object NULL = new Object();
+
+  private final Keys keys;
+  private final Object[] values;
+  //todo 不在共享key中的key/value
+  private Map<String, Object> others;
+  private int size;
+  private transient Set<Entry<String, Object>> entrySet;
+
+  public RowMap(Keys keys) {
+    this.keys = keys;
+    this.values = new Object[keys.names.length];
+  }
+
+  @Override
+  public int size() {
+    return size + (others == null ? 0 : others.size());
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    Integer index = keys.indexes.get(key);
+    if (index != null) {
+      return values[index] != null;
+    }
+    return others != null && others.containsKey(key);
+  }
+
+  @Override
+  public Object get(Object key) {
+    Integer index = keys.indexes.get(key);
+    if (index != null) {
+      return unmask(values[index]);
+    }
+    return others == null ? null : others.get(key);
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    Integer index = keys.indexes.get(key);
+    if (index != null) {
+      Object previous = values[index];
+      if (previous == null) {
+        size++;
+      }
+      values[index] = value == null ? NULL : value;
+      return unmask(previous);
+    }
+    if (others == null) {
+      others = new HashMap<>();
+    }
+    return others.put(key, value);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    Integer index = keys.indexes.get(key);
+    if (index != null) {
+      return unmask(removeAt(index));
+    }
+    return others == null ? null : others.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    for (int i = 0; i < values.length; i++) {
+      values[i] = null;
+    }
+    size = 0;
+    others = null;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    Set<Entry<String, Object>> result = entrySet;
+    if (result == null) {
+      result = new EntrySet();
+      entrySet = result;
+    }
+    return result;
+  }
+
+  private Object removeAt(int index) {
+    Object previous = values[index];
+    if (previous != null) {
+      values[index] = null;
+      size--;
+    }
+    return previous;
+  }
+
+  private static Object unmask(Object value) {
+    return value == NULL ? null : value;
+  }
+
+  private Object writeReplace() {
+    return new LinkedHashMap<>(this);
+  }
+
+  /**
+   * The keys shared by the rows of a result set, each one with the index of its value in the rows.
+   */
+  public static final class Keys {
+
+    private final String[] names;
+    private final Map<String, Integer> indexes;
+
+    public Keys(Collection<String> names) {
+      this.indexes = new HashMap<>();
+      for (String name : names) {
+        indexes.putIfAbsent(name, indexes.size());
+      }
+      this.names = new String[indexes.size()];
+      for (Map.Entry<String, Integer> entry : indexes.entrySet()) {
+        this.names[entry.getValue()] = entry.getKey();
+      }
+    }
+
+    public int size() {
+      return names.length;
+    }
+
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, Object>> {
+
+    @Override
+    public int size() {
+      return RowMap.this.size();
+    }
+
+    @Override
+    public void clear() {
+      RowMap.this.clear();
+    }
+
+    @Override
+    public Iterator<Entry<String, Object>> iterator() {
+      return new EntryIterator();
+    }
+
+  }
+
+  private final class EntryIterator implements Iterator<Entry<String, Object>> {
+
+    private int next = -1;
+    private int current = -1;
+    private Iterator<Entry<String, Object>> othersIterator;
+
+    EntryIterator() {
+      advance();
+    }
+
+    private void advance() {
+      do {
+        next++;
+      } while (next < values.length && values[next] == null);
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (next < values.length) {
+        return true;
+      }
+      if (othersIterator == null && others != null) {
+        othersIterator = others.entrySet().iterator();
+      }
+      return othersIterator != null && othersIterator.hasNext();
+    }
+
+    @Override
+    public Entry<String, Object> next() {
+      if (next < values.length) {
+        current = next;
+        advance();
+        return new SharedKeyEntry(current);
+      }
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      current = -1;
+      return othersIterator.next();
+    }
+
+    @Override
+    public void remove() {
+      if (current >= 0) {
+        removeAt(current);
+        current = -1;
+      } else if (othersIterator != null) {
+        othersIterator.remove();
+      } else {
+        throw new IllegalStateException();
+      }
+    }
+
+  }
+
+  private final class SharedKeyEntry implements Entry<String, Object> {
+
+    private final int index;
+
+    SharedKeyEntry(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public String getKey() {
+      return keys.names[index];
+    }
+
+    @Override
+    public Object getValue() {
+      return unmask(values[index]);
+    }
+
+    @Override
+    public Object setValue(Object value) {
+      Object previous = values[index];
+      values[index] = value == null ? NULL : value;
+      return unmask(previous);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> e = (Entry<?, ?>) o;
+      Object value = getValue();
+      return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      Object value = getValue();
+      return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+
+  }
+
+}
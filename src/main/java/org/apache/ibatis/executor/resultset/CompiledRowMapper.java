@@ -0,0 +1,246 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.ibatis.lang.UsesJava7;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.reflection.ExceptionUtil;
+import org.apache.ibatis.reflection.ReflectionException;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.invoker.Invoker;
+import org.apache.ibatis.reflection.property.PropertyNamer;
+import org.apache.ibatis.reflection.wrapper.DefaultObjectWrapperFactory;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Maps the rows of a result set to a bean for a result map and a column layout, without going through
+ * {@link org.apache.ibatis.reflection.MetaObject}.
+ * <p>
+ * The columns are read by index and the properties are set through method handles bound to their setters,
+ * in the same order and with the same null handling as {@link DefaultResultSetHandler}. Only flat result maps
+ * of beans are compiled: constructor mappings, nested mappings, property paths and custom object wrappers
+ * are left to the interpreter.
+ *
+ * @since 3.5.4
+ */
+final class CompiledRowMapper {
+
+  private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+  private final Configuration configuration;
+  private final Class<?> type;
+  private final int[] columns;
+  private final TypeHandler<?>[] typeHandlers;
+  private final String[] properties;
+  private final boolean[] primitives;
+  private final PropertySetter[] setters;
+
+  private CompiledRowMapper(Configuration configuration, Class<?> type, List<Column> columns) {
+    this.configuration = configuration;
+    this.type = type;
+    int size = columns.size();
+    this.columns = new int[size];
+    this.typeHandlers = new TypeHandler<?>[size];
+    this.properties = new String[size];
+    this.primitives = new boolean[size];
+    this.setters = new PropertySetter[size];
+    for (int i = 0; i < size; i++) {
+      Column column = columns.get(i);
+      this.columns[i] = column.index;
+      this.typeHandlers[i] = column.typeHandler;
+      this.properties[i] = column.property;
+      this.primitives[i] = column.primitive;
+      this.setters[i] = column.setter;
+    }
+  }
+
+  /**
+   * Returns whether rows of the result map can be mapped by a compiled mapper, whatever the columns are.
+   */
+  static boolean isCompilable(Configuration configuration, ResultMap resultMap) {
+    Class<?> type = resultMap.getType();
+    if (!(configuration.getObjectWrapperFactory() instanceof DefaultObjectWrapperFactory)
+        || resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries() || !resultMap.getConstructorResultMappings().isEmpty()
+        || type.isInterface() || type.isArray() || type.isPrimitive() || Map.class.isAssignableFrom(type)
+        || Collection.class.isAssignableFrom(type) || configuration.getTypeHandlerRegistry().hasTypeHandler(type)
+        || !configuration.getReflectorFactory().findForClass(type).hasDefaultConstructor()) {
+      return false;
+    }
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      String property = propertyMapping.getProperty();
+      if (propertyMapping.isCompositeResult() || propertyMapping.getResultSet() != null
+          || property != null && (property.indexOf('.') >= 0 || property.indexOf('[') >= 0)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compiles the mapper of a compilable result map for the columns of a result set.
+   *
+   * @param autoMappings the columns mapped automatically, applied before the explicit mappings
+   * @return the mapper, or {@code null} if a property cannot be set directly
+   */
+  static CompiledRowMapper compile(Configuration configuration, ResultSetWrapper rsw, ResultMap resultMap,
+      List<DefaultResultSetHandler.UnMappedColumnAutoMapping> autoMappings) throws SQLException {
+    Reflector reflector = configuration.getReflectorFactory().findForClass(resultMap.getType());
+    List<Column> columns = new ArrayList<>();
+    for (DefaultResultSetHandler.UnMappedColumnAutoMapping autoMapping : autoMappings) {
+      Column column = column(reflector, autoMapping.columnIndex, autoMapping.property, autoMapping.typeHandler);
+      if (column == null) {
+        return null;
+      }
+      columns.add(column);
+    }
+    final List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, null);
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      String columnName = propertyMapping.getColumn();
+      if (propertyMapping.getProperty() == null || columnName == null
+          || !mappedColumnNames.contains(columnName.toUpperCase(Locale.ENGLISH))) {
+        continue;
+      }
+      Column column = column(reflector, rsw.getColumnIndex(columnName), propertyMapping.getProperty(), propertyMapping.getTypeHandler());
+      if (column == null) {
+        return null;
+      }
+      columns.add(column);
+    }
+    return new CompiledRowMapper(configuration, resultMap.getType(), columns);
+  }
+
+  private static Column column(Reflector reflector, int index, String property, TypeHandler<?> typeHandler) {
+    if (index < 0 || !reflector.hasSetter(property)) {
+      return null;
+    }
+    Class<?> setterType = reflector.getSetterType(property);
+    return new Column(index, typeHandler, property, setterType.isPrimitive(), setter(reflector, property, setterType));
+  }
+
+  //todo invokeExact是签名多态方法，animal-sniffer无法按调用处的签名检查
+  @UsesJava7
+  private static PropertySetter setter(Reflector reflector, String property, Class<?> setterType) {
+    Class<?> type = reflector.getType();
+    if (Modifier.isPublic(type.getModifiers())) {
+      for (Method method : type.getMethods()) {
+        if (method.getName().startsWith("set") && method.getParameterCount() == 1 && method.getParameterTypes()[0] == setterType
+            && property.equals(PropertyNamer.methodToProperty(method.getName()))) {
+          try {
+            MethodHandle handle = MethodHandles.publicLookup().unreflect(method).asType(SETTER_TYPE);
+            return handle::invokeExact;
+          } catch (IllegalAccessException e) {
+            break;
+          }
+        }
+      }
+    }
+    //todo 没有可直接调用的公共setter方法时(比如直接设置字段)，使用Reflector的Invoker
+    Invoker invoker = reflector.getSetInvoker(property);
+    return (target, value) -> invoker.invoke(target, new Object[] { value });
+  }
+
+  /**
+   * Maps the current row, or returns {@code null} if no column has a value and empty rows are not returned.
+   */
+  Object map(ResultSet rs) throws SQLException {
+    Object rowValue = configuration.getObjectFactory().create(type);
+    boolean foundValues = false;
+    for (int i = 0; i < columns.length; i++) {
+      Object value = typeHandlers[i].getResult(rs, columns[i]);
+      foundValues = set(rowValue, i, value) || foundValues;
+    }
+    return foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
+  }
+
+  int getColumnCount() {
+    return columns.length;
+  }
+
+  /**
+   * Reads the values of the current row into a buffer of {@link #getColumnCount()} values, to be mapped by
+   * {@link #build(Object[])}. The result set is only used here, so the buffer can be mapped by another thread.
+   */
+  void read(ResultSet rs, Object[] values) throws SQLException {
+    for (int i = 0; i < columns.length; i++) {
+      values[i] = typeHandlers[i].getResult(rs, columns[i]);
+    }
+  }
+
+  /**
+   * Maps the values read by {@link #read(ResultSet, Object[])} as {@link #map(ResultSet)} maps the row.
+   */
+  Object build(Object[] values) {
+    Object rowValue = configuration.getObjectFactory().create(type);
+    boolean foundValues = false;
+    for (int i = 0; i < columns.length; i++) {
+      foundValues = set(rowValue, i, values[i]) || foundValues;
+    }
+    return foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
+  }
+
+  /**
+   * Sets the value of a column, and returns whether it was not null.
+   */
+  private boolean set(Object rowValue, int column, Object value) {
+    if (value != null || configuration.isCallSettersOnNulls() && !primitives[column]) {
+      try {
+        setters[column].set(rowValue, value);
+      } catch (Throwable t) {
+        Throwable cause = ExceptionUtil.unwrapThrowable(t);
+        throw new ReflectionException("Could not set property '" + properties[column] + "' of '" + type + "' with value '" + value
+            + "' Cause: " + cause.toString(), cause);
+      }
+    }
+    return value != null;
+  }
+
+  private static final class Column {
+    private final int index;
+    private final TypeHandler<?> typeHandler;
+    private final String property;
+    private final boolean primitive;
+    private final PropertySetter setter;
+
+    Column(int index, TypeHandler<?> typeHandler, String property, boolean primitive, PropertySetter setter) {
+      this.index = index;
+      this.typeHandler = typeHandler;
+      this.property = property;
+      this.primitive = primitive;
+      this.setter = setter;
+    }
+  }
+
+  @FunctionalInterface
+  private interface PropertySetter {
+    void set(Object target, Object value) throws Throwable;
+  }
+
+}
@@ -0,0 +1,64 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * The row mappers compiled for a configuration, by result map and column layout of the result set.
+ * <p>
+ * Once the cache is full, new layouts are still compiled for the result set at hand but not kept.
+ *
+ * @since 3.5.4
+ */
+public class CompiledRowMappers {
+
+  private static final int MAX_SIZE = 1024;
+
+  private final Map<String, CompiledRowMapper> rowMappers = new ConcurrentHashMap<>();
+
+  CompiledRowMapper get(String key) {
+    return rowMappers.get(key);
+  }
+
+  void put(String key, CompiledRowMapper rowMapper) {
+    if (rowMappers.size() < MAX_SIZE) {
+      rowMappers.put(key, rowMapper);
+    }
+  }
+
+  public int size() {
+    return rowMappers.size();
+  }
+
+  public void clear() {
+    rowMappers.clear();
+  }
+
+  /**
+   * Returns the key of a result map and a column layout. It covers the settings that change automatic mappings.
+   */
+  static String key(Configuration configuration, ResultMap resultMap, ResultSetWrapper rsw) {
+    StringBuilder key = new StringBuilder(resultMap.getId());
+    key.append(':').append(configuration.getAutoMappingBehavior()).append(':').append(configuration.isMapUnderscoreToCamelCase());
+    return key.append('|').append(rsw.getColumnSignature()).toString();
+  }
+
+}
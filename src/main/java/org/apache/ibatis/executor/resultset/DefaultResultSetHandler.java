@@ -21,8 +21,12 @@ import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -36,12 +40,16 @@ import org.apache.ibatis.cursor.defaults.DefaultCursor;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.SingleResultRowBounds;
 import org.apache.ibatis.executor.loader.ResultLoader;
 import org.apache.ibatis.executor.loader.ResultLoaderMap;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.result.ColumnarResult;
+import org.apache.ibatis.executor.result.ColumnarResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.executor.result.RowMap;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -51,6 +59,7 @@ import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.reflection.RecordUtil;
 import org.apache.ibatis.reflection.ReflectorFactory;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.AutoMappingBehavior;
@@ -58,6 +67,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.UnorderedResultHandler;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
@@ -72,6 +82,8 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 public class DefaultResultSetHandler implements ResultSetHandler {
 
   private static final Object DEFERRED = new Object();
+  //todo 流式处理时最多记录的已交出父对象的key的个数
+  private static final int STREAMED_ROW_KEYS_LIMIT = 1024;
 
   private final Executor executor;
   private final Configuration configuration;
@@ -89,8 +101,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final ReflectorFactory reflectorFactory;
 
   // nested resultmaps
-  private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
+  private final Map<RowKey, Object> nestedResultObjects = new HashMap<>();
+  //todo 复用的行key构建器，每个行key只分配一个值数组
+  private final RowKey.Builder rowKeyBuilder = new RowKey.Builder();
   private final Map<String, Object> ancestorObjects = new HashMap<>();
+  //todo 流式处理嵌套映射时，记录最近已开始映射的父对象的key，用于检测记录行没有按父对象分组的情况。
+  //  只保留最近的STREAMED_ROW_KEYS_LIMIT个，内存不会随父对象的个数增长
+  private final Set<RowKey> streamedRowKeys = Collections.newSetFromMap(new LinkedHashMap<RowKey, Boolean>() {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<RowKey, Boolean> eldest) {
+      return size() > STREAMED_ROW_KEYS_LIMIT;
+    }
+  });
   private Object previousRowValue;
 
   // multiple resultsets
@@ -98,8 +122,18 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final Map<CacheKey, List<PendingRelation>> pendingRelations = new HashMap<>();
 
   // Cached Automappings
+  //todo 自动映射中记录了列的下标，只在当前结果集中有效
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
 
+  //todo 批量加载的嵌套查询，只在结果全部映射完成后才交给调用者时使用，为null表示不批量加载
+  private Map<ResultMapping, NestedQueryBatch> nestedQueryBatches;
+  //todo 当前结果集使用的编译后的行映射器，key是ResultMap对象，value为null表示该ResultMap不能编译
+  private final Map<ResultMap, CompiledRowMapper> compiledRowMappers = new IdentityHashMap<>();
+  //todo 当前结果集中按构造方法自动映射的计划，key是结果类型
+  private final Map<Class<?>, ConstructorAutoMapping> constructorAutoMappings = new HashMap<>();
+  //todo 当前结果集中映射成Map的行共享的key，key是ResultMap对象
+  private final Map<ResultMap, RowMap.Keys> rowMapKeys = new IdentityHashMap<>();
+
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   private boolean useConstructorMappings;
 
@@ -108,20 +142,39 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     public ResultMapping propertyMapping;
   }
 
-  private static class UnMappedColumnAutoMapping {
-    private final String column;
-    private final String property;
-    private final TypeHandler<?> typeHandler;
-    private final boolean primitive;
+  static class UnMappedColumnAutoMapping {
+    final String column;
+    final int columnIndex;
+    final String property;
+    final TypeHandler<?> typeHandler;
+    final boolean primitive;
 
-    public UnMappedColumnAutoMapping(String column, String property, TypeHandler<?> typeHandler, boolean primitive) {
+    public UnMappedColumnAutoMapping(String column, int columnIndex, String property, TypeHandler<?> typeHandler, boolean primitive) {
       this.column = column;
+      this.columnIndex = columnIndex;
       this.property = property;
       this.typeHandler = typeHandler;
       this.primitive = primitive;
     }
   }
 
+  static class ConstructorAutoMapping {
+    final List<Class<?>> argTypes;
+    final int[] columnIndexes;
+    final TypeHandler<?>[] typeHandlers;
+
+    ConstructorAutoMapping(ResultSetWrapper rsw, List<Class<?>> argTypes, List<String> columnNames) {
+      this.argTypes = argTypes;
+      this.columnIndexes = new int[argTypes.size()];
+      this.typeHandlers = new TypeHandler<?>[argTypes.size()];
+      for (int i = 0; i < argTypes.size(); i++) {
+        String columnName = columnNames.get(i);
+        columnIndexes[i] = rsw.getColumnIndex(columnName);
+        typeHandlers[i] = rsw.getTypeHandler(argTypes.get(i), columnName);
+      }
+    }
+  }
+
   public DefaultResultSetHandler(Executor executor, MappedStatement mappedStatement, ParameterHandler parameterHandler, ResultHandler<?> resultHandler, BoundSql boundSql,
                                  RowBounds rowBounds) {
     this.executor = executor;
@@ -184,8 +237,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   @Override
   public List<Object> handleResultSets(Statement stmt) throws SQLException {
     ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
+    if (resultHandler instanceof ColumnarResultHandler) {
+      //todo 按列读取第一个结果集，不进行映射
+      handleColumnarResultSet(getFirstResultSet(stmt), (ColumnarResultHandler) resultHandler);
+      return Collections.emptyList();
+    }
     //todo 该集合用于保存映射结果集的结果对象
     final List<Object> multipleResults = new ArrayList<>();
+    if (resultHandler == null || resultHandler instanceof NestedQueryBatch) {
+      nestedQueryBatches = new IdentityHashMap<>();
+    }
 
     int resultSetCount = 0;
     //todo 获取第一个ResultSet对象，可能存在多个ResultSet，这里只获取第一个ResultSet
@@ -228,6 +289,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         resultSetCount++;
       }
     }
+    //todo 所有结果集映射完成后，批量执行嵌套查询
+    loadNestedQueryBatches();
 
     return collapseSingleResultList(multipleResults);
   }
@@ -247,7 +310,36 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
-    return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
+    DefaultCursor<E> cursor = new DefaultCursor<>(this, resultMap, rsw, rowBounds);
+    Integer prefetchSize = mappedStatement.getCursorPrefetchSize();
+    //todo 嵌套查询会在读取线程上使用Executor，此时不能预读
+    if (prefetchSize != null && prefetchSize > 0 && !hasNestedQueries(resultMap, new HashSet<>())) {
+      cursor.setPrefetch(prefetchSize, configuration.getAsyncExecutor());
+    }
+    return cursor;
+  }
+
+  private boolean hasNestedQueries(ResultMap resultMap, Set<String> visitedResultMapIds) {
+    if (!visitedResultMapIds.add(resultMap.getId())) {
+      return false;
+    }
+    if (resultMap.hasNestedQueries()) {
+      return true;
+    }
+    for (ResultMapping resultMapping : resultMap.getResultMappings()) {
+      if (resultMapping.getNestedResultMapId() != null
+          && hasNestedQueries(configuration.getResultMap(resultMapping.getNestedResultMapId()), visitedResultMapIds)) {
+        return true;
+      }
+    }
+    if (resultMap.getDiscriminator() != null) {
+      for (String discriminatedResultMapId : resultMap.getDiscriminator().getDiscriminatorMap().values()) {
+        if (hasNestedQueries(configuration.getResultMap(discriminatedResultMapId), visitedResultMapIds)) {
+          return true;
+        }
+      }
+    }
+    return false;
   }
 
   private ResultSetWrapper getFirstResultSet(Statement stmt) throws SQLException {
@@ -301,6 +393,11 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private void cleanUpAfterHandlingResultSet() {
     nestedResultObjects.clear();
+    streamedRowKeys.clear();
+    autoMappingsCache.clear();
+    compiledRowMappers.clear();
+    constructorAutoMappings.clear();
+    rowMapKeys.clear();
   }
 
   private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -333,6 +430,23 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  //todo 将结果集的每一列读取到基本类型数组中
+  private void handleColumnarResultSet(ResultSetWrapper rsw, ColumnarResultHandler columnarResultHandler) throws SQLException {
+    if (rsw == null) {
+      return;
+    }
+    try {
+      ResultSet resultSet = rsw.getResultSet();
+      ColumnarResult result = columnarResultHandler.createResult(rsw.getColumnNames(), rsw.getJdbcTypes());
+      skipRows(resultSet, rowBounds);
+      while (result.size() < rowBounds.getLimit() && !resultSet.isClosed() && resultSet.next()) {
+        result.readRow(resultSet);
+      }
+    } finally {
+      closeResultSet(rsw.getResultSet());
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private List<Object> collapseSingleResultList(List<Object> multipleResults) {
     return multipleResults.size() == 1 ? (List<Object>) multipleResults.get(0) : multipleResults;
@@ -361,12 +475,35 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
   protected void checkResultHandler() {
-    if (resultHandler != null && configuration.isSafeResultHandlerEnabled() && !mappedStatement.isResultOrdered()) {
+    if (resultHandler != null && configuration.isSafeResultHandlerEnabled() && !mappedStatement.isResultOrdered()
+        && !configuration.isStreamNestedResults()) {
       throw new ExecutorException("Mapped Statements with nested result mappings cannot be safely used with a custom ResultHandler. "
           + "Use safeResultHandlerEnabled=false setting to bypass this check "
           + "or ensure your statement returns ordered data and set resultOrdered=true on it.");
     }
   }
+
+  //todo 检测嵌套映射是否按有序结果流式处理，即父对象的记录行是否连续
+  private boolean isResultOrdered(ResultHandler<?> resultHandler, ResultMapping parentMapping) {
+    if (mappedStatement.isResultOrdered()) {
+      return true;
+    }
+    //todo 开启streamNestedResults时，通过Cursor或自定义ResultHandler读取的结果对象逐个交出，不再缓存在nestedResultObjects中
+    return configuration.isStreamNestedResults() && parentMapping == null
+        && !(resultHandler instanceof DefaultResultHandler) && !(resultHandler instanceof NestedQueryBatch);
+  }
+  //todo 流式处理时父对象已经交出，它的记录行再次出现说明语句的结果没有按父对象排序
+  private void checkNotStreamed(RowKey rowKey) {
+    if (mappedStatement.isResultOrdered() || rowKey == RowKey.NULL) {
+      return;
+    }
+    if (!streamedRowKeys.add(rowKey)) {
+      throw new ExecutorException("The rows of " + rowKey + " returned by '" + mappedStatement.getId()
+          + "' are not consecutive, so its nested results cannot be streamed. "
+          + "Order the statement by the id columns of the result map or disable the streamNestedResults setting.");
+    }
+  }
+
   //todo 处理简单映射
   private void handleRowValuesForSimpleResultMap(ResultSetWrapper rsw, ResultMap resultMap, ResultHandler<?> resultHandler, RowBounds rowBounds, ResultMapping parentMapping)
       throws SQLException {
@@ -374,21 +511,43 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     ResultSet resultSet = rsw.getResultSet();
     //todo 根据rowBounds的offset值定位到指定的记录行
     skipRows(resultSet, rowBounds);
+    if (shouldMapRowsInParallel(resultMap, resultHandler, parentMapping)) {
+      CompiledRowMapper rowMapper = getCompiledRowMapper(rsw, resultMap);
+      if (rowMapper != null) {
+        //todo 当前线程读取结果集，工作线程创建并填充结果对象
+        new ParallelRowMapper(rowMapper, configuration.getAsyncExecutor(), Runtime.getRuntime().availableProcessors(),
+            !(resultHandler instanceof UnorderedResultHandler)).mapRows(resultSet, SingleResultRowBounds.resultLimit(rowBounds), rowValue -> {
+              callResultHandler(resultHandler, resultContext, rowValue);
+              return shouldProcessMoreRows(resultContext, rowBounds);
+            });
+        return;
+      }
+    }
     //todo shouldProcessMoreRows 检测是否还有需要映射的记录
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       //todo 确定映射使用的ResultMap对象
       ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
       //todo 对ResultSet中的一行记录进行映射
-      Object rowValue = getRowValue(rsw, discriminatedResultMap, null);
+      Object rowValue = getRowValue(rsw, discriminatedResultMap);
       //todo 保存映射得到的结果对象，将映射的结果对象添加到 ResultHandler.resultList中保存
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
     }
   }
+  //todo 检测是否可以并行映射记录行：仅限没有鉴别器的扁平映射，且结果交给DefaultResultHandler或用户指定的ResultHandler
+  private boolean shouldMapRowsInParallel(ResultMap resultMap, ResultHandler<?> resultHandler, ResultMapping parentMapping) {
+    return configuration.isParallelRowMapping() && parentMapping == null && resultMap.getDiscriminator() == null
+        && !(resultHandler instanceof NestedQueryBatch)
+        && (resultHandler instanceof DefaultResultHandler || resultHandler != null && resultHandler == this.resultHandler);
+  }
+
   //todo 保存映射结果
   private void storeObject(ResultHandler<?> resultHandler, DefaultResultContext<Object> resultContext, Object rowValue, ResultMapping parentMapping, ResultSet rs) throws SQLException {
     if (parentMapping != null) {
       //todo 嵌套查询或嵌套映射，将结果对象保存到父对象对应的属性中
       linkToParents(rs, parentMapping, rowValue);
+    } else if (resultHandler instanceof NestedQueryBatch) {
+      //todo 批量嵌套查询，按外键列的值归类结果对象
+      ((NestedQueryBatch) resultHandler).handleRow(rs, rowValue);
     } else {
       //todo 普通映射，将结果对象保存到ResultHandler中
       callResultHandler(resultHandler, resultContext, rowValue);
@@ -406,7 +565,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   //todo 检测是否还有需要映射的记录
   private boolean shouldProcessMoreRows(ResultContext<?> context, RowBounds rowBounds) {
     //todo 检测context.stopped字段 ，检测映射行数是否达到了rowBounds.limit的限制
-    return !context.isStopped() && context.getResultCount() < rowBounds.getLimit();
+    return !context.isStopped() && context.getResultCount() < SingleResultRowBounds.resultLimit(rowBounds);
   }
 
   //todo 会根据RowBounds.offset字段的值定位到指定的记录
@@ -428,6 +587,41 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
 
+  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    if (configuration.isCompileRowMappers()) {
+      CompiledRowMapper rowMapper = getCompiledRowMapper(rsw, resultMap);
+      if (rowMapper != null) {
+        return rowMapper.map(rsw.getResultSet());
+      }
+    }
+    return getRowValue(rsw, resultMap, null);
+  }
+
+  //todo 获取ResultMap和当前结果集的列对应的行映射器，第一次遇到时编译并缓存到Configuration中
+  private CompiledRowMapper getCompiledRowMapper(ResultSetWrapper rsw, ResultMap resultMap) throws SQLException {
+    if (compiledRowMappers.containsKey(resultMap)) {
+      return compiledRowMappers.get(resultMap);
+    }
+    CompiledRowMapper rowMapper = null;
+    if (CompiledRowMapper.isCompilable(configuration, resultMap)) {
+      final String key = CompiledRowMappers.key(configuration, resultMap, rsw);
+      rowMapper = configuration.getCompiledRowMappers().get(key);
+      if (rowMapper == null) {
+        List<UnMappedColumnAutoMapping> autoMappings = Collections.emptyList();
+        if (shouldApplyAutomaticMappings(resultMap, false)) {
+          MetaObject metaObject = configuration.newMetaObject(objectFactory.create(resultMap.getType()));
+          autoMappings = createAutomaticMappings(rsw, resultMap, metaObject, null);
+        }
+        rowMapper = CompiledRowMapper.compile(configuration, rsw, resultMap, autoMappings);
+        if (rowMapper != null) {
+          configuration.getCompiledRowMappers().put(key, rowMapper);
+        }
+      }
+    }
+    compiledRowMappers.put(resultMap, rowMapper);
+    return rowMapper;
+  }
+
   //todo 对ResultSet中的一行记录进行映射
   private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, String columnPrefix) throws SQLException {
     //todo 与延迟加载有关
@@ -439,8 +633,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       final MetaObject metaObject = configuration.newMetaObject(rowValue);
       //todo 成功映射了任意属性，则foundValues=true
       boolean foundValues = this.useConstructorMappings;
-      //todo 判断是否开启了自动映射功能
-      if (shouldApplyAutomaticMappings(resultMap, false)) {
+      //todo 判断是否开启了自动映射功能，record的组件已经全部通过构造方法赋值
+      if (shouldApplyAutomaticMappings(resultMap, false)
+          && !(useConstructorMappings && reflectorFactory.findForClass(rowValue.getClass()).isRecord())) {
         //todo 自动映射ResultMap中未明确映射的列
         foundValues = applyAutomaticMappings(rsw, resultMap, metaObject, columnPrefix) || foundValues;
       }
@@ -486,7 +681,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       if (propertyMapping.isCompositeResult()
           || (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH)))
           || propertyMapping.getResultSet() != null) {
-        Object value = getPropertyMappingValue(rsw.getResultSet(), metaObject, propertyMapping, lazyLoader, columnPrefix);
+        Object value = getPropertyMappingValue(rsw, metaObject, propertyMapping, lazyLoader, columnPrefix);
         // issue #541 make property optional
         final String property = propertyMapping.getProperty();
         if (property == null) {
@@ -507,8 +702,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return foundValues;
   }
 
-  private Object getPropertyMappingValue(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
+  private Object getPropertyMappingValue(ResultSetWrapper rsw, MetaObject metaResultObject, ResultMapping propertyMapping, ResultLoaderMap lazyLoader, String columnPrefix)
       throws SQLException {
+    final ResultSet rs = rsw.getResultSet();
     if (propertyMapping.getNestedQueryId() != null) {
       return getNestedQueryMappingValue(rs, metaResultObject, propertyMapping, lazyLoader, columnPrefix);
     } else if (propertyMapping.getResultSet() != null) {
@@ -517,17 +713,35 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     } else {
       final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
       final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-      return typeHandler.getResult(rs, column);
+      return getColumnValue(rsw, typeHandler, column);
     }
   }
+
+  //todo 按列索引读取列值，列名只在ResultSetWrapper中解析一次，避免JDBC驱动每一行都按列名查找
+  private Object getColumnValue(ResultSetWrapper rsw, TypeHandler<?> typeHandler, String column) throws SQLException {
+    final int columnIndex = rsw.getColumnIndex(column);
+    if (columnIndex > 0) {
+      return typeHandler.getResult(rsw.getResultSet(), columnIndex);
+    }
+    return typeHandler.getResult(rsw.getResultSet(), column);
+  }
   //todo 负责为未映射的列查找对应的属性，并将两者关联起来封装成UnMappedColumnAutoMapping对象
   private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
     //todo 自动映射的缓存key
     final String mapKey = resultMap.getId() + ":" + columnPrefix;
     List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
+    if (autoMapping != null) {
+      return autoMapping;
+    }
+    //todo 再从Configuration级别的缓存中查找，key中包含结果集的列签名和结果对象的类型
+    final String planKey = rsw.getColumnSignature() + '|' + mapKey + ':' + metaObject.getOriginalObject().getClass().getName()
+        + ':' + configuration.isMapUnderscoreToCamelCase();
+    autoMapping = configuration.getMappingPlanCache().getAutoMappings(planKey);
     //todo 如果autoMappingCaches缓存未命中
     if (autoMapping == null) {
       autoMapping = new ArrayList<>();
+      //todo 存在未知列时不缓存到Configuration中，保证每次执行都会按autoMappingUnknownColumnBehavior处理
+      boolean unknownColumns = false;
       final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
       //todo 从ResultSetWrapper中获取未映射的列名集合
       for (String columnName : unmappedColumnNames) {
@@ -549,18 +763,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           final Class<?> propertyType = metaObject.getSetterType(property);
           if (typeHandlerRegistry.hasTypeHandler(propertyType, rsw.getJdbcType(columnName))) {
             final TypeHandler<?> typeHandler = rsw.getTypeHandler(propertyType, columnName);
-            autoMapping.add(new UnMappedColumnAutoMapping(columnName, property, typeHandler, propertyType.isPrimitive()));
+            autoMapping.add(new UnMappedColumnAutoMapping(columnName, rsw.getColumnIndex(columnName), property, typeHandler, propertyType.isPrimitive()));
           } else {
+            unknownColumns = true;
             configuration.getAutoMappingUnknownColumnBehavior()
                 .doAction(mappedStatement, columnName, property, propertyType);
           }
         } else {
+          unknownColumns = true;
           configuration.getAutoMappingUnknownColumnBehavior()
               .doAction(mappedStatement, columnName, (property != null) ? property : propertyName, null);
         }
       }
-      autoMappingsCache.put(mapKey, autoMapping);
+      autoMapping = Collections.unmodifiableList(autoMapping);
+      if (!unknownColumns) {
+        configuration.getMappingPlanCache().putAutoMappings(planKey, autoMapping);
+      }
     }
+    autoMappingsCache.put(mapKey, autoMapping);
     return autoMapping;
   }
 
@@ -572,7 +792,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       //todo 遍历autoMapping集合
       for (UnMappedColumnAutoMapping mapping : autoMapping) {
         //todo 使用TypeHandler获取自动映射的列值
-        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
+        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.columnIndex);
         if (value != null) {
           foundValues = true;
         }
@@ -675,6 +895,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     } else if (!constructorMappings.isEmpty()) {
       //todo 2。ResultMap中记录了<constructor>节点的信息，则通过反射方式调用构造方法，创建结果对象
       return createParameterizedResultObject(rsw, resultType, constructorMappings, constructorArgTypes, constructorArgs, columnPrefix);
+    } else if (resultType == Map.class && columnPrefix == null && configuration.isCompactRowMaps()) {
+      //todo 结果类型为Map时，使用与结果集中其他行共享key的RowMap
+      return new RowMap(getRowMapKeys(rsw, resultMap));
     } else if (resultType.isInterface() || metaType.hasDefaultConstructor()) {
       //todo 3。使用默认的无参构造函数，则直接使用objectFactory创建对象
       return objectFactory.create(resultType);
@@ -685,6 +908,17 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     throw new ExecutorException("Do not know how to create an instance of " + resultType);
   }
 
+  private RowMap.Keys getRowMapKeys(ResultSetWrapper rsw, ResultMap resultMap) {
+    RowMap.Keys keys = rowMapKeys.get(resultMap);
+    if (keys == null) {
+      final List<String> names = new ArrayList<>(rsw.getColumnNames());
+      names.addAll(resultMap.getMappedProperties());
+      keys = new RowMap.Keys(names);
+      rowMapKeys.put(resultMap, keys);
+    }
+    return keys;
+  }
+
   Object createParameterizedResultObject(ResultSetWrapper rsw, Class<?> resultType, List<ResultMapping> constructorMappings,
                                          List<Class<?>> constructorArgTypes, List<Object> constructorArgs, String columnPrefix) {
     boolean foundValues = false;
@@ -700,7 +934,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           value = getRowValue(rsw, resultMap, getColumnPrefix(columnPrefix, constructorMapping));
         } else {
           final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-          value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+          value = getColumnValue(rsw, typeHandler, prependPrefix(column, columnPrefix));
         }
       } catch (ResultMapException | SQLException e) {
         throw new ExecutorException("Could not process result for mapping: " + constructorMapping, e);
@@ -713,32 +947,75 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
   private Object createByConstructorSignature(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) throws SQLException {
+    final ConstructorAutoMapping constructorAutoMapping = getConstructorAutoMapping(rsw, resultType);
+    boolean foundValues = false;
+    for (int i = 0; i < constructorAutoMapping.columnIndexes.length; i++) {
+      Object value = constructorAutoMapping.typeHandlers[i].getResult(rsw.getResultSet(), constructorAutoMapping.columnIndexes[i]);
+      constructorArgTypes.add(constructorAutoMapping.argTypes.get(i));
+      constructorArgs.add(value);
+      foundValues = value != null || foundValues;
+    }
+    return foundValues ? objectFactory.create(resultType, constructorArgTypes, constructorArgs) : null;
+  }
+
+  //todo 获取结果类型按构造方法自动映射的计划，同一列签名的结果集只解析一次构造方法
+  private ConstructorAutoMapping getConstructorAutoMapping(ResultSetWrapper rsw, Class<?> resultType) {
+    ConstructorAutoMapping constructorAutoMapping = constructorAutoMappings.get(resultType);
+    if (constructorAutoMapping == null) {
+      final String planKey = rsw.getColumnSignature() + '|' + resultType.getName() + ':' + configuration.isMapUnderscoreToCamelCase();
+      constructorAutoMapping = configuration.getMappingPlanCache().getConstructorAutoMapping(planKey);
+      if (constructorAutoMapping == null) {
+        constructorAutoMapping = createConstructorAutoMapping(rsw, resultType);
+        configuration.getMappingPlanCache().putConstructorAutoMapping(planKey, constructorAutoMapping);
+      }
+      constructorAutoMappings.put(resultType, constructorAutoMapping);
+    }
+    return constructorAutoMapping;
+  }
+
+  private ConstructorAutoMapping createConstructorAutoMapping(ResultSetWrapper rsw, Class<?> resultType) {
     final Constructor<?>[] constructors = resultType.getDeclaredConstructors();
-    final Constructor<?> defaultConstructor = findDefaultConstructor(constructors);
-    if (defaultConstructor != null) {
-      return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, defaultConstructor);
-    } else {
-      for (Constructor<?> constructor : constructors) {
-        if (allowedConstructorUsingTypeHandlers(constructor, rsw.getJdbcTypes())) {
-          return createUsingConstructor(rsw, resultType, constructorArgTypes, constructorArgs, constructor);
+    Constructor<?> constructor = findDefaultConstructor(constructors);
+    //todo record类型没有指定@AutomapConstructor时，按组件名称将列映射到标准构造方法的参数，与列的顺序无关
+    if (RecordUtil.isRecord(resultType) && (constructor == null || !constructor.isAnnotationPresent(AutomapConstructor.class))) {
+      ConstructorAutoMapping recordAutoMapping = createRecordAutoMapping(rsw, resultType);
+      if (recordAutoMapping != null) {
+        return recordAutoMapping;
+      }
+    }
+    if (constructor == null) {
+      for (Constructor<?> candidate : constructors) {
+        if (allowedConstructorUsingTypeHandlers(candidate, rsw.getJdbcTypes())) {
+          constructor = candidate;
+          break;
         }
       }
     }
-    throw new ExecutorException("No constructor found in " + resultType.getName() + " matching " + rsw.getClassNames());
+    if (constructor == null) {
+      throw new ExecutorException("No constructor found in " + resultType.getName() + " matching " + rsw.getClassNames());
+    }
+    final Class<?>[] parameterTypes = constructor.getParameterTypes();
+    return new ConstructorAutoMapping(rsw, Arrays.asList(parameterTypes), rsw.getColumnNames().subList(0, parameterTypes.length));
   }
 
-  private Object createUsingConstructor(ResultSetWrapper rsw, Class<?> resultType, List<Class<?>> constructorArgTypes, List<Object> constructorArgs, Constructor<?> constructor) throws SQLException {
-    boolean foundValues = false;
-    for (int i = 0; i < constructor.getParameterTypes().length; i++) {
-      Class<?> parameterType = constructor.getParameterTypes()[i];
-      String columnName = rsw.getColumnNames().get(i);
-      TypeHandler<?> typeHandler = rsw.getTypeHandler(parameterType, columnName);
-      Object value = typeHandler.getResult(rsw.getResultSet(), columnName);
-      constructorArgTypes.add(parameterType);
-      constructorArgs.add(value);
-      foundValues = value != null || foundValues;
+  private ConstructorAutoMapping createRecordAutoMapping(ResultSetWrapper rsw, Class<?> recordType) {
+    final List<String> columnNames = new ArrayList<>();
+    for (String componentName : RecordUtil.getComponentNames(recordType)) {
+      String columnName = null;
+      for (String candidate : rsw.getColumnNames()) {
+        String name = configuration.isMapUnderscoreToCamelCase() ? candidate.replace("_", "") : candidate;
+        if (name.equalsIgnoreCase(componentName)) {
+          columnName = candidate;
+          break;
+        }
+      }
+      if (columnName == null) {
+        return null;
+      }
+      columnNames.add(columnName);
     }
-    return foundValues ? objectFactory.create(resultType, constructorArgTypes, constructorArgs) : null;
+    final Constructor<?> constructor = RecordUtil.getCanonicalConstructor(recordType);
+    return new ConstructorAutoMapping(rsw, Arrays.asList(constructor.getParameterTypes()), columnNames);
   }
 
   private Constructor<?> findDefaultConstructor(final Constructor<?>[] constructors) {
@@ -778,7 +1055,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       columnName = rsw.getColumnNames().get(0);
     }
     final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
-    return typeHandler.getResult(rsw.getResultSet(), columnName);
+    return getColumnValue(rsw, typeHandler, columnName);
   }
 
   //
@@ -821,6 +1098,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         if (propertyMapping.isLazy()) {
           lazyLoader.addLoader(property, metaResultObject, resultLoader);
           value = DEFERRED;
+        } else if (addToNestedQueryBatch(rs, metaResultObject, propertyMapping, nestedQuery, nestedQueryParameterObject, nestedBoundSql)) {
+          value = DEFERRED;
         } else {
           value = resultLoader.loadResult();
         }
@@ -829,6 +1108,36 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return value;
   }
 
+  private boolean addToNestedQueryBatch(ResultSet rs, MetaObject metaResultObject, ResultMapping propertyMapping, MappedStatement nestedQuery,
+      Object key, BoundSql nestedBoundSql) {
+    if (nestedQueryBatches == null || propertyMapping.getBatchSize() <= 0) {
+      return false;
+    }
+    NestedQueryBatch batch;
+    if (nestedQueryBatches.containsKey(propertyMapping)) {
+      batch = nestedQueryBatches.get(propertyMapping);
+    } else {
+      //todo 不能批量加载的嵌套查询也会记录下来(值为null)，避免每一行都重新解析
+      batch = NestedQueryBatch.create(configuration, executor, nestedQuery, propertyMapping,
+          simpleKeyTypeHandler(nestedQuery.getParameterMap().getType()), nestedBoundSql);
+      nestedQueryBatches.put(propertyMapping, batch);
+    }
+    return batch != null && batch.add(nestedBoundSql, key, metaResultObject);
+  }
+
+  private void loadNestedQueryBatches() throws SQLException {
+    if (nestedQueryBatches == null) {
+      return;
+    }
+    Map<ResultMapping, NestedQueryBatch> batches = nestedQueryBatches;
+    nestedQueryBatches = null;
+    for (NestedQueryBatch batch : batches.values()) {
+      if (batch != null) {
+        batch.load();
+      }
+    }
+  }
+
   private Object prepareParameterForNestedQuery(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
     if (resultMapping.isCompositeResult()) {
       return prepareCompositeKeyParameter(rs, resultMapping, parameterType, columnPrefix);
@@ -838,13 +1147,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   }
 
   private Object prepareSimpleKeyParameter(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
-    final TypeHandler<?> typeHandler;
+    final TypeHandler<?> typeHandler = simpleKeyTypeHandler(parameterType);
+    return typeHandler.getResult(rs, prependPrefix(resultMapping.getColumn(), columnPrefix));
+  }
+
+  private TypeHandler<?> simpleKeyTypeHandler(Class<?> parameterType) {
     if (typeHandlerRegistry.hasTypeHandler(parameterType)) {
-      typeHandler = typeHandlerRegistry.getTypeHandler(parameterType);
+      return typeHandlerRegistry.getTypeHandler(parameterType);
     } else {
-      typeHandler = typeHandlerRegistry.getUnknownTypeHandler();
+      return typeHandlerRegistry.getUnknownTypeHandler();
     }
-    return typeHandler.getResult(rs, prependPrefix(resultMapping.getColumn(), columnPrefix));
   }
 
   private Object prepareCompositeKeyParameter(ResultSet rs, ResultMapping resultMapping, Class<?> parameterType, String columnPrefix) throws SQLException {
@@ -926,14 +1238,19 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     final DefaultResultContext<Object> resultContext = new DefaultResultContext<>();
     ResultSet resultSet = rsw.getResultSet();
     skipRows(resultSet, rowBounds);
+    final boolean resultOrdered = isResultOrdered(resultHandler, parentMapping);
     Object rowValue = previousRowValue;
     while (shouldProcessMoreRows(resultContext, rowBounds) && !resultSet.isClosed() && resultSet.next()) {
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
-      final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+      final RowKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
       Object partialObject = nestedResultObjects.get(rowKey);
       // issue #577 && #542
-      if (mappedStatement.isResultOrdered()) {
+      if (resultOrdered) {
+        if (partialObject == null) {
+          checkNotStreamed(rowKey);
+        }
         if (partialObject == null && rowValue != null) {
+          //todo 父对象已完整，释放其嵌套对象后交出
           nestedResultObjects.clear();
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
         }
@@ -945,7 +1262,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
-    if (rowValue != null && mappedStatement.isResultOrdered() && shouldProcessMoreRows(resultContext, rowBounds)) {
+    if (rowValue != null && resultOrdered && shouldProcessMoreRows(resultContext, rowBounds)) {
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
       previousRowValue = null;
     } else if (rowValue != null) {
@@ -957,7 +1274,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
 
-  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, CacheKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
+  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, RowKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
     final String resultMapId = resultMap.getId();
     Object rowValue = partialObject;
     if (rowValue != null) {
@@ -981,7 +1298,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         foundValues = lazyLoader.size() > 0 || foundValues;
         rowValue = foundValues || configuration.isReturnInstanceForEmptyRow() ? rowValue : null;
       }
-      if (combinedKey != CacheKey.NULL_CACHE_KEY) {
+      if (combinedKey != RowKey.NULL) {
         nestedResultObjects.put(combinedKey, rowValue);
       }
     }
@@ -996,7 +1313,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // NESTED RESULT MAP (JOIN MAPPING)
   //
 
-  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, CacheKey parentRowKey, boolean newObject) {
+  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, RowKey parentRowKey, boolean newObject) {
     boolean foundValues = false;
     for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
       final String nestedResultMapId = resultMapping.getNestedResultMapId();
@@ -1015,8 +1332,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
               continue;
             }
           }
-          final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-          final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
+          final RowKey combinedKey = createRowKey(nestedResultMap, rsw, columnPrefix).combine(parentRowKey);
           Object rowValue = nestedResultObjects.get(combinedKey);
           boolean knownValue = rowValue != null;
           instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
@@ -1077,37 +1393,19 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // UNIQUE RESULT KEY
   //
 
-  private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
-    final CacheKey cacheKey = new CacheKey();
-    cacheKey.update(resultMap.getId());
+  private RowKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    final RowKey.Builder rowKey = rowKeyBuilder.start(resultMap.getId());
     List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
     if (resultMappings.isEmpty()) {
       if (Map.class.isAssignableFrom(resultMap.getType())) {
-        createRowKeyForMap(rsw, cacheKey);
+        createRowKeyForMap(rsw, rowKey);
       } else {
-        createRowKeyForUnmappedProperties(resultMap, rsw, cacheKey, columnPrefix);
+        createRowKeyForUnmappedProperties(resultMap, rsw, rowKey, columnPrefix);
       }
     } else {
-      createRowKeyForMappedProperties(resultMap, rsw, cacheKey, resultMappings, columnPrefix);
-    }
-    if (cacheKey.getUpdateCount() < 2) {
-      return CacheKey.NULL_CACHE_KEY;
+      createRowKeyForMappedProperties(resultMap, rsw, rowKey, resultMappings, columnPrefix);
     }
-    return cacheKey;
-  }
-
-  private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
-    if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
-      CacheKey combinedKey;
-      try {
-        combinedKey = rowKey.clone();
-      } catch (CloneNotSupportedException e) {
-        throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
-      }
-      combinedKey.update(parentRowKey);
-      return combinedKey;
-    }
-    return CacheKey.NULL_CACHE_KEY;
+    return rowKey.build();
   }
 
   private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
@@ -1118,12 +1416,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return resultMappings;
   }
 
-  private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+  private void createRowKeyForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, RowKey.Builder rowKey, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
     for (ResultMapping resultMapping : resultMappings) {
       if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) {
         // Issue #392
         final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
-        createRowKeyForMappedProperties(nestedResultMap, rsw, cacheKey, nestedResultMap.getConstructorResultMappings(),
+        createRowKeyForMappedProperties(nestedResultMap, rsw, rowKey, nestedResultMap.getConstructorResultMappings(),
             prependPrefix(resultMapping.getColumnPrefix(), columnPrefix));
       } else if (resultMapping.getNestedQueryId() == null) {
         final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
@@ -1131,17 +1429,16 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
         // Issue #114
         if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
-          final Object value = th.getResult(rsw.getResultSet(), column);
+          final Object value = getColumnValue(rsw, th, column);
           if (value != null || configuration.isReturnInstanceForEmptyRow()) {
-            cacheKey.update(column);
-            cacheKey.update(value);
+            rowKey.add(column, value);
           }
         }
       }
     }
   }
 
-  private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, CacheKey cacheKey, String columnPrefix) throws SQLException {
+  private void createRowKeyForUnmappedProperties(ResultMap resultMap, ResultSetWrapper rsw, RowKey.Builder rowKey, String columnPrefix) throws SQLException {
     final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
     List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
     for (String column : unmappedColumnNames) {
@@ -1155,22 +1452,20 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
       if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
-        String value = rsw.getResultSet().getString(column);
+        String value = rsw.getResultSet().getString(rsw.getColumnIndex(column));
         if (value != null) {
-          cacheKey.update(column);
-          cacheKey.update(value);
+          rowKey.add(column, value);
         }
       }
     }
   }
 
-  private void createRowKeyForMap(ResultSetWrapper rsw, CacheKey cacheKey) throws SQLException {
+  private void createRowKeyForMap(ResultSetWrapper rsw, RowKey.Builder rowKey) throws SQLException {
     List<String> columnNames = rsw.getColumnNames();
     for (String columnName : columnNames) {
-      final String value = rsw.getResultSet().getString(columnName);
+      final String value = rsw.getResultSet().getString(rsw.getColumnIndex(columnName));
       if (value != null) {
-        cacheKey.update(columnName);
-        cacheKey.update(value);
+        rowKey.add(columnName, value);
       }
     }
   }
@@ -0,0 +1,101 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * The mapping plans of a configuration, shared by the statement executions that read result sets of the same
+ * column layout: the columns mapped and not mapped by each result map, the automatic mappings, the constructors
+ * resolved for automatic constructor mappings and the type handlers resolved for the columns.
+ * <p>
+ * The plans are keyed by the column signature of the result set (see {@link ResultSetWrapper#getColumnSignature()}).
+ * The plans are shared between threads and are never modified once cached.
+ * Once a kind of plan reaches its maximum size, new plans are still built for the result set at hand but not kept.
+ *
+ * @since 3.5.4
+ */
+public class MappingPlanCache {
+
+  private static final int MAX_SIZE = 1024;
+
+  private final Map<String, List<String>> mappedColumnNames = new ConcurrentHashMap<>();
+  private final Map<String, List<String>> unmappedColumnNames = new ConcurrentHashMap<>();
+  private final Map<String, List<DefaultResultSetHandler.UnMappedColumnAutoMapping>> autoMappings = new ConcurrentHashMap<>();
+  private final Map<String, TypeHandler<?>> typeHandlers = new ConcurrentHashMap<>();
+  private final Map<String, DefaultResultSetHandler.ConstructorAutoMapping> constructorAutoMappings = new ConcurrentHashMap<>();
+
+  List<String> getMappedColumnNames(String key) {
+    return mappedColumnNames.get(key);
+  }
+
+  List<String> getUnmappedColumnNames(String key) {
+    return unmappedColumnNames.get(key);
+  }
+
+  void putColumnNames(String key, List<String> mapped, List<String> unmapped) {
+    put(unmappedColumnNames, key, unmapped);
+    put(mappedColumnNames, key, mapped);
+  }
+
+  List<DefaultResultSetHandler.UnMappedColumnAutoMapping> getAutoMappings(String key) {
+    return autoMappings.get(key);
+  }
+
+  void putAutoMappings(String key, List<DefaultResultSetHandler.UnMappedColumnAutoMapping> autoMapping) {
+    put(autoMappings, key, autoMapping);
+  }
+
+  TypeHandler<?> getTypeHandler(String key) {
+    return typeHandlers.get(key);
+  }
+
+  void putTypeHandler(String key, TypeHandler<?> typeHandler) {
+    put(typeHandlers, key, typeHandler);
+  }
+
+  DefaultResultSetHandler.ConstructorAutoMapping getConstructorAutoMapping(String key) {
+    return constructorAutoMappings.get(key);
+  }
+
+  void putConstructorAutoMapping(String key, DefaultResultSetHandler.ConstructorAutoMapping constructorAutoMapping) {
+    put(constructorAutoMappings, key, constructorAutoMapping);
+  }
+
+  private static <T> void put(Map<String, T> plans, String key, T plan) {
+    if (plans.size() < MAX_SIZE) {
+      plans.put(key, plan);
+    }
+  }
+
+  public int size() {
+    return mappedColumnNames.size() + unmappedColumnNames.size() + autoMappings.size() + typeHandlers.size()
+        + constructorAutoMappings.size();
+  }
+
+  public void clear() {
+    mappedColumnNames.clear();
+    unmappedColumnNames.clear();
+    autoMappings.clear();
+    typeHandlers.clear();
+    constructorAutoMappings.clear();
+  }
+
+}
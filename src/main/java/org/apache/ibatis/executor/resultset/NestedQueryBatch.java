@@ -0,0 +1,410 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ResultExtractor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * Loads an eager nested select for the keys of many parent rows at once.
+ * <p>
+ * The nested statement has to filter on a single key with a {@code column = ?} condition, which is rewritten
+ * to {@code column IN (?, ?, ...)}. The rows are handed back to their parents by the value of the key column,
+ * that is the column of the condition unless the {@code foreignColumn} of the mapping names another one.
+ * Keys are compared by value, so that e.g. an {@code Integer} key of a parent matches a {@code Long} key column.
+ * When the nested statement does not return the key column, the keys are loaded one by one instead.
+ *
+ * @since 3.5.4
+ */
+final class NestedQueryBatch implements ResultHandler<Object> {
+
+  private static final String PARAMETER_PREFIX = "_batch_";
+  //todo IN列表改写后会改变语义的关键字：限制行数、去重、分组、集合运算、窗口函数以及OR条件
+  private static final Set<String> UNSAFE_KEYWORDS = new HashSet<>(Arrays.asList("top", "distinct", "rownum", "limit",
+      "offset", "fetch", "first", "group", "having", "union", "intersect", "except", "minus", "over", "connect", "or"));
+
+  private final Configuration configuration;
+  private final Executor executor;
+  private final MappedStatement nestedQuery;
+  private final ResultMapping propertyMapping;
+  private final TypeHandler<?> keyTypeHandler;
+  private final String templateSql;
+  private final KeyCondition condition;
+  private final ParameterMapping keyParameterMapping;
+  private final String keyColumn;
+  private final ResultExtractor resultExtractor;
+
+  //todo 规范化后的外键值 -> 外键值及等待该外键对应结果的父对象
+  private final Map<Object, PendingKey> parents = new LinkedHashMap<>();
+  // rows of the running query, by normalized key
+  private Map<Object, List<Object>> rows;
+  //todo 嵌套查询的结果集中没有外键列时，无法把记录分给父对象，改为逐个外键执行
+  private boolean keyColumnMissing;
+  private boolean keyColumnChecked;
+
+  private NestedQueryBatch(Configuration configuration, Executor executor, MappedStatement nestedQuery, ResultMapping propertyMapping,
+      TypeHandler<?> keyTypeHandler, BoundSql boundSql, KeyCondition condition) {
+    this.configuration = configuration;
+    this.executor = executor;
+    this.nestedQuery = nestedQuery;
+    this.propertyMapping = propertyMapping;
+    this.keyTypeHandler = keyTypeHandler;
+    this.templateSql = boundSql.getSql();
+    this.condition = condition;
+    this.keyParameterMapping = boundSql.getParameterMappings().get(0);
+    String foreignColumn = propertyMapping.getForeignColumn();
+    this.keyColumn = foreignColumn == null || foreignColumn.isEmpty() ? condition.getColumn() : foreignColumn;
+    this.resultExtractor = new ResultExtractor(configuration, configuration.getObjectFactory());
+  }
+
+  /**
+   * Returns the batch of the mapping, or {@code null} when its nested statement cannot be loaded in batches.
+   */
+  static NestedQueryBatch create(Configuration configuration, Executor executor, MappedStatement nestedQuery,
+      ResultMapping propertyMapping, TypeHandler<?> keyTypeHandler, BoundSql boundSql) {
+    if (propertyMapping.isCompositeResult() || nestedQuery.getStatementType() == StatementType.CALLABLE
+        || nestedQuery.getResultSets() != null || nestedQuery.getResultMaps().size() != 1) {
+      return null;
+    }
+    ResultMap resultMap = nestedQuery.getResultMaps().get(0);
+    // rows of nested result maps are only complete once the next row was read, the key column is gone by then,
+    // and a discriminator may switch to such a result map
+    if (resultMap.hasNestedResultMaps() || resultMap.getDiscriminator() != null) {
+      return null;
+    }
+    List<ParameterMapping> parameterMappings = boundSql.getParameterMappings();
+    if (parameterMappings.size() != 1 || parameterMappings.get(0).getMode() != ParameterMode.IN) {
+      return null;
+    }
+    KeyCondition condition = KeyCondition.parse(boundSql.getSql());
+    if (condition == null) {
+      return null;
+    }
+    return new NestedQueryBatch(configuration, executor, nestedQuery, propertyMapping, keyTypeHandler, boundSql, condition);
+  }
+
+  /**
+   * Registers a parent waiting for the rows of the given key.
+   *
+   * @return {@code false} when the statement of that key differs from the batched one, e.g. because of dynamic SQL
+   */
+  boolean add(BoundSql boundSql, Object key, MetaObject parent) {
+    if (!templateSql.equals(boundSql.getSql())) {
+      return false;
+    }
+    parents.computeIfAbsent(normalizeKey(key), k -> new PendingKey(key)).parents.add(parent);
+    return true;
+  }
+
+  /**
+   * Runs the nested statement for the registered keys, {@code batchSize} keys at a time,
+   * and sets the results to the parents.
+   */
+  void load() throws SQLException {
+    List<PendingKey> keys = new ArrayList<>(parents.values());
+    int batchSize = propertyMapping.getBatchSize();
+    try {
+      for (int from = 0; from < keys.size(); from += batchSize) {
+        List<PendingKey> chunk = keys.subList(from, Math.min(from + batchSize, keys.size()));
+        if (keyColumnMissing) {
+          loadOneByOne(chunk);
+          continue;
+        }
+        rows = new LinkedHashMap<>();
+        try {
+          BoundSql boundSql = boundSql(chunk);
+          CacheKey cacheKey = executor.createCacheKey(nestedQuery, null, RowBounds.DEFAULT, boundSql);
+          executor.query(nestedQuery, null, RowBounds.DEFAULT, this, cacheKey, boundSql);
+          if (keyColumnMissing) {
+            loadOneByOne(chunk);
+            continue;
+          }
+          for (PendingKey key : chunk) {
+            List<Object> keyRows = rows.getOrDefault(key.normalized, Collections.emptyList());
+            for (MetaObject parent : key.parents) {
+              linkRows(parent, new ArrayList<>(keyRows));
+            }
+          }
+        } finally {
+          rows = null;
+        }
+      }
+    } finally {
+      parents.clear();
+    }
+  }
+
+  private void loadOneByOne(List<PendingKey> keys) throws SQLException {
+    for (PendingKey key : keys) {
+      List<Object> keyRows = executor.query(nestedQuery, key.value, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      for (MetaObject parent : key.parents) {
+        linkRows(parent, new ArrayList<>(keyRows));
+      }
+    }
+  }
+
+  private BoundSql boundSql(List<PendingKey> keys) {
+    List<ParameterMapping> parameterMappings = new ArrayList<>(keys.size());
+    for (int i = 0; i < keys.size(); i++) {
+      parameterMappings.add(new ParameterMapping.Builder(configuration, PARAMETER_PREFIX + i, keyParameterMapping.getTypeHandler())
+          .javaType(keyParameterMapping.getJavaType())
+          .jdbcType(keyParameterMapping.getJdbcType())
+          .build());
+    }
+    BoundSql boundSql = new BoundSql(configuration, condition.sql(keys.size()), parameterMappings, null);
+    for (int i = 0; i < keys.size(); i++) {
+      boundSql.setAdditionalParameter(PARAMETER_PREFIX + i, keys.get(i).value);
+    }
+    return boundSql;
+  }
+
+  private void linkRows(MetaObject parent, List<Object> keyRows) {
+    String property = propertyMapping.getProperty();
+    Object value = resultExtractor.extractObjectFromList(keyRows, propertyMapping.getJavaType());
+    if (value != null || (configuration.isCallSettersOnNulls() && !parent.getSetterType(property).isPrimitive())) {
+      parent.setValue(property, value);
+    }
+  }
+
+  /**
+   * Collects a row of the running query, the result set still points to it.
+   */
+  void handleRow(ResultSet rs, Object rowValue) throws SQLException {
+    if (!keyColumnChecked) {
+      keyColumnMissing = !hasColumn(rs.getMetaData(), keyColumn);
+      keyColumnChecked = true;
+    }
+    if (keyColumnMissing) {
+      return;
+    }
+    Object key = keyTypeHandler.getResult(rs, keyColumn);
+    rows.computeIfAbsent(normalizeKey(key), k -> new ArrayList<>()).add(rowValue);
+  }
+
+  private static boolean hasColumn(ResultSetMetaData metaData, String column) throws SQLException {
+    for (int i = 1, n = metaData.getColumnCount(); i <= n; i++) {
+      if (column.equalsIgnoreCase(metaData.getColumnLabel(i)) || column.equalsIgnoreCase(metaData.getColumnName(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the value keys are compared by: integral and decimal numbers as a {@link BigDecimal} without trailing
+   * zeros, any other value as is.
+   */
+  static Object normalizeKey(Object key) {
+    BigDecimal value;
+    if (key instanceof Integer || key instanceof Long || key instanceof Short || key instanceof Byte) {
+      value = BigDecimal.valueOf(((Number) key).longValue());
+    } else if (key instanceof BigInteger) {
+      value = new BigDecimal((BigInteger) key);
+    } else if (key instanceof BigDecimal) {
+      value = (BigDecimal) key;
+    } else {
+      return key;
+    }
+    return value.signum() == 0 ? BigDecimal.ZERO : value.stripTrailingZeros();
+  }
+
+  @Override
+  public void handleResult(ResultContext<?> resultContext) {
+    throw new UnsupportedOperationException("Rows of a nested query batch are collected with their key column");
+  }
+
+  private static final class PendingKey {
+
+    private final Object value;
+    private final Object normalized;
+    private final List<MetaObject> parents = new ArrayList<>();
+
+    private PendingKey(Object value) {
+      this.value = value;
+      this.normalized = normalizeKey(value);
+    }
+  }
+
+  /**
+   * The {@code column = ?} condition of a statement, split around the placeholder.
+   */
+  static final class KeyCondition {
+
+    private final String head;
+    private final String tail;
+    private final String column;
+
+    private KeyCondition(String head, String tail, String column) {
+      this.head = head;
+      this.tail = tail;
+      this.column = column;
+    }
+
+    /**
+     * Returns the condition of a statement holding one placeholder compared with {@code =} to a column,
+     * or {@code null} for any other statement. The condition has to be one of the top level conditions
+     * of the {@code WHERE} clause joined with {@code AND}, and the statement must neither limit, group
+     * nor combine its rows.
+     */
+    static KeyCondition parse(String sql) {
+      List<int[]> tokens = tokenize(sql);
+      if (tokens == null) {
+        return null;
+      }
+      int placeholder = -1;
+      for (int i = 0; i < tokens.size(); i++) {
+        String token = token(sql, tokens, i);
+        if ("?".equals(token)) {
+          if (placeholder >= 0) {
+            return null;
+          }
+          placeholder = i;
+        } else if (UNSAFE_KEYWORDS.contains(token.toLowerCase(Locale.ENGLISH))) {
+          return null;
+        }
+      }
+      if (placeholder < 3 || !"=".equals(token(sql, tokens, placeholder - 1))) {
+        return null;
+      }
+      String column = token(sql, tokens, placeholder - 2);
+      char first = column.charAt(0);
+      if (!Character.isLetter(first) && first != '_' && first != '"' && first != '`' && first != '[') {
+        // <=, >=, != or an expression
+        return null;
+      }
+      String before = token(sql, tokens, placeholder - 3).toLowerCase(Locale.ENGLISH);
+      String after = placeholder + 1 < tokens.size() ? token(sql, tokens, placeholder + 1).toLowerCase(Locale.ENGLISH) : "and";
+      if (!"where".equals(before) && !"and".equals(before) || !"and".equals(after) && !"order".equals(after)) {
+        return null;
+      }
+      int columnEnd = tokens.get(placeholder - 2)[1];
+      String tail = sql.substring(tokens.get(placeholder)[1]);
+      column = column.substring(column.lastIndexOf('.') + 1).replaceAll("[\"`\\[\\]]", "");
+      if (column.isEmpty()) {
+        return null;
+      }
+      return new KeyCondition(sql.substring(0, columnEnd), tail, column);
+    }
+
+    /**
+     * Returns the start and end of the tokens outside of parentheses: identifiers, string literals and single
+     * characters. Returns {@code null} when a placeholder is nested, e.g. in a subquery, or for comments.
+     */
+    private static List<int[]> tokenize(String sql) {
+      List<int[]> tokens = new ArrayList<>();
+      int length = sql.length();
+      int depth = 0;
+      for (int i = 0; i < length; i++) {
+        char c = sql.charAt(i);
+        char next = i + 1 < length ? sql.charAt(i + 1) : 0;
+        int start = i;
+        if (Character.isWhitespace(c)) {
+          continue;
+        } else if (c == '-' && next == '-' || c == '/' && next == '*') {
+          // comments are not worth the trouble
+          return null;
+        } else if (c == '(' || c == ')') {
+          depth += c == '(' ? 1 : -1;
+          if (depth < 0) {
+            return null;
+          }
+          continue;
+        } else if (c == '?' && depth > 0) {
+          return null;
+        } else if (c == '\'') {
+          i = sql.indexOf('\'', i + 1);
+          if (i < 0) {
+            return null;
+          }
+        } else if (isColumnChar(c)) {
+          while (i < length && isColumnChar(sql.charAt(i))) {
+            char d = sql.charAt(i);
+            if (d == '"' || d == '`' || d == '[') {
+              i = sql.indexOf(d == '[' ? ']' : d, i + 1);
+              if (i < 0) {
+                return null;
+              }
+            }
+            i++;
+          }
+          i--;
+        }
+        if (depth == 0) {
+          tokens.add(new int[] { start, i + 1 });
+        }
+      }
+      return depth == 0 ? tokens : null;
+    }
+
+    private static String token(String sql, List<int[]> tokens, int index) {
+      int[] token = tokens.get(index);
+      return sql.substring(token[0], token[1]);
+    }
+
+    private static boolean isColumnChar(char c) {
+      return Character.isLetterOrDigit(c) || c == '_' || c == '.' || c == '$' || c == '"' || c == '`' || c == '[' || c == ']';
+    }
+
+    String getColumn() {
+      return column;
+    }
+
+    /**
+     * Returns the statement matching any of the given number of keys.
+     */
+    String sql(int keys) {
+      StringBuilder builder = new StringBuilder(head.length() + tail.length() + 6 + keys * 3);
+      builder.append(head).append(" IN (");
+      for (int i = 0; i < keys; i++) {
+        if (i > 0) {
+          builder.append(", ");
+        }
+        builder.append('?');
+      }
+      return builder.append(')').append(tail).toString();
+    }
+  }
+
+}
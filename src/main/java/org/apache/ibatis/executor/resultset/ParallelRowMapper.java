@@ -0,0 +1,211 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.ibatis.executor.ExecutorException;
+
+/**
+ * Maps the rows of a result set with a {@link CompiledRowMapper} on several threads.
+ * <p>
+ * The thread running the statement reads the rows in batches into reusable buffers, since neither the result set
+ * nor the type handlers reading it may be used concurrently. Worker threads create and populate the result objects
+ * of each batch. The thread running the statement hands the results over, in the order of the rows if required,
+ * otherwise batch by batch as they are mapped. The number of batches in flight is bounded, so a slow consumer
+ * stops the reading of the result set.
+ *
+ * @since 3.5.4
+ */
+final class ParallelRowMapper {
+
+  static final int BATCH_SIZE = 256;
+
+  private final CompiledRowMapper rowMapper;
+  private final Executor executor;
+  private final boolean ordered;
+  private final int maxBatchesInFlight;
+  private final Deque<Batch> inFlight = new ArrayDeque<>();
+  private final Deque<Batch> free = new ArrayDeque<>();
+  //todo 无序交付时，按映射完成的顺序记录批次
+  private final BlockingQueue<Batch> mapped = new LinkedBlockingQueue<>();
+
+  ParallelRowMapper(CompiledRowMapper rowMapper, Executor executor, int parallelism, boolean ordered) {
+    this.rowMapper = rowMapper;
+    this.executor = executor;
+    this.ordered = ordered;
+    this.maxBatchesInFlight = Math.max(1, parallelism) * 2;
+  }
+
+  @FunctionalInterface
+  interface RowValueHandler {
+    /**
+     * Hands over the value of a row, and returns whether more rows are wanted.
+     */
+    boolean handle(Object rowValue) throws SQLException;
+  }
+
+  /**
+   * Maps the remaining rows of the result set, up to the given number of rows.
+   */
+  void mapRows(ResultSet rs, int limit, RowValueHandler handler) throws SQLException {
+    int remaining = limit;
+    boolean wanted = true;
+    try {
+      while (wanted && remaining > 0 && !rs.isClosed()) {
+        Batch batch = free.isEmpty() ? new Batch() : free.pop();
+        while (batch.size < BATCH_SIZE && batch.size < remaining && rs.next()) {
+          rowMapper.read(rs, batch.rows[batch.size]);
+          batch.size++;
+        }
+        remaining -= batch.size;
+        if (batch.size == 0) {
+          free.push(batch);
+          break;
+        }
+        boolean lastBatch = batch.size < BATCH_SIZE;
+        if (lastBatch && inFlight.isEmpty()) {
+          //todo 结果集不足一个批次时，直接在当前线程映射
+          batch.run();
+          wanted = deliver(batch, handler);
+          break;
+        }
+        try {
+          executor.execute(batch);
+        } catch (RejectedExecutionException e) {
+          //todo 线程池拒绝了批次时，直接在当前线程映射
+          batch.run();
+        }
+        inFlight.add(batch);
+        while (wanted && inFlight.size() >= maxBatchesInFlight) {
+          wanted = deliver(nextMappedBatch(), handler);
+        }
+        if (lastBatch) {
+          break;
+        }
+      }
+      while (wanted && !inFlight.isEmpty()) {
+        wanted = deliver(nextMappedBatch(), handler);
+      }
+    } finally {
+      //todo 等待仍在映射的批次结束，避免工作线程继续使用缓冲区
+      for (Batch batch : inFlight) {
+        batch.awaitMapped();
+      }
+      inFlight.clear();
+      mapped.clear();
+    }
+  }
+
+  private Batch nextMappedBatch() {
+    Batch batch;
+    if (ordered) {
+      batch = inFlight.peekFirst();
+    } else {
+      try {
+        batch = mapped.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new ExecutorException("Interrupted while mapping rows in parallel.", e);
+      }
+    }
+    batch.awaitMapped();
+    inFlight.remove(batch);
+    return batch;
+  }
+
+  private boolean deliver(Batch batch, RowValueHandler handler) throws SQLException {
+    try {
+      if (batch.failure != null) {
+        if (batch.failure instanceof RuntimeException) {
+          throw (RuntimeException) batch.failure;
+        } else if (batch.failure instanceof Error) {
+          throw (Error) batch.failure;
+        }
+        throw new ExecutorException("Error mapping rows in parallel. Cause: " + batch.failure, batch.failure);
+      }
+      for (int i = 0; i < batch.size; i++) {
+        if (!handler.handle(batch.results[i])) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      batch.reset();
+      free.push(batch);
+    }
+  }
+
+  private final class Batch implements Runnable {
+
+    private final Object[][] rows = new Object[BATCH_SIZE][rowMapper.getColumnCount()];
+    private final Object[] results = new Object[BATCH_SIZE];
+    private int size;
+    private boolean done;
+    private Throwable failure;
+
+    @Override
+    public void run() {
+      try {
+        for (int i = 0; i < size; i++) {
+          results[i] = rowMapper.build(rows[i]);
+        }
+      } catch (Throwable t) {
+        failure = t;
+      } finally {
+        synchronized (this) {
+          done = true;
+          notifyAll();
+        }
+        if (!ordered) {
+          mapped.add(this);
+        }
+      }
+    }
+
+    synchronized void awaitMapped() {
+      boolean interrupted = false;
+      while (!done) {
+        try {
+          wait();
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    void reset() {
+      for (int i = 0; i < size; i++) {
+        results[i] = null;
+      }
+      size = 0;
+      done = false;
+      failure = null;
+    }
+
+  }
+
+}
@@ -43,22 +43,29 @@ public class ResultSetWrapper {
   //todo 底层封装的 ResultSet
   private final ResultSet resultSet;
   private final TypeHandlerRegistry typeHandlerRegistry;
+  //todo Configuration级别的映射计划缓存，相同列签名的结果集共享映射的列名和TypeHandler
+  private final MappingPlanCache mappingPlanCache;
   //todo 记录ResultSet中每列的列名
   private final List<String> columnNames = new ArrayList<>();
   //todo 记录ResultSet中每列对应的Java类型
   private final List<String> classNames = new ArrayList<>();
   //todo 记录ResultSet中每列对应的JdbcType类型
   private final List<JdbcType> jdbcTypes = new ArrayList<>();
+  //todo 记录了列名对应的列索引，key是映射中使用的列名，value是从1开始的列索引，-1表示没有该列
+  private final Map<String, Integer> columnIndexes = new HashMap<>();
   //todo 记录了每列对应的TypeHandler对象，key是列名，value是TypeHandler集合
   private final Map<String, Map<Class<?>, TypeHandler<?>>> typeHandlerMap = new HashMap<>();
   //todo 记录了被映射的列名，其中key是ResultMap对象的id,value是该ResultMap对象映射的列名集合
   private final Map<String, List<String>> mappedColumnNamesMap = new HashMap<>();
   //todo 记录了未被映射的列名，其中key是ResultMap对象的id,value是该ResultMap对像未映射的列名集合
   private final Map<String, List<String>> unMappedColumnNamesMap = new HashMap<>();
+  //todo 由列名、JdbcType和Java类型组成的列签名，第一次使用时生成
+  private String columnSignature;
 
   public ResultSetWrapper(ResultSet rs, Configuration configuration) throws SQLException {
     super();
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
+    this.mappingPlanCache = configuration.getMappingPlanCache();
     this.resultSet = rs;
     //todo 获取ResultSet的元信息
     final ResultSetMetaData metaData = rs.getMetaData();
@@ -88,6 +95,46 @@ public class ResultSetWrapper {
     return jdbcTypes;
   }
 
+  /**
+   * Returns the index of the first column with the name, ignoring case like {@link ResultSet#findColumn(String)}.
+   * The name is resolved once per result set, so that values can be read by index on every row.
+   *
+   * @param columnName the column name, as used in a mapping
+   * @return the index of the column, starting at 1, or {@code -1} if there is no such column
+   * @since 3.5.4
+   */
+  public int getColumnIndex(String columnName) {
+    Integer index = columnIndexes.get(columnName);
+    if (index == null) {
+      index = -1;
+      for (int i = 0; i < columnNames.size(); i++) {
+        if (columnNames.get(i).equalsIgnoreCase(columnName)) {
+          index = i + 1;
+          break;
+        }
+      }
+      columnIndexes.put(columnName, index);
+    }
+    return index;
+  }
+
+  /**
+   * Returns a signature of the column names, JDBC types and class names of the result set.
+   * Result sets with the same signature can be mapped with the same plans.
+   *
+   * @since 3.5.4
+   */
+  public String getColumnSignature() {
+    if (columnSignature == null) {
+      StringBuilder signature = new StringBuilder();
+      for (int i = 0; i < columnNames.size(); i++) {
+        signature.append(columnNames.get(i)).append('/').append(jdbcTypes.get(i)).append('/').append(classNames.get(i)).append(';');
+      }
+      columnSignature = signature.toString();
+    }
+    return columnSignature;
+  }
+
   public JdbcType getJdbcType(String columnName) {
     for (int i = 0 ; i < columnNames.size(); i++) {
       if (columnNames.get(i).equalsIgnoreCase(columnName)) {
@@ -116,6 +163,12 @@ public class ResultSetWrapper {
       handler = columnHandlers.get(propertyType);
     }
     if (handler == null) {
+      final String planKey = getColumnSignature() + '|' + columnName + ':' + propertyType.getName();
+      handler = mappingPlanCache.getTypeHandler(planKey);
+      if (handler != null) {
+        columnHandlers.put(propertyType, handler);
+        return handler;
+      }
       JdbcType jdbcType = getJdbcType(columnName);
       handler = typeHandlerRegistry.getTypeHandler(propertyType, jdbcType);
       // Replicate logic of UnknownTypeHandler#resolveTypeHandler
@@ -135,6 +188,7 @@ public class ResultSetWrapper {
         handler = new ObjectTypeHandler();
       }
       columnHandlers.put(propertyType, handler);
+      mappingPlanCache.putTypeHandler(planKey, handler);
     }
     return handler;
   }
@@ -152,9 +206,18 @@ public class ResultSetWrapper {
   }
   //todo
   private void loadMappedAndUnmappedColumnNames(ResultMap resultMap, String columnPrefix) throws SQLException {
+    //todo 先从Configuration级别的缓存中查找相同列签名的结果集已经计算过的列名集合
+    final String planKey = getColumnSignature() + '|' + getMapKey(resultMap, columnPrefix);
+    List<String> mappedColumnNames = mappingPlanCache.getMappedColumnNames(planKey);
+    List<String> unmappedColumnNames = mappingPlanCache.getUnmappedColumnNames(planKey);
+    if (mappedColumnNames != null && unmappedColumnNames != null) {
+      mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), mappedColumnNames);
+      unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
+      return;
+    }
     //todo mappedColumnNames和unMappedColumnNames分别记录ResultMap中映射的列名和未映射的列名
-    List<String> mappedColumnNames = new ArrayList<>();
-    List<String> unmappedColumnNames = new ArrayList<>();
+    mappedColumnNames = new ArrayList<>();
+    unmappedColumnNames = new ArrayList<>();
     //todo resultMap中定义的列名加上前缀，得到实际映射的列名
     final String upperColumnPrefix = columnPrefix == null ? null : columnPrefix.toUpperCase(Locale.ENGLISH);
     final Set<String> mappedColumns = prependPrefixes(resultMap.getMappedColumns(), upperColumnPrefix);
@@ -168,8 +231,11 @@ public class ResultSetWrapper {
     }
     //todo 将ResultMap的Id和前缀组成key，将ResultMap映射的列名及未映射的列名保存到
     // mappedColumnNamesMap 和unMappedColumnNamesMap中
+    mappedColumnNames = Collections.unmodifiableList(mappedColumnNames);
+    unmappedColumnNames = Collections.unmodifiableList(unmappedColumnNames);
     mappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), mappedColumnNames);
     unMappedColumnNamesMap.put(getMapKey(resultMap, columnPrefix), unmappedColumnNames);
+    mappingPlanCache.putColumnNames(planKey, mappedColumnNames, unmappedColumnNames);
   }
 
   //todo 返回指定ResultMap对象中明确映射的列名集合，同时会将该列名集合记录到mappedColumnNamesMap
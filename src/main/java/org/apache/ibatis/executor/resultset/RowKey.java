@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+
+import org.apache.ibatis.reflection.ArrayUtil;
+
+/**
+ * Identifies the object a row maps to with a nested result map: the result map, the values of its key columns and
+ * the key of the parent object.
+ * <p>
+ * Unlike a {@link org.apache.ibatis.cache.CacheKey}, a row key holds its values in an array of the exact size with
+ * a precomputed hash, and is combined with its parent by reference instead of by copy.
+ *
+ * @since 3.5.4
+ */
+final class RowKey {
+
+  /**
+   * The key of rows that have no value in their key columns, which are never shared.
+   */
+  static final RowKey NULL = new RowKey(null, new Object[0], 0);
+
+  private final RowKey parent;
+  private final Object[] values;
+  private final int hash;
+
+  private RowKey(RowKey parent, Object[] values, int hash) {
+    this.parent = parent;
+    this.values = values;
+    this.hash = hash;
+  }
+
+  /**
+   * Returns the key of a nested object within its parent, or {@link #NULL} if either key is {@link #NULL}.
+   */
+  RowKey combine(RowKey parentKey) {
+    if (this == NULL || parentKey == NULL) {
+      return NULL;
+    }
+    return new RowKey(parentKey, values, 31 * hash + parentKey.hash);
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof RowKey)) {
+      return false;
+    }
+    RowKey that = (RowKey) o;
+    if (hash != that.hash || values.length != that.values.length) {
+      return false;
+    }
+    for (int i = 0; i < values.length; i++) {
+      if (!ArrayUtil.equals(values[i], that.values[i])) {
+        return false;
+      }
+    }
+    return parent == null ? that.parent == null : parent.equals(that.parent);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public String toString() {
+    return parent == null ? Arrays.toString(values) : parent + ":" + Arrays.toString(values);
+  }
+
+  /**
+   * Collects the values of a row key. A builder is reused for every key of a result set, so that only the key itself
+   * is allocated for each row.
+   */
+  static final class Builder {
+
+    private Object[] buffer = new Object[8];
+    private int size;
+    private int hash;
+
+    Builder start(String resultMapId) {
+      size = 0;
+      hash = 17;
+      append(resultMapId);
+      return this;
+    }
+
+    void add(String column, Object value) {
+      append(column);
+      append(value);
+    }
+
+    /**
+     * Returns the key of the collected values, or {@link #NULL} if no column was added.
+     */
+    RowKey build() {
+      if (size < 2) {
+        return NULL;
+      }
+      return new RowKey(null, Arrays.copyOf(buffer, size), hash);
+    }
+
+    private void append(Object value) {
+      if (size == buffer.length) {
+        buffer = Arrays.copyOf(buffer, size * 2);
+      }
+      buffer[size++] = value;
+      hash = 37 * hash + (value == null ? 1 : ArrayUtil.hashCode(value));
+    }
+
+  }
+
+}
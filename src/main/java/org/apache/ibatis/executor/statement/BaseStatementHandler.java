@@ -22,11 +22,14 @@ import java.sql.Statement;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.SingleResultRowBounds;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.factory.ObjectFactory;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
@@ -100,6 +103,8 @@ public abstract class BaseStatementHandler implements StatementHandler {
       setStatementTimeout(statement, transactionTimeout);
       //todo 给statement对象设置fetchSize
       setFetchSize(statement);
+      //todo RowBounds限制了返回的行数时，同时限制数据库返回的行数
+      setMaxRows(statement);
       return statement;
     } catch (SQLException e) {
       closeStatement(statement);
@@ -123,6 +128,7 @@ public abstract class BaseStatementHandler implements StatementHandler {
       stmt.setQueryTimeout(queryTimeout);
     }
     StatementUtil.applyTransactionTimeout(stmt, queryTimeout, transactionTimeout);
+    StatementUtil.applyDeadline(stmt);
   }
 
   protected void setFetchSize(Statement stmt) throws SQLException {
@@ -137,6 +143,29 @@ public abstract class BaseStatementHandler implements StatementHandler {
     }
   }
 
+  /**
+   * Lets the database stop after the rows the {@link RowBounds} need, when each row maps to one result object.
+   *
+   * @since 3.5.4
+   */
+  protected void setMaxRows(Statement stmt) throws SQLException {
+    if (rowBounds == null || SingleResultRowBounds.resultLimit(rowBounds) == RowBounds.NO_ROW_LIMIT
+        || mappedStatement.getSqlCommandType() != SqlCommandType.SELECT
+        || mappedStatement.getStatementType() == StatementType.CALLABLE
+        || mappedStatement.hasNestedResultMaps() || mappedStatement.getResultMaps().size() > 1) {
+      return;
+    }
+    long maxRows = (long) rowBounds.getOffset() + SingleResultRowBounds.resultLimit(rowBounds);
+    if (maxRows > Integer.MAX_VALUE) {
+      return;
+    }
+    stmt.setMaxRows((int) maxRows);
+    Integer fetchSize = mappedStatement.getFetchSize() != null ? mappedStatement.getFetchSize() : configuration.getDefaultFetchSize();
+    if (fetchSize == null || fetchSize > maxRows) {
+      stmt.setFetchSize((int) maxRows);
+    }
+  }
+
   protected void closeStatement(Statement statement) {
     try {
       if (statement != null) {
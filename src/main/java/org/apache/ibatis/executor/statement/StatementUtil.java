@@ -16,8 +16,11 @@
 package org.apache.ibatis.executor.statement;
 
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.sql.Statement;
 
+import org.apache.ibatis.session.Deadline;
+
 /**
  * Utility for {@link java.sql.Statement}.
  *
@@ -49,4 +52,31 @@ public class StatementUtil {
     }
   }
 
+  /**
+   * Apply the deadline of the current thread.
+   * <p>
+   * Lower the query timeout to the remaining time, rounded up to seconds, and cancel the statement
+   * if it is still running when the deadline passes.
+   * </p>
+   * @param statement a target statement
+   * @throws SQLException if the deadline has already passed or a database access error occurs
+   * @since 3.5.4
+   */
+  public static void applyDeadline(Statement statement) throws SQLException {
+    Deadline deadline = Deadline.current();
+    if (deadline == null) {
+      return;
+    }
+    if (deadline.isExpired()) {
+      throw new SQLTimeoutException("The deadline has passed before the statement was executed");
+    }
+    long remaining = deadline.remainingMillis();
+    int timeout = (int) Math.min(Integer.MAX_VALUE, (remaining + 999) / 1000);
+    int queryTimeout = statement.getQueryTimeout();
+    if (queryTimeout == 0 || timeout < queryTimeout) {
+      statement.setQueryTimeout(Math.max(timeout, 1));
+    }
+    deadline.register(statement);
+  }
+
 }
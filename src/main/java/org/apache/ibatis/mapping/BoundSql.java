@@ -54,6 +54,18 @@ public class BoundSql {
     this.metaParameters = configuration.newMetaObject(additionalParameters);
   }
 
+  /**
+   * Creates a bound SQL with another SQL and parameter mappings that shares the parameter object
+   * and a copy of the additional parameters of this one.
+   *
+   * @since 3.5.4
+   */
+  public BoundSql copy(Configuration configuration, String sql, List<ParameterMapping> parameterMappings) {
+    BoundSql copy = new BoundSql(configuration, sql, parameterMappings, parameterObject);
+    copy.additionalParameters.putAll(additionalParameters);
+    return copy;
+  }
+
   public String getSql() {
     return sql;
   }
@@ -24,11 +24,14 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.CacheSnapshotManager;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.DeepCopyCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SnapshotCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.reflection.MetaObject;
@@ -51,10 +54,12 @@ public class CacheBuilder {
   private Long clearInterval;
   //todo 是否可读写
   private boolean readWrite;
+  private CacheCopyStrategy copyStrategy = CacheCopyStrategy.SERIALIZATION;
   //todo 其他配置信息
   private Properties properties;
   //todo 是否阻塞
   private boolean blocking;
+  private CacheSnapshotManager snapshotManager;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -88,11 +93,30 @@ public class CacheBuilder {
     return this;
   }
 
+  /**
+   * @since 3.5.4
+   */
+  public CacheBuilder copyStrategy(CacheCopyStrategy copyStrategy) {
+    if (copyStrategy != null) {
+      this.copyStrategy = copyStrategy;
+    }
+    return this;
+  }
+
   public CacheBuilder blocking(boolean blocking) {
     this.blocking = blocking;
     return this;
   }
 
+  /**
+   * Registers the built cache so that its contents are persisted by the given manager.
+   * @since 3.5.4
+   */
+  public CacheBuilder snapshotManager(CacheSnapshotManager snapshotManager) {
+    this.snapshotManager = snapshotManager;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -105,8 +129,15 @@ public class CacheBuilder {
     Cache cache = newBaseCacheInstance(implementation, id);
     //todo 根据cache节点下配置的<property>来初始化Cache对象
     setCacheProperties(cache);
+    Class<? extends Cache> baseClass = cache.getClass();
+    //todo 开启了缓存快照时，由SnapshotCache直接装饰底层缓存，记录其中的key(被淘汰的key也会随之移除)
+    SnapshotCache snapshotCache = null;
+    if (snapshotManager != null) {
+      snapshotCache = new SnapshotCache(cache);
+      cache = snapshotCache;
+    }
     // todo 检测cache对象的类型，如果是PerpetualCache类型，则为其添加到 decorations集合中
-    if (PerpetualCache.class.equals(cache.getClass())) {
+    if (PerpetualCache.class.equals(baseClass)) {
       for (Class<? extends Cache> decorator : decorators) {
         //todo 也就是将底层缓存类，放入到装饰器中，并实例化出来对应的缓存器
         cache = newCacheDecoratorInstance(decorator, cache);
@@ -115,10 +146,13 @@ public class CacheBuilder {
       }
       //todo 添加mybatis中提供的标准装饰器
       cache = setStandardDecorators(cache);
-    } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
+    } else if (!LoggingCache.class.isAssignableFrom(baseClass)) {
       //todo  如果不是Logging的子类，则添加LoggingCache装饰器，也就是LoggingCache装饰了自定义的cache
       cache = new LoggingCache(cache);
     }
+    if (snapshotCache != null) {
+      snapshotManager.register(cache, snapshotCache);
+    }
     return cache;
   }
 
@@ -146,7 +180,7 @@ public class CacheBuilder {
       }
       //todo 是否只读，对应添加SerializedCache
       if (readWrite) {
-        cache = new SerializedCache(cache);
+        cache = copyStrategy == CacheCopyStrategy.REFLECTION ? new DeepCopyCache(cache) : new SerializedCache(cache);
       }
       //todo  默认添加 LoggingCache 和SynchronizedCache
       cache = new LoggingCache(cache);
@@ -48,12 +48,16 @@ public final class MappedStatement {
   //todo SqlSource对象，对应一条SQL语句
   private SqlSource sqlSource;
   private Cache cache;
+  private Cache negativeCache;
   private ParameterMap parameterMap;
   //todo mapper配置文件中 配置的<resultMap>节点解析后存储的地方
   private List<ResultMap> resultMaps;
   private boolean flushCacheRequired;
   private boolean useCache;
   private boolean resultOrdered;
+  private boolean identityLookup;
+  //todo 游标在后台线程上预读的对象个数，为null时不预读
+  private Integer cursorPrefetchSize;
   //todo SQL的类型，Insert,Select等
   private SqlCommandType sqlCommandType;
   private KeyGenerator keyGenerator;
@@ -137,6 +141,14 @@ public final class MappedStatement {
       return this;
     }
 
+    /**
+     * @since 3.5.4
+     */
+    public Builder negativeCache(Cache negativeCache) {
+      mappedStatement.negativeCache = negativeCache;
+      return this;
+    }
+
     public Builder flushCacheRequired(boolean flushCacheRequired) {
       mappedStatement.flushCacheRequired = flushCacheRequired;
       return this;
@@ -152,6 +164,22 @@ public final class MappedStatement {
       return this;
     }
 
+    /**
+     * @since 3.5.4
+     */
+    public Builder identityLookup(boolean identityLookup) {
+      mappedStatement.identityLookup = identityLookup;
+      return this;
+    }
+
+    /**
+     * @since 3.5.4
+     */
+    public Builder cursorPrefetchSize(Integer cursorPrefetchSize) {
+      mappedStatement.cursorPrefetchSize = cursorPrefetchSize;
+      return this;
+    }
+
     public Builder keyGenerator(KeyGenerator keyGenerator) {
       mappedStatement.keyGenerator = keyGenerator;
       return this;
@@ -257,6 +285,16 @@ public final class MappedStatement {
     return cache;
   }
 
+  /**
+   * Returns the cache of empty results of this statement.
+   *
+   * @return the negative result cache, or {@code null} if negative results are not cached
+   * @since 3.5.4
+   */
+  public Cache getNegativeCache() {
+    return negativeCache;
+  }
+
   public boolean isFlushCacheRequired() {
     return flushCacheRequired;
   }
@@ -269,6 +307,26 @@ public final class MappedStatement {
     return resultOrdered;
   }
 
+  /**
+   * Returns whether this statement looks an entity up by its id, so it can be answered from the
+   * identity cache of the session.
+   *
+   * @since 3.5.4
+   */
+  public boolean isIdentityLookup() {
+    return identityLookup;
+  }
+
+  /**
+   * Returns the number of objects a cursor of this statement reads ahead on a thread of the async executor,
+   * or {@code null} when it does not read ahead.
+   *
+   * @since 3.5.4
+   */
+  public Integer getCursorPrefetchSize() {
+    return cursorPrefetchSize;
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
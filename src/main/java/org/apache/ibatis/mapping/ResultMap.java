@@ -62,6 +62,8 @@ public class ResultMap {
   private boolean hasNestedQueries;
   //todo 是否启动自动映射
   private Boolean autoMapping;
+  //todo 是否将该ResultMap映射出的对象按照<id>记录到会话的实体标识缓存中
+  private boolean identityCache;
 
   private ResultMap() {
   }
@@ -88,6 +90,14 @@ public class ResultMap {
       return this;
     }
 
+    /**
+     * @since 3.5.4
+     */
+    public Builder identityCache(boolean identityCache) {
+      resultMap.identityCache = identityCache;
+      return this;
+    }
+
     public Class<?> type() {
       return resultMap.type;
     }
@@ -271,4 +281,13 @@ public class ResultMap {
     return autoMapping;
   }
 
+  /**
+   * Returns whether objects mapped by this result map are indexed by their id in the identity cache of a session.
+   *
+   * @since 3.5.4
+   */
+  public boolean isIdentityCache() {
+    return identityCache;
+  }
+
 }
@@ -62,6 +62,8 @@ public class ResultMapping {
   private String foreignColumn;
   //todo 是否延迟加载，对应节点的fetchType属性
   private boolean lazy;
+  //todo 嵌套查询一次加载的最大外键个数，对应节点的batchSize属性，0表示不批量加载
+  private int batchSize;
 
   ResultMapping() {
   }
@@ -149,6 +151,11 @@ public class ResultMapping {
       return this;
     }
 
+    public Builder batchSize(int batchSize) {
+      resultMapping.batchSize = batchSize;
+      return this;
+    }
+
     public ResultMapping build() {
       // lock down collections
       resultMapping.flags = Collections.unmodifiableList(resultMapping.flags);
@@ -268,6 +275,19 @@ public class ResultMapping {
     this.lazy = lazy;
   }
 
+  /**
+   * Returns the maximum number of keys the nested select loads at once, or 0 when it is run for each row.
+   *
+   * @since 3.5.4
+   */
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) {
@@ -311,6 +331,7 @@ public class ResultMapping {
     sb.append(", resultSet='").append(resultSet).append('\'');
     sb.append(", foreignColumn='").append(foreignColumn).append('\'');
     sb.append(", lazy=").append(lazy);
+    sb.append(", batchSize=").append(batchSize);
     sb.append('}');
     return sb.toString();
   }
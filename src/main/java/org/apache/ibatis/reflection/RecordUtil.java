@@ -0,0 +1,108 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.reflection;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads the components of record classes on runtimes that support them, without requiring them at compile time.
+ *
+ * @since 3.5.4
+ */
+public final class RecordUtil {
+
+  private static final Method IS_RECORD;
+  private static final Method GET_RECORD_COMPONENTS;
+  private static final Method GET_NAME;
+  private static final Method GET_TYPE;
+
+  static {
+    Method isRecord = null;
+    Method getRecordComponents = null;
+    Method getName = null;
+    Method getType = null;
+    try {
+      isRecord = Class.class.getMethod("isRecord");
+      getRecordComponents = Class.class.getMethod("getRecordComponents");
+      Class<?> recordComponent = getRecordComponents.getReturnType().getComponentType();
+      getName = recordComponent.getMethod("getName");
+      getType = recordComponent.getMethod("getType");
+    } catch (NoSuchMethodException e) {
+      // records are not supported by this runtime
+    }
+    IS_RECORD = isRecord;
+    GET_RECORD_COMPONENTS = getRecordComponents;
+    GET_NAME = getName;
+    GET_TYPE = getType;
+  }
+
+  private RecordUtil() {
+    super();
+  }
+
+  public static boolean isRecord(Class<?> type) {
+    if (IS_RECORD == null) {
+      return false;
+    }
+    try {
+      return (Boolean) IS_RECORD.invoke(type);
+    } catch (ReflectiveOperationException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Returns the names of the components of a record, in declaration order.
+   */
+  public static List<String> getComponentNames(Class<?> recordType) {
+    return components(recordType, GET_NAME);
+  }
+
+  /**
+   * Returns the canonical constructor of a record, whose parameters are the components in declaration order.
+   */
+  public static Constructor<?> getCanonicalConstructor(Class<?> recordType) {
+    List<Class<?>> types = components(recordType, GET_TYPE);
+    try {
+      return recordType.getDeclaredConstructor(types.toArray(new Class<?>[0]));
+    } catch (NoSuchMethodException e) {
+      throw new ReflectionException("Could not find the canonical constructor of " + recordType + ". Cause: " + e, e);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> List<T> components(Class<?> recordType, Method accessor) {
+    if (!isRecord(recordType)) {
+      throw new ReflectionException(recordType + " is not a record.");
+    }
+    try {
+      Object components = GET_RECORD_COMPONENTS.invoke(recordType);
+      int length = Array.getLength(components);
+      List<T> values = new ArrayList<>(length);
+      for (int i = 0; i < length; i++) {
+        values.add((T) accessor.invoke(Array.get(components, i)));
+      }
+      return values;
+    } catch (ReflectiveOperationException e) {
+      throw new ReflectionException("Could not read the components of " + recordType + ". Cause: " + e, e);
+    }
+  }
+
+}
@@ -67,11 +67,14 @@ public class Reflector {
   private Constructor<?> defaultConstructor;
   //todo 记录了所有属性名称的集合
   private Map<String, String> caseInsensitivePropertyMap = new HashMap<>();
+  //todo 是否为record类型，record的字段不能通过反射修改，只能通过标准构造方法赋值
+  private final boolean record;
 
   //todo 解析指定的Class对象
   public Reflector(Class<?> clazz) {
     //todo 初始化type字段，记录是对应的哪个class
     type = clazz;
+    record = RecordUtil.isRecord(clazz);
     //todo 查找clazz默认的构造方法（无参构造方法）。具体实现是通过反射遍历所有的构造方法
     addDefaultConstructor(clazz);
     //todo 处理clazz中的getter方法，填充getMethods集合和getTypes集合
@@ -252,7 +255,8 @@ public class Reflector {
         // modification of final fields through reflection (JSR-133). (JGB)
         // pr #16 - final static can only be set by the classloader
         int modifiers = field.getModifiers();
-        if (!(Modifier.isFinal(modifiers) && Modifier.isStatic(modifiers))) {
+        // the final fields of records cannot be set through reflection
+        if (!(Modifier.isFinal(modifiers) && (Modifier.isStatic(modifiers) || record))) {
           addSetField(field);
         }
       }
@@ -388,6 +392,14 @@ public class Reflector {
     return defaultConstructor != null;
   }
 
+  /**
+   * Returns whether the class is a record, whose components can only be set through its canonical constructor.
+   * @since 3.5.4
+   */
+  public boolean isRecord() {
+    return record;
+  }
+
   public Invoker getSetInvoker(String propertyName) {
     Invoker method = setMethods.get(propertyName);
     if (method == null) {
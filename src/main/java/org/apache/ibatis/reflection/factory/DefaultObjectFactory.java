@@ -16,6 +16,9 @@
 package org.apache.ibatis.reflection.factory;
 
 import java.io.Serializable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -28,8 +31,10 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
+import org.apache.ibatis.lang.UsesJava7;
 import org.apache.ibatis.reflection.ReflectionException;
 import org.apache.ibatis.reflection.Reflector;
 
@@ -40,6 +45,13 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
 
   private static final long serialVersionUID = -8855120656740914948L;
 
+  private static final MethodType DEFAULT_CONSTRUCTOR_TYPE = MethodType.methodType(Object.class);
+  private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+  //todo 缓存解析好的构造方法，避免每次创建对象时都查找构造方法并检查访问权限，反序列化后重新创建
+  private transient volatile Map<Class<?>, MethodHandle> defaultConstructors;
+  private transient volatile Map<Class<?>, Map<List<Class<?>>, MethodHandle>> constructors;
+
   @Override
   public <T> T create(Class<T> type) {
     return create(type, null, null);
@@ -53,34 +65,19 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
     return (T) instantiateClass(classToCreate, constructorArgTypes, constructorArgs);
   }
 
+  //todo invokeExact是签名多态方法，animal-sniffer无法按调用处的签名检查
+  @UsesJava7
+  @SuppressWarnings("unchecked")
   private  <T> T instantiateClass(Class<T> type, List<Class<?>> constructorArgTypes, List<Object> constructorArgs) {
     try {
-      Constructor<T> constructor;
       if (constructorArgTypes == null || constructorArgs == null) {
-        constructor = type.getDeclaredConstructor();
-        try {
-          return constructor.newInstance();
-        } catch (IllegalAccessException e) {
-          if (Reflector.canControlMemberAccessible()) {
-            constructor.setAccessible(true);
-            return constructor.newInstance();
-          } else {
-            throw e;
-          }
-        }
+        return (T) (Object) getDefaultConstructor(type).invokeExact();
       }
-      constructor = type.getDeclaredConstructor(constructorArgTypes.toArray(new Class[0]));
-      try {
-        return constructor.newInstance(constructorArgs.toArray(new Object[0]));
-      } catch (IllegalAccessException e) {
-        if (Reflector.canControlMemberAccessible()) {
-          constructor.setAccessible(true);
-          return constructor.newInstance(constructorArgs.toArray(new Object[0]));
-        } else {
-          throw e;
-        }
-      }
-    } catch (Exception e) {
+      return (T) (Object) getConstructor(type, constructorArgTypes).invokeExact(constructorArgs.toArray());
+    } catch (Error e) {
+      //todo invokeExact声明抛出Throwable，Error原样抛出，只包装构造方法抛出的异常
+      throw e;
+    } catch (Throwable e) {
       String argTypes = Optional.ofNullable(constructorArgTypes).orElseGet(Collections::emptyList)
           .stream().map(Class::getSimpleName).collect(Collectors.joining(","));
       String argValues = Optional.ofNullable(constructorArgs).orElseGet(Collections::emptyList)
@@ -89,6 +86,53 @@ public class DefaultObjectFactory implements ObjectFactory, Serializable {
     }
   }
 
+  //todo 获取无参构造方法对应的MethodHandle，第一次使用时解析并缓存
+  private MethodHandle getDefaultConstructor(Class<?> type) throws NoSuchMethodException, IllegalAccessException {
+    Map<Class<?>, MethodHandle> cache = defaultConstructors;
+    if (cache == null) {
+      cache = new ConcurrentHashMap<>();
+      defaultConstructors = cache;
+    }
+    MethodHandle handle = cache.get(type);
+    if (handle == null) {
+      handle = unreflect(type.getDeclaredConstructor()).asType(DEFAULT_CONSTRUCTOR_TYPE);
+      cache.put(type, handle);
+    }
+    return handle;
+  }
+
+  //todo 获取参数类型对应的构造方法的MethodHandle，参数以Object[]的形式传入
+  private MethodHandle getConstructor(Class<?> type, List<Class<?>> constructorArgTypes) throws NoSuchMethodException, IllegalAccessException {
+    Map<Class<?>, Map<List<Class<?>>, MethodHandle>> cache = constructors;
+    if (cache == null) {
+      cache = new ConcurrentHashMap<>();
+      constructors = cache;
+    }
+    Map<List<Class<?>>, MethodHandle> typeConstructors = cache.computeIfAbsent(type, k -> new ConcurrentHashMap<>());
+    MethodHandle handle = typeConstructors.get(constructorArgTypes);
+    if (handle == null) {
+      Class<?>[] parameterTypes = constructorArgTypes.toArray(new Class[0]);
+      handle = unreflect(type.getDeclaredConstructor(parameterTypes))
+          .asSpreader(Object[].class, parameterTypes.length)
+          .asType(CONSTRUCTOR_TYPE);
+      typeConstructors.put(new ArrayList<>(constructorArgTypes), handle);
+    }
+    return handle;
+  }
+
+  private static MethodHandle unreflect(Constructor<?> constructor) throws IllegalAccessException {
+    try {
+      return MethodHandles.lookup().unreflectConstructor(constructor);
+    } catch (IllegalAccessException e) {
+      if (Reflector.canControlMemberAccessible()) {
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor);
+      } else {
+        throw e;
+      }
+    }
+  }
+
   protected Class<?> resolveInterface(Class<?> type) {
     Class<?> classToCreate;
     if (type == List.class || type == Collection.class || type == Iterable.class) {
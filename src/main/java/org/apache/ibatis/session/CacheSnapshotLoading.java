@@ -0,0 +1,32 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * Specifies when a persisted 2nd level cache snapshot is loaded.
+ *
+ * @since 3.5.4
+ */
+public enum CacheSnapshotLoading {
+  /**
+   * Loads the snapshot when the first session is opened.
+   */
+  LAZY,
+  /**
+   * Loads the snapshot in a background thread as soon as the session factory is built.
+   */
+  BACKGROUND
+}
@@ -15,8 +15,11 @@
  */
 package org.apache.ibatis.session;
 
+import java.io.File;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -25,6 +28,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -34,6 +39,7 @@ import org.apache.ibatis.builder.ResultMapResolver;
 import org.apache.ibatis.builder.annotation.MethodResolver;
 import org.apache.ibatis.builder.xml.XMLStatementBuilder;
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheSnapshotManager;
 import org.apache.ibatis.cache.decorators.FifoCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
@@ -51,7 +57,14 @@ import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.pagination.LimitOffsetDialect;
+import org.apache.ibatis.executor.pagination.OffsetFetchDialect;
+import org.apache.ibatis.executor.pagination.Pagination;
+import org.apache.ibatis.executor.pagination.PaginationDialect;
+import org.apache.ibatis.executor.pagination.RownumDialect;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.resultset.CompiledRowMappers;
+import org.apache.ibatis.executor.resultset.MappingPlanCache;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
 import org.apache.ibatis.executor.resultset.ResultSetHandler;
 import org.apache.ibatis.executor.statement.RoutingStatementHandler;
@@ -87,6 +100,7 @@ import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.scripting.LanguageDriverRegistry;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.apache.ibatis.transaction.managed.ManagedTransactionFactory;
@@ -122,6 +136,27 @@ public class Configuration {
   protected Class<? extends Log> logImpl;
   protected Class<? extends VFS> vfsImpl;
   protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
+  protected Integer localCacheMaxEntries;
+  protected Integer localCacheMaxRows;
+  protected String cacheSnapshotDirectory;
+  protected Integer batchMaxStatements;
+  protected Integer batchMaxParameters;
+  protected Integer batchMaxBytes;
+  protected Set<String> batchGroupingNamespaces = new HashSet<>();
+  protected boolean rewriteBatchedInserts;
+  protected Integer rewriteBatchedInsertsMaxParameters;
+  protected volatile java.util.concurrent.Executor asyncExecutor;
+  protected volatile SqlSessionFactory asyncSessionFactory;
+  protected boolean databasePagination;
+  protected PaginationDialect paginationDialect;
+  protected boolean multiStatementQueries;
+  protected boolean parallelQueries;
+  protected boolean compileRowMappers;
+  protected boolean compactRowMaps;
+  protected boolean streamNestedResults;
+  protected boolean parallelRowMapping;
+  protected CacheSnapshotLoading cacheSnapshotLoading = CacheSnapshotLoading.LAZY;
+  protected CacheSnapshotManager cacheSnapshotManager;
   protected JdbcType jdbcTypeForNull = JdbcType.OTHER;
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
@@ -157,6 +192,8 @@ public class Configuration {
   protected final MapperRegistry mapperRegistry = new MapperRegistry(this);
   //todo 他记录了配置的插件类，作为拦截器链
   protected final InterceptorChain interceptorChain = new InterceptorChain();
+  protected final CompiledRowMappers compiledRowMappers = new CompiledRowMappers();
+  protected final MappingPlanCache mappingPlanCache = new MappingPlanCache();
   protected final TypeHandlerRegistry typeHandlerRegistry = new TypeHandlerRegistry(this);
   protected final TypeAliasRegistry typeAliasRegistry = new TypeAliasRegistry();
   protected final LanguageDriverRegistry languageRegistry = new LanguageDriverRegistry();
@@ -167,6 +204,8 @@ public class Configuration {
           ". please check " + savedValue.getResource() + " and " + targetValue.getResource());
   //todo 保存mapper文件中配置的cache节点，记录Cache的id(默认是映射文件的namespace)与Cache对象(二级缓存)之间的对应关系。
   protected final Map<String, Cache> caches = new StrictMap<>("Caches collection");
+  //todo 记录每个namespace(或其使用的cache的id)下各语句的负结果缓存，刷新该namespace的缓存时一并清空
+  protected final Map<String, List<Cache>> negativeCaches = new HashMap<>();
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
@@ -223,6 +262,10 @@ public class Configuration {
     typeAliasRegistry.registerAlias("STDOUT_LOGGING", StdOutImpl.class);
     typeAliasRegistry.registerAlias("NO_LOGGING", NoLoggingImpl.class);
 
+    typeAliasRegistry.registerAlias("LIMIT_OFFSET", LimitOffsetDialect.class);
+    typeAliasRegistry.registerAlias("OFFSET_FETCH", OffsetFetchDialect.class);
+    typeAliasRegistry.registerAlias("ROWNUM", RownumDialect.class);
+
     typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
     typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
 
@@ -481,6 +524,385 @@ public class Configuration {
     this.localCacheScope = localCacheScope;
   }
 
+  /**
+   * @since 3.5.4
+   */
+  public Integer getLocalCacheMaxEntries() {
+    return localCacheMaxEntries;
+  }
+
+  /**
+   * Set the maximum number of entries held by the local (first level) cache of a session.
+   * Least recently used entries are evicted beyond this bound. {@code null} means unbounded.
+   * @since 3.5.4
+   */
+  public void setLocalCacheMaxEntries(Integer localCacheMaxEntries) {
+    this.localCacheMaxEntries = localCacheMaxEntries;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public Integer getLocalCacheMaxRows() {
+    return localCacheMaxRows;
+  }
+
+  /**
+   * Set the maximum number of result objects held by the local (first level) cache of a session.
+   * Least recently used entries are evicted beyond this bound. {@code null} means unbounded.
+   * @since 3.5.4
+   */
+  public void setLocalCacheMaxRows(Integer localCacheMaxRows) {
+    this.localCacheMaxRows = localCacheMaxRows;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public String getCacheSnapshotDirectory() {
+    return cacheSnapshotDirectory;
+  }
+
+  /**
+   * Set the directory the 2nd level caches are persisted to when a session factory is closed,
+   * and restored from on startup. {@code null} disables cache snapshots.
+   * @since 3.5.4
+   */
+  public void setCacheSnapshotDirectory(String cacheSnapshotDirectory) {
+    this.cacheSnapshotDirectory = cacheSnapshotDirectory;
+    this.cacheSnapshotManager = cacheSnapshotDirectory == null ? null
+        : new CacheSnapshotManager(this, new File(cacheSnapshotDirectory));
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public CacheSnapshotLoading getCacheSnapshotLoading() {
+    return cacheSnapshotLoading;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public void setCacheSnapshotLoading(CacheSnapshotLoading cacheSnapshotLoading) {
+    this.cacheSnapshotLoading = cacheSnapshotLoading;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public CacheSnapshotManager getCacheSnapshotManager() {
+    return cacheSnapshotManager;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public Integer getBatchMaxStatements() {
+    return batchMaxStatements;
+  }
+
+  /**
+   * Set the number of statements queued by the batch executor after which the batch is executed
+   * automatically. {@code null} means the batch is only executed on flush or commit.
+   * @since 3.5.4
+   */
+  public void setBatchMaxStatements(Integer batchMaxStatements) {
+    this.batchMaxStatements = batchMaxStatements;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public Integer getBatchMaxParameters() {
+    return batchMaxParameters;
+  }
+
+  /**
+   * Set the number of bound parameters queued by the batch executor after which the batch is executed
+   * automatically. {@code null} means no limit.
+   * @since 3.5.4
+   */
+  public void setBatchMaxParameters(Integer batchMaxParameters) {
+    this.batchMaxParameters = batchMaxParameters;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public Integer getBatchMaxBytes() {
+    return batchMaxBytes;
+  }
+
+  /**
+   * Set the estimated size in bytes of the SQL and parameter values queued by the batch executor
+   * after which the batch is executed automatically. {@code null} means no limit.
+   * @since 3.5.4
+   */
+  public void setBatchMaxBytes(Integer batchMaxBytes) {
+    this.batchMaxBytes = batchMaxBytes;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public Set<String> getBatchGroupingNamespaces() {
+    return batchGroupingNamespaces;
+  }
+
+  /**
+   * Set the namespaces (or statement ids) whose statements the batch executor groups by SQL,
+   * keeping one open batch per distinct SQL even when calls are interleaved. {@code *} matches all statements.
+   * @since 3.5.4
+   */
+  public void setBatchGroupingNamespaces(Set<String> batchGroupingNamespaces) {
+    this.batchGroupingNamespaces = batchGroupingNamespaces;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public boolean isRewriteBatchedInserts() {
+    return rewriteBatchedInserts;
+  }
+
+  /**
+   * Set whether the batch executor rewrites consecutive single row inserts of the same statement
+   * into multi-row {@code INSERT ... VALUES (...), (...)} statements. Inserts of grouped statements (see
+   * {@link #setBatchGroupingNamespaces(Set)}) are also collapsed across other grouped statements.
+   * @since 3.5.4
+   */
+  public void setRewriteBatchedInserts(boolean rewriteBatchedInserts) {
+    this.rewriteBatchedInserts = rewriteBatchedInserts;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public Integer getRewriteBatchedInsertsMaxParameters() {
+    return rewriteBatchedInsertsMaxParameters;
+  }
+
+  /**
+   * Set the maximum number of parameters of a rewritten multi-row insert, i.e. the limit of the database.
+   * @since 3.5.4
+   */
+  public void setRewriteBatchedInsertsMaxParameters(Integer rewriteBatchedInsertsMaxParameters) {
+    this.rewriteBatchedInsertsMaxParameters = rewriteBatchedInsertsMaxParameters;
+  }
+
+  /**
+   * Returns the executor that runs mapper methods returning a {@code CompletableFuture}. Unless one is set,
+   * it runs every call on a virtual thread where the JVM offers them, otherwise on a cached pool of daemon threads.
+   * @since 3.5.4
+   */
+  public java.util.concurrent.Executor getAsyncExecutor() {
+    java.util.concurrent.Executor executor = asyncExecutor;
+    if (executor == null) {
+      synchronized (this) {
+        executor = asyncExecutor;
+        if (executor == null) {
+          executor = asyncExecutor = newDefaultAsyncExecutor();
+        }
+      }
+    }
+    return executor;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  /**
+   * Returns the factory of the sessions that asynchronous calls open, e.g. mapper methods returning
+   * a {@code CompletableFuture} or a {@code Flow.Publisher}. Unless one is set, a single
+   * {@link DefaultSqlSessionFactory} of this configuration is shared by all of them.
+   * @since 3.5.4
+   */
+  public SqlSessionFactory getAsyncSessionFactory() {
+    SqlSessionFactory sessionFactory = asyncSessionFactory;
+    if (sessionFactory == null) {
+      synchronized (this) {
+        sessionFactory = asyncSessionFactory;
+        if (sessionFactory == null) {
+          sessionFactory = asyncSessionFactory = new DefaultSqlSessionFactory(this);
+        }
+      }
+    }
+    return sessionFactory;
+  }
+
+  /**
+   * Set the factory of the sessions that asynchronous calls open, e.g. one whose sessions take part in
+   * transactions managed by a container.
+   * @since 3.5.4
+   */
+  public void setAsyncSessionFactory(SqlSessionFactory asyncSessionFactory) {
+    this.asyncSessionFactory = asyncSessionFactory;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public boolean isDatabasePagination() {
+    return databasePagination;
+  }
+
+  /**
+   * Set whether the offset and limit of {@link RowBounds} are pushed down to the database by rewriting the query,
+   * instead of skipping rows of the result set.
+   * @since 3.5.4
+   */
+  public void setDatabasePagination(boolean databasePagination) {
+    this.databasePagination = databasePagination;
+  }
+
+  /**
+   * Returns the pagination dialect set, or else the one of the database id.
+   * @since 3.5.4
+   */
+  public PaginationDialect getPaginationDialect() {
+    return paginationDialect != null ? paginationDialect : Pagination.dialectFor(databaseId);
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public void setPaginationDialect(PaginationDialect paginationDialect) {
+    this.paginationDialect = paginationDialect;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public boolean isMultiStatementQueries() {
+    return multiStatementQueries;
+  }
+
+  /**
+   * Set whether {@link SqlSession#selectMultiple(MultiQuery)} joins the selects into one statement returning
+   * multiple result sets. The driver has to support several statements in a single execution.
+   * @since 3.5.4
+   */
+  public void setMultiStatementQueries(boolean multiStatementQueries) {
+    this.multiStatementQueries = multiStatementQueries;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public boolean isParallelQueries() {
+    return parallelQueries;
+  }
+
+  /**
+   * Set whether {@link SqlSession#selectMultiple(MultiQuery)} may run the selects in parallel, each on a connection
+   * of its own, when the session has no uncommitted changes.
+   * @since 3.5.4
+   */
+  public void setParallelQueries(boolean parallelQueries) {
+    this.parallelQueries = parallelQueries;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public boolean isCompileRowMappers() {
+    return compileRowMappers;
+  }
+
+  /**
+   * Set whether rows of flat result maps are mapped by row mappers compiled for each result map and column layout,
+   * which read columns by index and call setters directly.
+   * @since 3.5.4
+   */
+  public void setCompileRowMappers(boolean compileRowMappers) {
+    this.compileRowMappers = compileRowMappers;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public boolean isCompactRowMaps() {
+    return compactRowMaps;
+  }
+
+  /**
+   * Set whether rows mapped to {@code java.util.Map} are {@link org.apache.ibatis.executor.result.RowMap}s,
+   * which share their keys with the other rows of the result set and only hold their values.
+   * @since 3.5.4
+   */
+  public void setCompactRowMaps(boolean compactRowMaps) {
+    this.compactRowMaps = compactRowMaps;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public boolean isStreamNestedResults() {
+    return streamNestedResults;
+  }
+
+  /**
+   * Set whether nested result maps read through a {@code Cursor} or a {@code ResultHandler} are streamed as if
+   * their statements were {@code resultOrdered}: each parent object is handed over as soon as the rows of the
+   * next parent begin, and its nested objects are released. Statements whose rows are not grouped by parent fail
+   * instead of handing a parent over twice.
+   * @since 3.5.4
+   */
+  public void setStreamNestedResults(boolean streamNestedResults) {
+    this.streamNestedResults = streamNestedResults;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public boolean isParallelRowMapping() {
+    return parallelRowMapping;
+  }
+
+  /**
+   * Set whether the rows of flat result maps are mapped to objects by the {@link #getAsyncExecutor() async executor}
+   * while the statement thread keeps reading the result set. The object factory has to be thread safe.
+   * @see UnorderedResultHandler
+   * @since 3.5.4
+   */
+  public void setParallelRowMapping(boolean parallelRowMapping) {
+    this.parallelRowMapping = parallelRowMapping;
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public CompiledRowMappers getCompiledRowMappers() {
+    return compiledRowMappers;
+  }
+
+  /**
+   * Returns the plans shared by the executions that map result sets of the same column layout.
+   * @since 3.5.4
+   */
+  public MappingPlanCache getMappingPlanCache() {
+    return mappingPlanCache;
+  }
+
+  private static java.util.concurrent.Executor newDefaultAsyncExecutor() {
+    try {
+      return (java.util.concurrent.Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      // virtual threads are not available on this JVM
+    }
+    AtomicInteger threadNumber = new AtomicInteger();
+    return Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
   public JdbcType getJdbcTypeForNull() {
     return jdbcTypeForNull;
   }
@@ -677,6 +1099,26 @@ public class Configuration {
     return caches.containsKey(id);
   }
 
+  /**
+   * Registers the negative result cache of a statement. It is cleared whenever a statement flushes
+   * the given cache scope.
+   *
+   * @param scope the namespace, or the id of the cache the statement uses
+   * @param negativeCache the negative result cache
+   * @since 3.5.4
+   */
+  public void addNegativeCache(String scope, Cache negativeCache) {
+    negativeCaches.computeIfAbsent(scope, k -> new ArrayList<>()).add(negativeCache);
+  }
+
+  /**
+   * @since 3.5.4
+   */
+  public List<Cache> getNegativeCaches(String scope) {
+    List<Cache> list = negativeCaches.get(scope);
+    return list == null ? Collections.emptyList() : list;
+  }
+
   public void addResultMap(ResultMap rm) {
     resultMaps.put(rm.getId(), rm);
     checkLocallyForDiscriminatedNestedResultMaps(rm);
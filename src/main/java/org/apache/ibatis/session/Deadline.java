@@ -0,0 +1,167 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A time budget shared by all the statements executed by the current thread until it is closed.
+ * <pre>
+ * try (Deadline deadline = Deadline.start(200, TimeUnit.MILLISECONDS)) {
+ *   Blog blog = mapper.selectBlog(id);
+ *   List&lt;Post&gt; posts = mapper.selectPosts(id);
+ * }
+ * </pre>
+ * The query timeout of each statement is derived from the remaining budget, a statement is not executed at all
+ * once the deadline has passed, and the statements still running at the deadline are cancelled, so that their
+ * connections are freed right away. A deadline started while another one is running never ends after it.
+ *
+ * @since 3.5.4
+ */
+public final class Deadline implements AutoCloseable {
+
+  private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+  private static volatile ScheduledThreadPoolExecutor timer;
+
+  private final long deadlineNanos;
+  private final Deadline previous;
+  //todo 截止时间到达时需要取消的Statement
+  private final List<Statement> statements = new ArrayList<>();
+  private ScheduledFuture<?> cancellation;
+  private boolean closed;
+
+  private Deadline(long deadlineNanos, Deadline previous) {
+    this.deadlineNanos = deadlineNanos;
+    this.previous = previous;
+  }
+
+  /**
+   * Starts a deadline for the current thread.
+   *
+   * @param budget the time the statements may take altogether
+   * @param unit the unit of the budget
+   * @return the deadline, to close once the work it limits is done
+   */
+  public static Deadline start(long budget, TimeUnit unit) {
+    Deadline previous = CURRENT.get();
+    long deadlineNanos = System.nanoTime() + unit.toNanos(budget);
+    if (previous != null && previous.deadlineNanos - deadlineNanos < 0) {
+      deadlineNanos = previous.deadlineNanos;
+    }
+    Deadline deadline = new Deadline(deadlineNanos, previous);
+    CURRENT.set(deadline);
+    return deadline;
+  }
+
+  /**
+   * Returns the deadline of the current thread, or {@code null} if there is none.
+   */
+  public static Deadline current() {
+    return CURRENT.get();
+  }
+
+  public long remainingMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+  }
+
+  public boolean isExpired() {
+    return deadlineNanos - System.nanoTime() <= 0;
+  }
+
+  /**
+   * Cancels the statement if it is still running when the deadline passes.
+   */
+  public synchronized void register(Statement statement) {
+    if (closed) {
+      return;
+    }
+    for (Iterator<Statement> iterator = statements.iterator(); iterator.hasNext();) {
+      if (isClosed(iterator.next())) {
+        iterator.remove();
+      }
+    }
+    statements.add(statement);
+    if (cancellation == null) {
+      cancellation = timer().schedule(this::cancelStatements, deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private synchronized void cancelStatements() {
+    for (Statement statement : statements) {
+      try {
+        if (!statement.isClosed()) {
+          statement.cancel();
+        }
+      } catch (SQLException e) {
+        // ignore, the statement is done anyway
+      }
+    }
+    statements.clear();
+  }
+
+  private static boolean isClosed(Statement statement) {
+    try {
+      return statement.isClosed();
+    } catch (SQLException e) {
+      return true;
+    }
+  }
+
+  @Override
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      if (cancellation != null) {
+        cancellation.cancel(false);
+      }
+      statements.clear();
+    }
+    if (CURRENT.get() == this) {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  private static ScheduledThreadPoolExecutor timer() {
+    ScheduledThreadPoolExecutor result = timer;
+    if (result == null) {
+      synchronized (Deadline.class) {
+        result = timer;
+        if (result == null) {
+          result = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "mybatis-deadline");
+            thread.setDaemon(true);
+            return thread;
+          });
+          result.setRemoveOnCancelPolicy(true);
+          timer = result;
+        }
+      }
+    }
+    return result;
+  }
+
+}
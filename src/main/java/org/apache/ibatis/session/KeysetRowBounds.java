@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.Arrays;
+
+/**
+ * Selects the page of rows that follows a given row, in the order of the key columns.
+ * <p>
+ * The query is wrapped so that it returns the rows whose key columns compare greater (or lower, when
+ * descending) than the values of the last row of the previous page, ordered by the key columns. Unlike an offset,
+ * the database can seek to the page through an index and the pages stay stable while rows are inserted.
+ * The key columns must be columns of the query result that identify a row, and the query itself should not
+ * be ordered.
+ *
+ * @since 3.5.4
+ */
+public class KeysetRowBounds extends RowBounds {
+
+  private final String[] columns;
+  private final Object[] after;
+  private final boolean descending;
+
+  /**
+   * Creates the bounds of the first page.
+   */
+  public KeysetRowBounds(int limit, String... columns) {
+    this(limit, false, columns, null);
+  }
+
+  /**
+   * @param limit the maximum number of rows of the page
+   * @param descending whether rows are ordered by descending keys
+   * @param columns the key columns
+   * @param after the key values of the last row of the previous page, or {@code null} for the first page
+   */
+  public KeysetRowBounds(int limit, boolean descending, String[] columns, Object[] after) {
+    super(NO_ROW_OFFSET, limit);
+    if (columns == null || columns.length == 0) {
+      throw new IllegalArgumentException("At least one key column is required");
+    }
+    if (after != null && after.length != columns.length) {
+      throw new IllegalArgumentException("Expected " + columns.length + " key values but got " + after.length);
+    }
+    this.columns = columns.clone();
+    this.after = after == null ? null : after.clone();
+    this.descending = descending;
+  }
+
+  /**
+   * Returns the bounds of the page that follows the row with the given key values.
+   */
+  public KeysetRowBounds after(Object... values) {
+    return new KeysetRowBounds(getLimit(), descending, columns, values);
+  }
+
+  public String[] getColumns() {
+    return columns.clone();
+  }
+
+  public Object[] getAfter() {
+    return after == null ? null : after.clone();
+  }
+
+  public boolean isDescending() {
+    return descending;
+  }
+
+  @Override
+  public String toString() {
+    return "KeysetRowBounds" + Arrays.toString(columns) + (descending ? " desc" : "") + " after " + Arrays.toString(after)
+        + " limit " + getLimit();
+  }
+
+}
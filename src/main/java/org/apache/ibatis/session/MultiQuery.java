@@ -0,0 +1,58 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Independent select statements that are submitted to {@link SqlSession#selectMultiple(MultiQuery)} as one unit.
+ * <pre>
+ * List&lt;List&lt;Object&gt;&gt; results = sqlSession.selectMultiple(new MultiQuery()
+ *     .add("selectBlog", id)
+ *     .add("selectRecentPosts", id));
+ * </pre>
+ *
+ * @since 3.5.4
+ */
+public class MultiQuery {
+
+  private final List<String> statements = new ArrayList<>();
+  private final List<Object> parameters = new ArrayList<>();
+
+  public MultiQuery add(String statement) {
+    return add(statement, null);
+  }
+
+  public MultiQuery add(String statement, Object parameter) {
+    statements.add(statement);
+    parameters.add(parameter);
+    return this;
+  }
+
+  public int size() {
+    return statements.size();
+  }
+
+  public String getStatement(int index) {
+    return statements.get(index);
+  }
+
+  public Object getParameter(int index) {
+    return parameters.get(index);
+  }
+
+}
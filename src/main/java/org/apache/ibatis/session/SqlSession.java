@@ -17,11 +17,14 @@ package org.apache.ibatis.session;
 
 import java.io.Closeable;
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BatchResult;
+import org.apache.ibatis.executor.result.ColumnarResult;
+import org.apache.ibatis.executor.result.ColumnarResultHandler;
 
 /**
  * The primary Java interface for working with MyBatis.
@@ -150,6 +153,49 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * Runs independent select statements as one unit.
+   * Depending on the configuration, they run as a single statement returning multiple result sets,
+   * in parallel on separate connections or one after the other.
+   * @param queries The statements to run with their parameters.
+   * @return The result list of each statement, in the order they were added.
+   * @since 3.5.4
+   */
+  default List<List<Object>> selectMultiple(MultiQuery queries) {
+    List<List<Object>> results = new ArrayList<>(queries.size());
+    for (int i = 0; i < queries.size(); i++) {
+      results.add(selectList(queries.getStatement(i), queries.getParameter(i)));
+    }
+    return results;
+  }
+
+  /**
+   * Reads the rows of the first result set of a statement into primitive arrays, one per column,
+   * without mapping them to objects.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return The rows by column, or {@code null} if the statement returned no result set.
+   * @since 3.5.4
+   */
+  default ColumnarResult selectColumnar(String statement, Object parameter) {
+    return selectColumnar(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  /**
+   * Reads the rows of the first result set of a statement into primitive arrays, one per column,
+   * within the specified row bounds.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds Bounds to limit object retrieval
+   * @return The rows by column, or {@code null} if the statement returned no result set.
+   * @since 3.5.4
+   */
+  default ColumnarResult selectColumnar(String statement, Object parameter, RowBounds rowBounds) {
+    ColumnarResultHandler handler = new ColumnarResultHandler();
+    select(statement, parameter, rowBounds, handler);
+    return handler.getResult();
+  }
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
@@ -21,6 +21,7 @@ import java.io.Reader;
 import java.util.Properties;
 
 import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.cache.CacheSnapshotManager;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
@@ -93,6 +94,11 @@ public class SqlSessionFactoryBuilder {
 
   //todo 创建并返回 SqlSessionFactory
   public SqlSessionFactory build(Configuration config) {
+    //todo 配置已完整，开始在后台加载二级缓存快照
+    CacheSnapshotManager snapshotManager = config.getCacheSnapshotManager();
+    if (snapshotManager != null) {
+      snapshotManager.start();
+    }
     //todo 返回 DefaultSqlSessionFactory
     return new DefaultSqlSessionFactory(config);
   }
@@ -202,6 +202,11 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectCursor(statement, parameter, rowBounds);
   }
 
+  @Override
+  public List<List<Object>> selectMultiple(MultiQuery queries) {
+    return sqlSessionProxy.selectMultiple(queries);
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return sqlSessionProxy.selectList(statement);
@@ -0,0 +1,29 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * A {@link ResultHandler} that does not depend on the order of the rows.
+ * <p>
+ * When rows are mapped in parallel (see {@link Configuration#setParallelRowMapping(boolean)}), its results are
+ * handed over as soon as they are mapped instead of in the order of the result set. They are still handed over
+ * by the thread running the statement, one at a time.
+ *
+ * @since 3.5.4
+ */
+public interface UnorderedResultHandler<T> extends ResultHandler<T> {
+
+}
@@ -23,6 +23,8 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.cursor.Cursor;
@@ -31,13 +33,17 @@ import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.executor.SingleResultRowBounds;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.MultiQuery;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 
 /**
  * The default implementation for {@link SqlSession}.
@@ -75,11 +81,15 @@ public class DefaultSqlSession implements SqlSession {
   @Override
   public <T> T selectOne(String statement, Object parameter) {
     // todo selectOne也是调用selectList方法，只不是只返回第一条数据
-    List<T> list = this.selectList(statement, parameter);
+    // todo 每一行对应一个结果对象时，读取到第二行就可以确定结果不唯一，不需要再读取其余的行
+    RowBounds rowBounds = configuration.hasStatement(statement)
+        && !configuration.getMappedStatement(statement).hasNestedResultMaps() ? SingleResultRowBounds.INSTANCE : RowBounds.DEFAULT;
+    List<T> list = this.selectList(statement, parameter, rowBounds);
     if (list.size() == 1) {
       return list.get(0);
     } else if (list.size() > 1) {
-      throw new TooManyResultsException("Expected one result (or null) to be returned by selectOne(), but found: " + list.size());
+      throw new TooManyResultsException("Expected one result (or null) to be returned by selectOne(), but found: "
+          + (rowBounds == SingleResultRowBounds.INSTANCE ? "more than one" : list.size()));
     } else {
       return null;
     }
@@ -157,6 +167,81 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public List<List<Object>> selectMultiple(MultiQuery queries) {
+    try {
+      List<MappedStatement> statements = new ArrayList<>(queries.size());
+      List<Object> parameters = new ArrayList<>(queries.size());
+      for (int i = 0; i < queries.size(); i++) {
+        statements.add(configuration.getMappedStatement(queries.getStatement(i)));
+        parameters.add(wrapCollection(queries.getParameter(i)));
+      }
+      if (queries.size() > 1 && configuration.isMultiStatementQueries()) {
+        //todo 拼接成一条语句，一次往返得到多个结果集
+        MultiStatementQuery query = MultiStatementQuery.of(configuration, statements, parameters);
+        if (query != null) {
+          return selectMultiStatement(query, queries.size());
+        }
+      }
+      if (queries.size() > 1 && configuration.isParallelQueries() && !dirty) {
+        //todo 没有未提交的修改时，各语句使用各自的连接并行执行
+        return selectInParallel(queries);
+      }
+      List<List<Object>> results = new ArrayList<>(queries.size());
+      for (int i = 0; i < queries.size(); i++) {
+        results.add(executor.query(statements.get(i), parameters.get(i), RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER));
+      }
+      return results;
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private List<List<Object>> selectMultiStatement(MultiStatementQuery query, int statementCount) throws SQLException {
+    MappedStatement ms = query.getMappedStatement();
+    List<Object> results = executor.query(ms, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER,
+        executor.createCacheKey(ms, null, RowBounds.DEFAULT, query.getBoundSql()), query.getBoundSql());
+    if (results.size() != statementCount || !results.stream().allMatch(result -> result instanceof List)) {
+      throw new ExecutorException("Expected " + statementCount + " result sets from '" + ms.getId()
+          + "'. Check that the driver runs several statements at once or disable multiStatementQueries.");
+    }
+    List<List<Object>> lists = new ArrayList<>(statementCount);
+    for (Object result : results) {
+      lists.add((List<Object>) result);
+    }
+    return lists;
+  }
+
+  private List<List<Object>> selectInParallel(MultiQuery queries) {
+    SqlSessionFactory sqlSessionFactory = configuration.getAsyncSessionFactory();
+    List<CompletableFuture<List<Object>>> futures = new ArrayList<>(queries.size());
+    for (int i = 0; i < queries.size(); i++) {
+      String statement = queries.getStatement(i);
+      Object parameter = queries.getParameter(i);
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+          return sqlSession.selectList(statement, parameter);
+        }
+      }, configuration.getAsyncExecutor()));
+    }
+    List<List<Object>> results = new ArrayList<>(queries.size());
+    try {
+      for (CompletableFuture<List<Object>> future : futures) {
+        results.add(future.join());
+      }
+    } catch (CompletionException e) {
+      futures.forEach(future -> future.cancel(false));
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+    return results;
+  }
+
   @Override
   public void select(String statement, Object parameter, ResultHandler handler) {
     select(statement, parameter, RowBounds.DEFAULT, handler);
@@ -15,13 +15,16 @@
  */
 package org.apache.ibatis.session.defaults;
 
+import java.io.Closeable;
 import java.sql.Connection;
 import java.sql.SQLException;
 
+import org.apache.ibatis.cache.CacheSnapshotManager;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.CacheSnapshotLoading;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSession;
@@ -35,7 +38,7 @@ import org.apache.ibatis.transaction.managed.ManagedTransactionFactory;
  * @author Clinton Begin
  * todo 用于创建SqlSession  提供了多种重载方法，用于实现不同种类的SqlSession
  */
-public class DefaultSqlSessionFactory implements SqlSessionFactory {
+public class DefaultSqlSessionFactory implements SqlSessionFactory, Closeable {
 
   private final Configuration configuration;
 
@@ -91,10 +94,25 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
     return configuration;
   }
 
+  /**
+   * Shuts this factory down. When cache snapshots are enabled, the contents of the 2nd level
+   * caches are written to the snapshot directory. Sessions already opened can still be used.
+   *
+   * @since 3.5.4
+   */
+  @Override
+  public void close() {
+    CacheSnapshotManager snapshotManager = configuration.getCacheSnapshotManager();
+    if (snapshotManager != null) {
+      snapshotManager.save();
+    }
+  }
+
   //todo  通过数据源获取数据库连接，并创建Executor对象以及DefaultSqlSession对象
   private SqlSession openSessionFromDataSource(ExecutorType execType, TransactionIsolationLevel level, boolean autoCommit) {
     Transaction tx = null;
     try {
+      loadCacheSnapshot();
       //todo  获取mybatis-config.xml配置文件中配置的Environment
       final Environment environment = configuration.getEnvironment();
       //todo 获取TransactionFactory对象
@@ -115,6 +133,7 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
   //todo 通过数据库连接来创建Executor对象以及DefaultSqlSession
   private SqlSession openSessionFromConnection(ExecutorType execType, Connection connection) {
     try {
+      loadCacheSnapshot();
       boolean autoCommit;
       try {
         autoCommit = connection.getAutoCommit();
@@ -135,6 +154,19 @@ public class DefaultSqlSessionFactory implements SqlSessionFactory {
     }
   }
 
+  private void loadCacheSnapshot() {
+    CacheSnapshotManager snapshotManager = configuration.getCacheSnapshotManager();
+    if (snapshotManager == null) {
+      return;
+    }
+    if (configuration.getCacheSnapshotLoading() == CacheSnapshotLoading.LAZY) {
+      snapshotManager.ensureLoaded();
+    } else {
+      //todo 未经SqlSessionFactoryBuilder创建的工厂，在第一次打开会话时开始加载
+      snapshotManager.start();
+    }
+  }
+
   private TransactionFactory getTransactionFactoryFromEnvironment(Environment environment) {
     if (environment == null || environment.getTransactionFactory() == null) {
       return new ManagedTransactionFactory();
@@ -0,0 +1,141 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session.defaults;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+
+/**
+ * Joins several select statements into a single statement returning one result set for each of them,
+ * which is mapped with the result map of its statement.
+ *
+ * @since 3.5.4
+ */
+final class MultiStatementQuery {
+
+  private static final String ID_SUFFIX = "!multi";
+  private static final String PARAMETER_PREFIX = "_multi_";
+
+  private final MappedStatement mappedStatement;
+  private final BoundSql boundSql;
+
+  private MultiStatementQuery(MappedStatement mappedStatement, BoundSql boundSql) {
+    this.mappedStatement = mappedStatement;
+    this.boundSql = boundSql;
+  }
+
+  /**
+   * Returns the joined statement, or {@code null} when one of the statements cannot be part of it.
+   * Statements served by a second level cache are left to the cache.
+   */
+  static MultiStatementQuery of(Configuration configuration, List<MappedStatement> statements, List<Object> parameters) {
+    StringBuilder sql = new StringBuilder();
+    List<ParameterMapping> parameterMappings = new ArrayList<>();
+    List<Object> values = new ArrayList<>();
+    List<ResultMap> resultMaps = new ArrayList<>();
+    boolean flushCache = false;
+    Integer timeout = null;
+    for (int i = 0; i < statements.size(); i++) {
+      MappedStatement ms = statements.get(i);
+      if (ms.getSqlCommandType() != SqlCommandType.SELECT || ms.getStatementType() == StatementType.CALLABLE
+          || ms.getResultMaps().size() != 1 || ms.getResultSets() != null || ms.getCache() != null) {
+        return null;
+      }
+      BoundSql statementSql = ms.getBoundSql(parameters.get(i));
+      if (sql.length() > 0) {
+        sql.append(";\n");
+      }
+      sql.append(trimTerminator(statementSql.getSql()));
+      for (ParameterMapping parameterMapping : statementSql.getParameterMappings()) {
+        if (parameterMapping.getMode() != ParameterMode.IN) {
+          return null;
+        }
+        parameterMappings.add(new ParameterMapping.Builder(configuration, PARAMETER_PREFIX + values.size(), parameterMapping.getTypeHandler())
+            .javaType(parameterMapping.getJavaType())
+            .jdbcType(parameterMapping.getJdbcType())
+            .numericScale(parameterMapping.getNumericScale())
+            .build());
+        values.add(parameterValue(configuration, statementSql, parameterMapping.getProperty()));
+      }
+      resultMaps.add(ms.getResultMaps().get(0));
+      flushCache = flushCache || ms.isFlushCacheRequired();
+      if (ms.getTimeout() != null && (timeout == null || ms.getTimeout() > timeout)) {
+        timeout = ms.getTimeout();
+      }
+    }
+    BoundSql boundSql = new BoundSql(configuration, sql.toString(), parameterMappings, null);
+    for (int i = 0; i < values.size(); i++) {
+      boundSql.setAdditionalParameter(PARAMETER_PREFIX + i, values.get(i));
+    }
+    MappedStatement first = statements.get(0);
+    MappedStatement mappedStatement = new MappedStatement.Builder(configuration, first.getId() + ID_SUFFIX,
+        new StaticSqlSource(configuration, boundSql.getSql(), parameterMappings), SqlCommandType.SELECT)
+        .resource(first.getResource())
+        .statementType(StatementType.PREPARED)
+        .resultMaps(resultMaps)
+        .resultSetType(first.getResultSetType())
+        .timeout(timeout)
+        .flushCacheRequired(flushCache)
+        .useCache(false)
+        .databaseId(first.getDatabaseId())
+        .lang(first.getLang())
+        .build();
+    return new MultiStatementQuery(mappedStatement, boundSql);
+  }
+
+  private static String trimTerminator(String sql) {
+    int end = sql.length();
+    while (end > 0 && (Character.isWhitespace(sql.charAt(end - 1)) || sql.charAt(end - 1) == ';')) {
+      end--;
+    }
+    return sql.substring(0, end);
+  }
+
+  // same lookup as DefaultParameterHandler, the values are bound before the statements are joined
+  private static Object parameterValue(Configuration configuration, BoundSql boundSql, String property) {
+    Object parameterObject = boundSql.getParameterObject();
+    if (boundSql.hasAdditionalParameter(property)) {
+      return boundSql.getAdditionalParameter(property);
+    } else if (parameterObject == null) {
+      return null;
+    } else if (configuration.getTypeHandlerRegistry().hasTypeHandler(parameterObject.getClass())) {
+      return parameterObject;
+    } else {
+      MetaObject metaObject = configuration.newMetaObject(parameterObject);
+      return metaObject.getValue(property);
+    }
+  }
+
+  MappedStatement getMappedStatement() {
+    return mappedStatement;
+  }
+
+  BoundSql getBoundSql() {
+    return boundSql;
+  }
+
+}
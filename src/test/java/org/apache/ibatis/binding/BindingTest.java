@@ -20,7 +20,10 @@ import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -28,6 +31,8 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javassist.util.proxy.Proxy;
 
@@ -52,6 +57,7 @@ import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 import org.apache.ibatis.transaction.TransactionFactory;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.junit.jupiter.api.Assertions;
@@ -428,6 +434,39 @@ class BindingTest {
     }
   }
 
+  @Test
+  void shouldSelectAuthorsAsynchronously() throws Exception {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      BoundAuthorMapper mapper = session.getMapper(BoundAuthorMapper.class);
+      CompletableFuture<Author> author = mapper.selectAuthorAsync(101);
+      CompletableFuture<List<Author>> authors = mapper.selectAllAuthorsAsync();
+      assertEquals("jim", author.get().getUsername());
+      assertFalse(authors.get().isEmpty());
+      assertEquals(101, authors.get().get(0).getId());
+    }
+  }
+
+  @Test
+  void shouldOpenAsynchronousSessionsFromTheConfiguredFactory() throws Exception {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    AtomicInteger openedSessions = new AtomicInteger();
+    configuration.setAsyncSessionFactory(new DefaultSqlSessionFactory(configuration) {
+      @Override
+      public SqlSession openSession() {
+        openedSessions.incrementAndGet();
+        return super.openSession();
+      }
+    });
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      BoundAuthorMapper mapper = session.getMapper(BoundAuthorMapper.class);
+      assertEquals("jim", mapper.selectAuthorAsync(101).get().getUsername());
+      assertFalse(mapper.selectAllAuthorsAsync().get().isEmpty());
+      assertEquals(2, openedSessions.get());
+    } finally {
+      configuration.setAsyncSessionFactory(null);
+    }
+  }
+
   @Test
   void shouldSelectOneAuthor() {
     try (SqlSession session = sqlSessionFactory.openSession()) {
@@ -642,6 +681,55 @@ class BindingTest {
     }
   }
 
+  @Test
+  void shouldGetBlogsWithPostsInBatches() throws Exception {
+    AtomicInteger statements = new AtomicInteger();
+    try (Connection connection = countingConnection(statements);
+         SqlSession session = sqlSessionFactory.openSession(connection)) {
+      BoundBlogMapper mapper = session.getMapper(BoundBlogMapper.class);
+      List<Blog> blogs = mapper.selectBlogsWithPostsInBatches();
+      assertEquals(2, blogs.size());
+      assertEquals(1, blogs.get(0).getPosts().size());
+      assertEquals(1, blogs.get(0).getPosts().get(0).getId());
+      assertEquals(1, blogs.get(1).getPosts().size());
+      assertEquals(2, blogs.get(1).getPosts().get(0).getId());
+      // the blogs and one batch of posts
+      assertEquals(2, statements.get());
+    }
+  }
+
+  @Test
+  void shouldGetPostsOneByOneWhenBatchDoesNotReturnKeyColumn() throws Exception {
+    AtomicInteger statements = new AtomicInteger();
+    try (Connection connection = countingConnection(statements);
+         SqlSession session = sqlSessionFactory.openSession(connection)) {
+      BoundBlogMapper mapper = session.getMapper(BoundBlogMapper.class);
+      List<Blog> blogs = mapper.selectBlogsWithPostSubjectsInBatches();
+      assertEquals(2, blogs.size());
+      assertEquals(1, blogs.get(0).getPosts().size());
+      assertEquals("Corn nuts", blogs.get(0).getPosts().get(0).getSubject());
+      assertEquals(1, blogs.get(1).getPosts().size());
+      assertEquals("Paul Hogan on Toy Dogs", blogs.get(1).getPosts().get(0).getSubject());
+      // the blogs, the batch of posts without key column and a select per blog
+      assertEquals(4, statements.get());
+    }
+  }
+
+  private static Connection countingConnection(AtomicInteger statements) throws SQLException {
+    Connection connection = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource().getConnection();
+    return (Connection) java.lang.reflect.Proxy.newProxyInstance(BindingTest.class.getClassLoader(),
+        new Class<?>[] { Connection.class }, (proxy, method, args) -> {
+          if (method.getName().equals("prepareStatement")) {
+            statements.incrementAndGet();
+          }
+          try {
+            return method.invoke(connection, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
   @Test
   void executeWithResultHandlerAndRowBounds() {
     try (SqlSession session = sqlSessionFactory.openSession()) {
@@ -16,6 +16,7 @@
 package org.apache.ibatis.binding;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.annotations.*;
 import org.apache.ibatis.domain.blog.Author;
@@ -68,6 +69,14 @@ public interface BoundAuthorMapper {
 
   //======================================================
 
+  @Select("SELECT * FROM AUTHOR WHERE ID = #{id}")
+  CompletableFuture<Author> selectAuthorAsync(int id);
+
+  @Select("SELECT * FROM AUTHOR ORDER BY ID")
+  CompletableFuture<List<Author>> selectAllAuthorsAsync();
+
+  //======================================================
+
   @Result(property = "id", column = "AUTHOR_ID", id = true)
   @Result(property = "username", column = "AUTHOR_USERNAME")
   @Result(property = "password", column = "AUTHOR_PASSWORD")
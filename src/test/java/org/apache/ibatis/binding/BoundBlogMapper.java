@@ -217,4 +217,25 @@ public interface BoundBlogMapper {
   })
   List<Blog> selectBlogsWithAutorAndPostsEagerly();
 
+  @Select({
+      "SELECT *",
+      "FROM blog"
+  })
+  @Results({
+      @Result(property = "posts", column = "id", many = @Many(select = "selectPostsById", fetchType = FetchType.EAGER, batchSize = 10))
+  })
+  List<Blog> selectBlogsWithPostsInBatches();
+
+  @Select("SELECT subject FROM post WHERE id = #{id}")
+  List<Post> selectPostSubjectsById(int id);
+
+  @Select({
+      "SELECT *",
+      "FROM blog"
+  })
+  @Results({
+      @Result(property = "posts", column = "id", many = @Many(select = "selectPostSubjectsById", fetchType = FetchType.EAGER, batchSize = 10))
+  })
+  List<Blog> selectBlogsWithPostSubjectsInBatches();
+
 }
@@ -19,6 +19,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.builder.annotation.MapperAnnotationBuilder;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
@@ -94,6 +96,21 @@ class AnnotationMapperBuilderTest {
     assertThat(mappedStatement.getResultSetType()).isEqualTo(ResultSetType.DEFAULT);
   }
 
+  @Test
+  void withIdentityCache() {
+    Configuration configuration = new Configuration();
+    MapperAnnotationBuilder builder = new MapperAnnotationBuilder(configuration, Mapper.class);
+    builder.parse();
+
+    MappedStatement mappedStatement = configuration.getMappedStatement("selectWithIdentityCache");
+    assertThat(mappedStatement.isIdentityLookup()).isTrue();
+    assertThat(mappedStatement.getResultMaps().get(0).isIdentityCache()).isTrue();
+
+    mappedStatement = configuration.getMappedStatement("selectWithoutOptions");
+    assertThat(mappedStatement.isIdentityLookup()).isFalse();
+    assertThat(mappedStatement.getResultMaps().get(0).isIdentityCache()).isFalse();
+  }
+
   interface Mapper {
 
     @Insert("insert into test (name) values(#{name})")
@@ -111,6 +128,25 @@ class AnnotationMapperBuilderTest {
     @Select("select * from test")
     String selectWithoutOptions(Integer id);
 
+    @Select("select * from test where id = #{id}")
+    @Results(identityCache = true, value = @Result(property = "id", column = "id", id = true))
+    @Options(identityLookup = true)
+    Item selectWithIdentityCache(Integer id);
+
+  }
+
+  static class Item {
+
+    private Integer id;
+
+    public Integer getId() {
+      return id;
+    }
+
+    public void setId(Integer id) {
+      this.id = id;
+    }
+
   }
 
 }
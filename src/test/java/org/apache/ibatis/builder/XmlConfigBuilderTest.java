@@ -19,6 +19,7 @@ import static com.googlecode.catchexception.apis.BDDCatchException.*;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.BDDAssertions.then;
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -45,6 +46,7 @@ import org.apache.ibatis.domain.blog.mappers.NestedBlogMapper;
 import org.apache.ibatis.domain.jpetstore.Cart;
 import org.apache.ibatis.executor.loader.cglib.CglibProxyFactory;
 import org.apache.ibatis.executor.loader.javassist.JavassistProxyFactory;
+import org.apache.ibatis.executor.pagination.RownumDialect;
 import org.apache.ibatis.io.JBoss6VFS;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.logging.slf4j.Slf4jImpl;
@@ -54,6 +56,7 @@ import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.session.AutoMappingBehavior;
 import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
+import org.apache.ibatis.session.CacheSnapshotLoading;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
@@ -99,6 +102,24 @@ class XmlConfigBuilderTest {
       assertNull(config.getLogPrefix());
       assertNull(config.getLogImpl());
       assertNull(config.getConfigurationFactory());
+      assertFalse(config.isParallelRowMapping());
+      assertFalse(config.isStreamNestedResults());
+      assertFalse(config.isCompactRowMaps());
+      assertFalse(config.isCompileRowMappers());
+      assertFalse(config.isParallelQueries());
+      assertFalse(config.isMultiStatementQueries());
+      assertNull(config.getPaginationDialect());
+      assertThat(config.isDatabasePagination()).isFalse();
+      assertNull(config.getRewriteBatchedInsertsMaxParameters());
+      assertThat(config.isRewriteBatchedInserts()).isFalse();
+      assertThat(config.getBatchGroupingNamespaces()).isEmpty();
+      assertNull(config.getBatchMaxBytes());
+      assertNull(config.getBatchMaxParameters());
+      assertNull(config.getBatchMaxStatements());
+      assertThat(config.getCacheSnapshotLoading()).isEqualTo(CacheSnapshotLoading.LAZY);
+      assertNull(config.getCacheSnapshotDirectory());
+      assertNull(config.getLocalCacheMaxRows());
+      assertNull(config.getLocalCacheMaxEntries());
       assertThat(config.getTypeHandlerRegistry().getTypeHandler(RoundingMode.class)).isInstanceOf(EnumTypeHandler.class);
     }
   }
@@ -194,6 +215,24 @@ class XmlConfigBuilderTest {
       assertThat(config.getLogImpl().getName()).isEqualTo(Slf4jImpl.class.getName());
       assertThat(config.getVfsImpl().getName()).isEqualTo(JBoss6VFS.class.getName());
       assertThat(config.getConfigurationFactory().getName()).isEqualTo(String.class.getName());
+      assertTrue(config.isParallelRowMapping());
+      assertTrue(config.isStreamNestedResults());
+      assertTrue(config.isCompactRowMaps());
+      assertTrue(config.isCompileRowMappers());
+      assertTrue(config.isParallelQueries());
+      assertTrue(config.isMultiStatementQueries());
+      assertThat(config.getPaginationDialect()).isInstanceOf(RownumDialect.class);
+      assertThat(config.isDatabasePagination()).isTrue();
+      assertThat(config.getRewriteBatchedInsertsMaxParameters()).isEqualTo(1000);
+      assertThat(config.isRewriteBatchedInserts()).isTrue();
+      assertThat(config.getBatchGroupingNamespaces()).isEqualTo(new HashSet<>(Arrays.asList("org.apache.ibatis.domain.blog.mappers.AuthorMapper", "org.apache.ibatis.domain.blog.mappers.BlogMapper.insertBlog")));
+      assertThat(config.getBatchMaxBytes()).isEqualTo(8388608);
+      assertThat(config.getBatchMaxParameters()).isEqualTo(30000);
+      assertThat(config.getBatchMaxStatements()).isEqualTo(1000);
+      assertThat(config.getCacheSnapshotLoading()).isEqualTo(CacheSnapshotLoading.BACKGROUND);
+      assertThat(config.getCacheSnapshotDirectory()).isEqualTo("target/cache-snapshots");
+      assertThat(config.getLocalCacheMaxRows()).isEqualTo(10000);
+      assertThat(config.getLocalCacheMaxEntries()).isEqualTo(100);
 
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blogauthor")).isEqualTo(Author.class);
       assertThat(config.getTypeAliasRegistry().getTypeAliases().get("blog")).isEqualTo(Blog.class);
@@ -0,0 +1,141 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.CacheBuilder;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheSnapshotManagerTest {
+
+  private File directory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    directory = Files.createTempDirectory("snapshots").toFile();
+  }
+
+  @AfterEach
+  void cleanUp() {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+    directory.delete();
+  }
+
+  @Test
+  void shouldRestoreSerializableEntries() {
+    Configuration configuration = newConfiguration();
+    Cache cache = newCache(configuration, "select id from blog");
+    cache.putObject("blogs", new ArrayList<>(Arrays.asList(1, 2)));
+    cache.putObject("author", Collections.singletonList(new Object()));
+    configuration.getCacheSnapshotManager().save();
+
+    Configuration restarted = newConfiguration();
+    Cache restored = newCache(restarted, "select id from blog");
+    restarted.getCacheSnapshotManager().ensureLoaded();
+    assertEquals(Arrays.asList(1, 2), restored.getObject("blogs"));
+    assertNull(restored.getObject("author"));
+  }
+
+  @Test
+  void shouldNotTrackEvictedEntries() {
+    Configuration configuration = newConfiguration();
+    Cache cache = newCache(configuration, "select id from blog");
+    cache.putObject("blogs", new ArrayList<>(Arrays.asList(1, 2)));
+    cache.clear();
+    configuration.getCacheSnapshotManager().save();
+
+    Configuration restarted = newConfiguration();
+    Cache restored = newCache(restarted, "select id from blog");
+    restarted.getCacheSnapshotManager().ensureLoaded();
+    assertEquals(0, restored.getSize());
+  }
+
+  @Test
+  void shouldDiscardSnapshotWhenStatementsChanged() {
+    Configuration configuration = newConfiguration();
+    Cache cache = newCache(configuration, "select id from blog");
+    cache.putObject("blogs", new ArrayList<>(Arrays.asList(1, 2)));
+    configuration.getCacheSnapshotManager().save();
+
+    Configuration restarted = newConfiguration();
+    Cache restored = newCache(restarted, "select id, title from blog");
+    restarted.getCacheSnapshotManager().ensureLoaded();
+    assertNull(restored.getObject("blogs"));
+    assertEquals(0, directory.listFiles().length);
+  }
+
+  @Test
+  void shouldNotOverwriteEntriesCachedBeforeRestore() {
+    Configuration configuration = newConfiguration();
+    Cache cache = newCache(configuration, "select id from blog");
+    cache.putObject("blogs", new ArrayList<>(Arrays.asList(1, 2)));
+    configuration.getCacheSnapshotManager().save();
+
+    Configuration restarted = newConfiguration();
+    Cache restored = newCache(restarted, "select id from blog");
+    restored.putObject("blogs", new ArrayList<>(Arrays.asList(1, 2, 3)));
+    restarted.getCacheSnapshotManager().ensureLoaded();
+    assertEquals(Arrays.asList(1, 2, 3), restored.getObject("blogs"));
+  }
+
+  @Test
+  void shouldSkipKeysWithIdentityHashCodes() {
+    Configuration configuration = newConfiguration();
+    Cache cache = newCache(configuration, "select id from blog");
+    cache.putObject(new CacheKey(new Object[] { "blog.selectAll", 1 }), new ArrayList<>(Arrays.asList(1, 2)));
+    cache.putObject(new CacheKey(new Object[] { "blog.selectAll", SqlCommandType.SELECT }), new ArrayList<>(Arrays.asList(3)));
+    configuration.getCacheSnapshotManager().save();
+
+    Configuration restarted = newConfiguration();
+    Cache restored = newCache(restarted, "select id from blog");
+    restarted.getCacheSnapshotManager().ensureLoaded();
+    assertEquals(Arrays.asList(1, 2), restored.getObject(new CacheKey(new Object[] { "blog.selectAll", 1 })));
+    assertEquals(1, restored.getSize());
+  }
+
+  private Configuration newConfiguration() {
+    Configuration configuration = new Configuration();
+    configuration.setCacheSnapshotDirectory(directory.getAbsolutePath());
+    return configuration;
+  }
+
+  private static Cache newCache(Configuration configuration, String sql) {
+    Cache cache = new CacheBuilder("blog").snapshotManager(configuration.getCacheSnapshotManager()).build();
+    configuration.addCache(cache);
+    configuration.addMappedStatement(new MappedStatement.Builder(configuration, "blog.selectAll",
+        new StaticSqlSource(configuration, sql), SqlCommandType.SELECT).cache(cache).build());
+    return cache;
+  }
+
+}
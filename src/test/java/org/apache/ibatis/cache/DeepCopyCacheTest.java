@@ -0,0 +1,163 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.ibatis.cache.decorators.DeepCopyCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class DeepCopyCacheTest {
+
+  @Test
+  void shouldReturnCopiesOfCachedGraph() {
+    Cache cache = new DeepCopyCache(new PerpetualCache("default"));
+    Node root = new Node("root", LocalDate.of(2019, 1, 1));
+    root.getChildren().add(new Node("child", null));
+    cache.putObject("key", Collections.singletonList(root));
+
+    @SuppressWarnings("unchecked")
+    Node copy = ((List<Node>) cache.getObject("key")).get(0);
+    assertNotSame(root, copy);
+    assertSame(root.getName(), copy.getName());
+    assertSame(root.getCreated(), copy.getCreated());
+    assertNotSame(root.getChildren(), copy.getChildren());
+    assertEquals("child", copy.getChildren().get(0).getName());
+
+    copy.setName("changed");
+    @SuppressWarnings("unchecked")
+    Node other = ((List<Node>) cache.getObject("key")).get(0);
+    assertEquals("root", other.getName());
+  }
+
+  @Test
+  void shouldPreserveCyclesAndSharedReferences() {
+    Node parent = new Node("parent", null);
+    Node child = new Node("child", null);
+    child.setParent(parent);
+    parent.getChildren().add(child);
+    parent.getChildren().add(child);
+
+    Node copy = (Node) DeepCopyCache.copy(parent);
+    assertNotSame(parent, copy);
+    Node copiedChild = copy.getChildren().get(0);
+    assertSame(copy, copiedChild.getParent());
+    assertSame(copiedChild, copy.getChildren().get(1));
+  }
+
+  @Test
+  void shouldCopyMutableJdkValuesAndArrays() {
+    Date date = new Date();
+    int[] numbers = { 1, 2, 3 };
+    Object[] copy = (Object[]) DeepCopyCache.copy(new Object[] { date, numbers });
+    assertNotSame(date, copy[0]);
+    assertEquals(date, copy[0]);
+    assertNotSame(numbers, copy[1]);
+    assertArrayEquals(numbers, (int[]) copy[1]);
+  }
+
+  @Test
+  void shouldKeepComparatorOfSortedCollections() {
+    TreeSet<String> sorted = new TreeSet<>(Collections.reverseOrder());
+    sorted.addAll(Arrays.asList("a", "b"));
+    @SuppressWarnings("unchecked")
+    TreeSet<String> copy = (TreeSet<String>) DeepCopyCache.copy(sorted);
+    assertNotSame(sorted, copy);
+    assertEquals("b", copy.first());
+  }
+
+  @Test
+  void shouldFallBackToSerializationForUnsupportedTypes() {
+    StringBuilder builder = new StringBuilder("value");
+    Object copy = DeepCopyCache.copy(builder);
+    assertNotSame(builder, copy);
+    assertEquals("value", copy.toString());
+  }
+
+  @Test
+  void shouldFailOnNonSerializableObjectsWithoutDefaultConstructor() {
+    assertThrows(CacheException.class, () -> DeepCopyCache.copy(new NoDefaultConstructor("value")));
+  }
+
+  public static class Node {
+    private String name;
+    private LocalDate created;
+    private Node parent;
+    private List<Node> children = new ArrayList<>();
+
+    public Node() {
+    }
+
+    Node(String name, LocalDate created) {
+      this.name = name;
+      this.created = created;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+    }
+
+    public LocalDate getCreated() {
+      return created;
+    }
+
+    public void setCreated(LocalDate created) {
+      this.created = created;
+    }
+
+    public Node getParent() {
+      return parent;
+    }
+
+    public void setParent(Node parent) {
+      this.parent = parent;
+    }
+
+    public List<Node> getChildren() {
+      return children;
+    }
+
+    public void setChildren(List<Node> children) {
+      this.children = children;
+    }
+  }
+
+  static class NoDefaultConstructor {
+    private final String value;
+
+    NoDefaultConstructor(String value) {
+      this.value = value;
+    }
+
+    String getValue() {
+      return value;
+    }
+  }
+
+}
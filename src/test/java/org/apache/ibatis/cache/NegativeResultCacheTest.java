@@ -0,0 +1,91 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+
+import org.apache.ibatis.cache.impl.NegativeResultCache;
+import org.junit.jupiter.api.Test;
+
+class NegativeResultCacheTest {
+
+  @Test
+  void shouldReturnSentinelInsteadOfCachedValue() {
+    Cache cache = new NegativeResultCache("negative", 60000);
+    cache.putObject(0, new ArrayList<>());
+    assertSame(NegativeResultCache.EMPTY_RESULT, cache.getObject(0));
+    assertNull(cache.getObject(1));
+  }
+
+  @Test
+  void shouldExpireEntriesAfterTimeToLive() {
+    FakeClockCache cache = new FakeClockCache(1000, 10);
+    cache.putObject(0, NegativeResultCache.EMPTY_RESULT);
+    cache.time += 999_000_000L;
+    assertNotNull(cache.getObject(0));
+    cache.time += 1_000_000L;
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntriesBeyondSize() {
+    Cache cache = new NegativeResultCache("negative", 60000, 2);
+    cache.putObject(0, NegativeResultCache.EMPTY_RESULT);
+    cache.putObject(1, NegativeResultCache.EMPTY_RESULT);
+    cache.getObject(0);
+    cache.putObject(2, NegativeResultCache.EMPTY_RESULT);
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(2));
+    assertEquals(2, cache.getSize());
+  }
+
+  @Test
+  void shouldIgnoreNullValues() {
+    Cache cache = new NegativeResultCache("negative", 60000);
+    cache.putObject(0, null);
+    assertNull(cache.getObject(0));
+    assertEquals(0, cache.getSize());
+  }
+
+  @Test
+  void shouldRemoveAndClearEntries() {
+    Cache cache = new NegativeResultCache("negative", 60000);
+    cache.putObject(0, NegativeResultCache.EMPTY_RESULT);
+    cache.putObject(1, NegativeResultCache.EMPTY_RESULT);
+    cache.removeObject(0);
+    assertNull(cache.getObject(0));
+    cache.clear();
+    assertNull(cache.getObject(1));
+  }
+
+  private static class FakeClockCache extends NegativeResultCache {
+    private long time;
+
+    FakeClockCache(long timeToLive, int size) {
+      super("negative", timeToLive, size);
+    }
+
+    @Override
+    protected long now() {
+      return time;
+    }
+  }
+
+}
@@ -0,0 +1,151 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.Test;
+
+class CursorSubscriptionTest {
+
+  private int openSessions;
+  private int closedSessions;
+  private final List<Object> signals = new ArrayList<>();
+
+  @Test
+  void shouldEmitRowsAsRequested() {
+    CursorSubscription<Integer> subscription = newSubscription(Arrays.asList(1, 2, 3));
+    assertEquals(0, openSessions);
+    subscription.request(2);
+    assertEquals(Arrays.asList(1, 2), signals);
+    subscription.request(5);
+    assertEquals(Arrays.asList(1, 2, 3, "complete"), signals);
+    assertEquals(1, closedSessions);
+  }
+
+  @Test
+  void shouldRequestMoreFromOnNext() {
+    List<CursorSubscription<Integer>> holder = new ArrayList<>();
+    CursorSubscription<Integer> subscription = new CursorSubscription<>(sessionFactory(), session -> new ListCursor(Arrays.asList(1, 2, 3)),
+        Runnable::run, new RecordingSubscriber() {
+          @Override
+          public void onNext(Integer item) {
+            super.onNext(item);
+            holder.get(0).request(1);
+          }
+        });
+    holder.add(subscription);
+    subscription.request(1);
+    assertEquals(Arrays.asList(1, 2, 3, "complete"), signals);
+  }
+
+  @Test
+  void shouldReleaseSessionOnCancel() {
+    CursorSubscription<Integer> subscription = newSubscription(Arrays.asList(1, 2, 3));
+    subscription.request(1);
+    subscription.cancel();
+    subscription.request(1);
+    assertEquals(Arrays.asList(1), signals);
+    assertEquals(1, closedSessions);
+  }
+
+  @Test
+  void shouldSignalErrorOnNonPositiveRequest() {
+    CursorSubscription<Integer> subscription = newSubscription(Arrays.asList(1, 2, 3));
+    subscription.request(0);
+    assertEquals(1, signals.size());
+    assertTrue(signals.get(0) instanceof IllegalArgumentException);
+    assertEquals(0, openSessions);
+  }
+
+  private CursorSubscription<Integer> newSubscription(List<Integer> rows) {
+    return new CursorSubscription<>(sessionFactory(), session -> new ListCursor(rows), Runnable::run, new RecordingSubscriber());
+  }
+
+  private SqlSessionFactory sessionFactory() {
+    SqlSession session = (SqlSession) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { SqlSession.class },
+        (proxy, method, args) -> {
+          if ("close".equals(method.getName())) {
+            closedSessions++;
+          }
+          return null;
+        });
+    return (SqlSessionFactory) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { SqlSessionFactory.class },
+        (proxy, method, args) -> {
+          openSessions++;
+          return session;
+        });
+  }
+
+  private class RecordingSubscriber implements CursorSubscription.Subscriber<Integer> {
+    @Override
+    public void onNext(Integer item) {
+      signals.add(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      signals.add(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      signals.add("complete");
+    }
+  }
+
+  private static class ListCursor implements Cursor<Integer> {
+    private final List<Integer> rows;
+
+    ListCursor(List<Integer> rows) {
+      this.rows = rows;
+    }
+
+    @Override
+    public boolean isOpen() {
+      return true;
+    }
+
+    @Override
+    public boolean isConsumed() {
+      return false;
+    }
+
+    @Override
+    public int getCurrentIndex() {
+      return 0;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+      return rows.iterator();
+    }
+
+    @Override
+    public void close() {
+    }
+  }
+
+}
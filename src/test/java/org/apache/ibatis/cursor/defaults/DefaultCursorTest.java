@@ -18,6 +18,7 @@ package org.apache.ibatis.cursor.defaults;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.when;
@@ -26,11 +27,13 @@ import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.ibatis.builder.StaticSqlSource;
 import org.apache.ibatis.executor.Executor;
@@ -101,6 +104,37 @@ class DefaultCursorTest {
     }
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  void shouldFetchOnTheCallingThreadIfPrefetchingIsRejected() throws Exception {
+    final MappedStatement ms = getNestedAndOrderedMappedStatement();
+    final ResultMap rm = ms.getResultMaps().get(0);
+    final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null, ms, null, null, null, RowBounds.DEFAULT);
+
+    when(rsmd.getColumnCount()).thenReturn(2);
+    doReturn("id").when(rsmd).getColumnLabel(1);
+    doReturn(Types.INTEGER).when(rsmd).getColumnType(1);
+    doReturn(Integer.class.getCanonicalName()).when(rsmd).getColumnClassName(1);
+    doReturn("role").when(rsmd).getColumnLabel(2);
+    doReturn(Types.VARCHAR).when(rsmd).getColumnType(2);
+    doReturn(String.class.getCanonicalName()).when(rsmd).getColumnClassName(2);
+
+    final ResultSetWrapper rsw = new ResultSetWrapper(rs, ms.getConfiguration());
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      try (DefaultCursor<?> cursor = new DefaultCursor<>(resultSetHandler, rm, rsw, RowBounds.DEFAULT)) {
+        cursor.setPrefetch(2, command -> {
+          throw new RejectedExecutionException("saturated");
+        });
+        Iterator<?> iter = cursor.iterator();
+        assertTrue(iter.hasNext());
+        Map<String, Object> map = (Map<String, Object>) iter.next();
+        assertEquals(1, map.get("id"));
+        assertTrue(cursor.isOpen());
+      }
+    });
+  }
+
   @SuppressWarnings("serial")
   private MappedStatement getNestedAndOrderedMappedStatement() {
     final Configuration config = new Configuration();
@@ -169,6 +203,16 @@ class DefaultCursorTest {
       return (Integer) rows.get(rowIndex).get(columnLabel);
     }
 
+    @Override
+    public String getString(int columnIndex) throws SQLException {
+      return getString(rsmd.getColumnLabel(columnIndex));
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+      return getInt(rsmd.getColumnLabel(columnIndex));
+    }
+
     @Override
     public boolean wasNull() throws SQLException {
       throwIfClosed();
@@ -33,6 +33,7 @@ import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Blog;
 import org.apache.ibatis.domain.blog.Post;
 import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.executor.pagination.OffsetFetchDialect;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.RowBounds;
@@ -130,6 +131,22 @@ class BaseExecutorTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldPaginateInDatabase() throws Exception {
+    config.setDatabasePagination(true);
+    config.setPaginationDialect(new OffsetFetchDialect());
+    Executor executor = createExecutor(new JdbcTransaction(ds, null, false));
+    try {
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectAllAuthorsAutoMappedStatement(config);
+      List<Author> authors = executor.query(selectStatement, null, new RowBounds(1, 1), Executor.NO_RESULT_HANDLER);
+      assertEquals(1, authors.size());
+      assertEquals(102, authors.get(0).getId());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
   @Test
   void shouldInsertNewAuthorWithAutoKey() throws Exception {
 
@@ -15,7 +15,28 @@
  */
 package org.apache.ibatis.executor;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Blog;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.jupiter.api.Test;
 
 class BatchExecutorTest extends BaseExecutorTest {
@@ -24,8 +45,200 @@ class BatchExecutorTest extends BaseExecutorTest {
   void dummy() {
   }
 
+  @Test
+  void shouldFlushAutomaticallyAndAggregateResults() throws Exception {
+    config.setBatchMaxStatements(2);
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int i = 0; i < 5; i++) {
+        executor.update(insertStatement, new Author(200 + i, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, results.get(0).getUpdateCounts());
+      assertTrue(results.get(0).getParameterObjects().isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldGroupInterleavedStatements() throws Exception {
+    config.setBatchGroupingNamespaces(new HashSet<>(Collections.singletonList("*")));
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateBlogTitleMappedStatement(config);
+      for (int i = 0; i < 3; i++) {
+        executor.update(insertStatement, new Author(300 + i, "someone", "******", "someone@apache.org", null, Section.NEWS));
+        executor.update(updateStatement, new Blog(1, "Jim Business", null, null));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(insertStatement, results.get(0).getMappedStatement());
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(0).getUpdateCounts());
+      assertEquals(updateStatement, results.get(1).getMappedStatement());
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(1).getUpdateCounts());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldRewriteConsecutiveInsertsIntoMultiRowInserts() throws Exception {
+    config.setRewriteBatchedInserts(true);
+    config.setRewriteBatchedInsertsMaxParameters(12);
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int i = 0; i < 5; i++) {
+        executor.update(insertStatement, new Author(400 + i, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(1, results.size());
+      assertEquals(5, results.get(0).getParameterObjects().size());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, results.get(0).getUpdateCounts());
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      List<Author> authors = executor.query(selectStatement, 404, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(1, authors.size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldParameterizeEachRewrittenRowThroughTheStatementHandler() throws Exception {
+    config.setRewriteBatchedInserts(true);
+    config.setRewriteBatchedInsertsMaxParameters(12);
+    ParameterizeCounter counter = new ParameterizeCounter();
+    config.addInterceptor(counter);
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      for (int i = 0; i < 3; i++) {
+        executor.update(insertStatement, new Author(450 + i, "someone", "******", "someone@apache.org", null, Section.NEWS));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertArrayEquals(new int[] { 1, 1, 1 }, results.get(0).getUpdateCounts());
+      assertEquals(3, counter.parameterizedRows);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      List<Author> authors = executor.query(selectStatement, 452, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals("someone", authors.get(0).getUsername());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldRewriteGroupedInsertsInterleavedWithOtherStatements() throws Exception {
+    config.setBatchGroupingNamespaces(new HashSet<>(Collections.singletonList("*")));
+    config.setRewriteBatchedInserts(true);
+    config.setRewriteBatchedInsertsMaxParameters(12);
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateBlogTitleMappedStatement(config);
+      for (int i = 0; i < 5; i++) {
+        executor.update(insertStatement, new Author(500 + i, "someone", "******", "someone@apache.org", null, Section.NEWS));
+        executor.update(updateStatement, new Blog(1, "Jim Business", null, null));
+      }
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(2, results.size());
+      assertEquals(insertStatement, results.get(0).getMappedStatement());
+      assertEquals(5, results.get(0).getParameterObjects().size());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, results.get(0).getUpdateCounts());
+      assertEquals(updateStatement, results.get(1).getMappedStatement());
+      assertArrayEquals(new int[] { 1, 1, 1, 1, 1 }, results.get(1).getUpdateCounts());
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      List<Author> authors = executor.query(selectStatement, 504, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(1, authors.size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldNotGroupStatementsPastStatementsOnTheSameTable() throws Exception {
+    config.setBatchGroupingNamespaces(new HashSet<>(Collections.singletonList("*")));
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement deleteStatement = ExecutorTestHelper.prepareDeleteAuthorMappedStatement(config);
+      Author author = new Author(600, "someone", "******", "someone@apache.org", null, Section.NEWS);
+      executor.update(insertStatement, author);
+      executor.update(deleteStatement, author);
+      executor.update(insertStatement, author);
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(insertStatement, results.get(0).getMappedStatement());
+      assertEquals(deleteStatement, results.get(1).getMappedStatement());
+      assertEquals(insertStatement, results.get(2).getMappedStatement());
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      List<Author> authors = executor.query(selectStatement, 600, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(1, authors.size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldNotRewriteGroupedInsertsPastStatementsOnTheSameTable() throws Exception {
+    config.setBatchGroupingNamespaces(new HashSet<>(Collections.singletonList("*")));
+    config.setRewriteBatchedInserts(true);
+    Executor executor = createExecutor(new JdbcTransaction(createBlogDataSource(), null, false));
+    try {
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      MappedStatement deleteStatement = ExecutorTestHelper.prepareDeleteAuthorMappedStatement(config);
+      Author author = new Author(601, "someone", "******", "someone@apache.org", null, Section.NEWS);
+      executor.update(insertStatement, author);
+      executor.update(deleteStatement, author);
+      executor.update(insertStatement, author);
+      List<BatchResult> results = executor.flushStatements();
+      assertEquals(3, results.size());
+      assertEquals(deleteStatement, results.get(1).getMappedStatement());
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      List<Author> authors = executor.query(selectStatement, 601, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertEquals(1, authors.size());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldParseAccessedTables() {
+    assertEquals(new HashSet<>(Collections.singletonList("author")),
+        BatchExecutor.parseTables("INSERT INTO author (id, username) values (?, ?)"));
+    assertEquals(new HashSet<>(Arrays.asList("author", "blog")),
+        BatchExecutor.parseTables("DELETE FROM author a WHERE a.id IN (SELECT author_id FROM Blog WHERE title = 'from x')"));
+    assertEquals(new HashSet<>(Arrays.asList("post", "blog")),
+        BatchExecutor.parseTables("UPDATE \"POST\" SET subject = ? WHERE blog_id IN (SELECT id FROM s.blog)"));
+    assertTrue(BatchExecutor.parseTables("UPDATE author a, blog b SET a.bio = b.title").isEmpty());
+    assertTrue(BatchExecutor.parseTables("DELETE FROM author WHERE id IN (SELECT author_id FROM blog b, post p)").isEmpty());
+    assertTrue(BatchExecutor.parseTables("{call insertAuthor(?,?,?,?)}").isEmpty());
+    assertTrue(BatchExecutor.parseTables("DELETE FROM author -- comment").isEmpty());
+  }
+
   @Override
   protected Executor createExecutor(Transaction transaction) {
     return new BatchExecutor(config, transaction);
   }
+
+  @Intercepts(@Signature(type = StatementHandler.class, method = "parameterize", args = Statement.class))
+  static class ParameterizeCounter implements Interceptor {
+    private int parameterizedRows;
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      parameterizedRows++;
+      return invocation.proceed();
+    }
+  }
 }
@@ -0,0 +1,46 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class BatchResultTest {
+
+  @Test
+  void shouldAppendUpdateCounts() {
+    BatchResult result = new BatchResult(null, "insert into author values (?)");
+    for (int i = 0; i < 10; i++) {
+      result.appendUpdateCounts(new int[] { 1, 1, 1 });
+    }
+    result.appendUpdateCounts(new int[] { 2 });
+    int[] counts = result.getUpdateCounts();
+    assertEquals(31, counts.length);
+    assertEquals(1, counts[0]);
+    assertEquals(2, counts[30]);
+    assertTrue(result.getParameterObjects().isEmpty());
+  }
+
+  @Test
+  void shouldAppendToCountsSetBefore() {
+    BatchResult result = new BatchResult(null, "insert into author values (?)");
+    result.setUpdateCounts(new int[] { 1, 2 });
+    result.appendUpdateCounts(new int[] { 3 });
+    assertArrayEquals(new int[] { 1, 2, 3 }, result.getUpdateCounts());
+  }
+
+}
@@ -136,6 +136,19 @@ class ExecutorTestHelper {
         .cache(authorCache).build();
   }
 
+  static MappedStatement prepareUpdateBlogTitleMappedStatement(final Configuration config) {
+    final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
+    return new MappedStatement.Builder(config, "updateBlogTitle", new StaticSqlSource(config,"UPDATE blog SET title = ? WHERE id = ?"), SqlCommandType.UPDATE)
+        .parameterMap(new ParameterMap.Builder(config, "defaultParameterMap", Blog.class,
+            new ArrayList<ParameterMapping>() {
+              {
+                add(new ParameterMapping.Builder(config, "title", registry.getTypeHandler(String.class)).build());
+                add(new ParameterMapping.Builder(config, "id", registry.getTypeHandler(int.class)).build());
+              }
+            }).build())
+        .build();
+  }
+
   static MappedStatement prepareDeleteAuthorMappedStatement(final Configuration config) {
     final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
     return new MappedStatement.Builder(config, "deleteAuthor", new StaticSqlSource(config,"DELETE FROM author WHERE id = ?"), SqlCommandType.DELETE)
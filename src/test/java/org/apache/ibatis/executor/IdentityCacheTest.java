@@ -0,0 +1,174 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultFlag;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+class IdentityCacheTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @Test
+  void shouldAnswerLookupByIdFromIndexedResults() {
+    IdentityCache cache = new IdentityCache(configuration);
+    Author author = new Author(101L, "jim");
+    cache.index("key", statement("selectAll", "authorResult", true, false), Arrays.asList(author, new Author(102L, "sally")));
+
+    List<Author> found = cache.lookup(statement("selectById", "authorResult", true, true), 101, RowBounds.DEFAULT);
+    assertNotNull(found);
+    assertSame(author, found.get(0));
+    assertNull(cache.lookup(statement("selectById", "authorResult", true, true), 103, RowBounds.DEFAULT));
+  }
+
+  @Test
+  void shouldReadIdsFromParameterObjects() {
+    IdentityCache cache = new IdentityCache(configuration);
+    Author author = new Author(101L, "jim");
+    cache.index("key", statement("selectAll", "authorResult", true, false), Collections.singletonList(author));
+
+    Map<String, Object> parameter = new HashMap<>();
+    parameter.put("id", 101L);
+    assertSame(author, cache.lookup(statement("selectById", "authorResult", true, true), parameter, RowBounds.DEFAULT).get(0));
+    assertSame(author, cache.lookup(statement("selectById", "authorResult", true, true), new Author(101L, null), RowBounds.DEFAULT).get(0));
+  }
+
+  @Test
+  void shouldNotIndexWhenIdentityCacheIsDisabled() {
+    IdentityCache cache = new IdentityCache(configuration);
+    cache.index("key", statement("selectAll", "authorResult", false, false), Collections.singletonList(new Author(101L, "jim")));
+    assertNull(cache.lookup(statement("selectById", "authorResult", true, true), 101L, RowBounds.DEFAULT));
+  }
+
+  @Test
+  void shouldForgetEntitiesOnClear() {
+    IdentityCache cache = new IdentityCache(configuration);
+    cache.index("key", statement("selectAll", "authorResult", true, false), Collections.singletonList(new Author(101L, "jim")));
+    cache.clear();
+    assertNull(cache.lookup(statement("selectById", "authorResult", true, true), 101L, RowBounds.DEFAULT));
+  }
+
+  @Test
+  void shouldOnlyAnswerFromObjectsMappedByTheSameResultMap() {
+    IdentityCache cache = new IdentityCache(configuration);
+    cache.index("key", statement("selectAllNames", "authorNameResult", true, false),
+        Collections.singletonList(new Author(101L, "jim")));
+    assertNull(cache.lookup(statement("selectById", "authorResult", true, true), 101L, RowBounds.DEFAULT));
+  }
+
+  @Test
+  void shouldKeepTheTypeOfIds() {
+    IdentityCache cache = new IdentityCache(configuration);
+    Author author = new Author(101L, "jim");
+    cache.index("key", statement("selectAll", "authorResult", true, false), Collections.singletonList(author));
+
+    assertNull(cache.lookup(statement("selectById", "authorResult", true, true), "101", RowBounds.DEFAULT));
+    assertNull(cache.lookup(statement("selectById", "authorResult", true, true), 101.5d, RowBounds.DEFAULT));
+    assertSame(author, cache.lookup(statement("selectById", "authorResult", true, true), (short) 101, RowBounds.DEFAULT).get(0));
+  }
+
+  @Test
+  void shouldDropEntitiesWithTheirEvictedLocalCacheEntry() {
+    IdentityCache cache = new IdentityCache(configuration);
+    LocalCache localCache = new LocalCache("local", 1, 0);
+    localCache.setEvictionListener(cache::forget);
+    MappedStatement selectAll = statement("selectAll", "authorResult", true, false);
+    MappedStatement selectById = statement("selectById", "authorResult", true, true);
+
+    List<Author> first = Collections.singletonList(new Author(101L, "jim"));
+    localCache.putObject("first", first);
+    cache.index("first", selectAll, first);
+    List<Author> second = Collections.singletonList(new Author(102L, "sally"));
+    localCache.putObject("second", second);
+    cache.index("second", selectAll, second);
+
+    assertNull(localCache.getObject("first"));
+    assertNull(cache.lookup(selectById, 101L, RowBounds.DEFAULT));
+    assertSame(second.get(0), cache.lookup(selectById, 102L, RowBounds.DEFAULT).get(0));
+    assertEquals(1, cache.size());
+  }
+
+  @Test
+  void shouldKeepEntitiesIndexedAgainByAnotherResult() {
+    IdentityCache cache = new IdentityCache(configuration);
+    MappedStatement selectAll = statement("selectAll", "authorResult", true, false);
+    Author reloaded = new Author(101L, "jim");
+    cache.index("first", selectAll, Collections.singletonList(new Author(101L, "jim")));
+    cache.index("second", selectAll, Collections.singletonList(reloaded));
+
+    cache.forget("first");
+    assertSame(reloaded, cache.lookup(statement("selectById", "authorResult", true, true), 101L, RowBounds.DEFAULT).get(0));
+    cache.forget("second");
+    assertEquals(0, cache.size());
+  }
+
+  private MappedStatement statement(String id, String resultMapId, boolean identityCache, boolean identityLookup) {
+    List<ResultMapping> mappings = new ArrayList<>();
+    mappings.add(new ResultMapping.Builder(configuration, "id", "id", Long.class)
+        .flags(Collections.singletonList(ResultFlag.ID)).build());
+    mappings.add(new ResultMapping.Builder(configuration, "username", "username", String.class).build());
+    ResultMap resultMap = new ResultMap.Builder(configuration, resultMapId, Author.class, mappings)
+        .identityCache(identityCache).build();
+    return new MappedStatement.Builder(configuration, id, new StaticSqlSource(configuration, "select * from author"),
+        SqlCommandType.SELECT).resultMaps(Collections.singletonList(resultMap)).identityLookup(identityLookup).build();
+  }
+
+  public static class Author {
+    private Long id;
+    private String username;
+
+    public Author() {
+    }
+
+    Author(Long id, String username) {
+      this.id = id;
+      this.username = username;
+    }
+
+    public Long getId() {
+      return id;
+    }
+
+    public void setId(Long id) {
+      this.id = id;
+    }
+
+    public String getUsername() {
+      return username;
+    }
+
+    public void setUsername(String username) {
+      this.username = username;
+    }
+  }
+
+}
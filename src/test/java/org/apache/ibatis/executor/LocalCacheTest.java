@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+class LocalCacheTest {
+
+  @Test
+  void shouldNotEvictWhenUnbounded() {
+    LocalCache cache = new LocalCache("local");
+    for (int i = 0; i < 100; i++) {
+      cache.putObject(i, Collections.singletonList(i));
+    }
+    assertEquals(100, cache.getSize());
+    assertEquals(100, cache.getHighWaterEntries());
+    assertEquals(100, cache.getHighWaterRows());
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedEntryBeyondMaxEntries() {
+    LocalCache cache = new LocalCache("local", 3, 0);
+    cache.putObject(0, Collections.singletonList(0));
+    cache.putObject(1, Collections.singletonList(1));
+    cache.putObject(2, Collections.singletonList(2));
+    cache.getObject(0);
+    cache.putObject(3, Collections.singletonList(3));
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertEquals(3, cache.getSize());
+  }
+
+  @Test
+  void shouldEvictByRowsWeight() {
+    LocalCache cache = new LocalCache("local", 0, 5);
+    cache.putObject(0, Arrays.asList(1, 2, 3));
+    cache.putObject(1, Arrays.asList(4, 5));
+    cache.putObject(2, Arrays.asList(6, 7));
+    assertNull(cache.getObject(0));
+    assertNotNull(cache.getObject(1));
+    assertNotNull(cache.getObject(2));
+    assertEquals(5, cache.getHighWaterRows());
+  }
+
+  @Test
+  void shouldNeverEvictPlaceholdersOrPinnedEntries() {
+    LocalCache cache = new LocalCache("local", 1, 0);
+    cache.putObject("running", EXECUTION_PLACEHOLDER);
+    cache.pin("deferred");
+    cache.putObject("deferred", Collections.singletonList(0));
+    cache.putObject("other", Collections.singletonList(1));
+    assertSame(EXECUTION_PLACEHOLDER, cache.getObject("running"));
+    assertNotNull(cache.getObject("deferred"));
+    assertNull(cache.getObject("other"));
+    cache.unpinAll();
+    assertNull(cache.getObject("deferred"));
+  }
+
+  @Test
+  void shouldResetWeightOnClear() {
+    LocalCache cache = new LocalCache("local", 0, 2);
+    cache.putObject(0, Arrays.asList(1, 2));
+    cache.clear();
+    cache.putObject(1, Arrays.asList(3, 4));
+    assertNotNull(cache.getObject(1));
+    assertEquals(2, cache.getHighWaterRows());
+  }
+
+}
@@ -0,0 +1,50 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class MultiRowInsertTest {
+
+  @Test
+  void shouldRepeatValuesList() {
+    MultiRowInsert insert = MultiRowInsert.parse("INSERT INTO author (id, username) values(?, upper(?))");
+    assertNotNull(insert);
+    assertEquals(2, insert.getParameterCount());
+    assertEquals("INSERT INTO author (id, username) values (?, upper(?)),(?, upper(?)),(?, upper(?))", insert.sql(3));
+  }
+
+  @Test
+  void shouldIgnoreQuotedText() {
+    MultiRowInsert insert = MultiRowInsert.parse("  insert into \"values\" (a, b) VALUES (?, 'a?'')')\n");
+    assertNotNull(insert);
+    assertEquals(1, insert.getParameterCount());
+    assertEquals("insert into \"values\" (a, b) VALUES (?, 'a?'')'),(?, 'a?'')')", insert.sql(2));
+  }
+
+  @Test
+  void shouldRejectStatementsThatCannotBeRewritten() {
+    assertNull(MultiRowInsert.parse("UPDATE author SET username = ? WHERE id = ?"));
+    assertNull(MultiRowInsert.parse("INSERT INTO author (id) SELECT id FROM blog WHERE id = ?"));
+    assertNull(MultiRowInsert.parse("INSERT INTO author (id) VALUES (?), (?)"));
+    assertNull(MultiRowInsert.parse("INSERT INTO author (id) VALUES (?) ON DUPLICATE KEY UPDATE id = ?"));
+    assertNull(MultiRowInsert.parse("INSERT INTO author (id) VALUES (?) RETURNING id"));
+    assertNull(MultiRowInsert.parse("INSERT INTO author (id) VALUES (?) -- comment"));
+  }
+
+}
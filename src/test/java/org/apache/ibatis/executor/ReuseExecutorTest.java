@@ -15,8 +15,22 @@
  */
 package org.apache.ibatis.executor;
 
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Deadline;
 import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 
 class ReuseExecutorTest extends BaseExecutorTest {
 
@@ -30,6 +44,23 @@ class ReuseExecutorTest extends BaseExecutorTest {
     super.shouldFetchPostWithBlogWithCompositeKey();
   }
 
+  @Test
+  void shouldRestoreQueryTimeoutLoweredByDeadline() throws Exception {
+    ReuseExecutor executor = new ReuseExecutor(config, new JdbcTransaction((DataSource) null, null, false));
+    MappedStatement ms = new MappedStatement.Builder(config, "select", new StaticSqlSource(config, "select 1"),
+        SqlCommandType.SELECT).timeout(30).build();
+    Statement statement = mock(Statement.class);
+    try (Deadline deadline = Deadline.start(1500, TimeUnit.MILLISECONDS)) {
+      executor.applyTimeouts(ms, statement);
+    }
+    executor.applyTimeouts(ms, statement);
+
+    InOrder inOrder = inOrder(statement);
+    inOrder.verify(statement).setQueryTimeout(30);
+    inOrder.verify(statement).setQueryTimeout(2); // lowered by the deadline
+    inOrder.verify(statement).setQueryTimeout(30); // reused without a deadline
+  }
+
   @Override
   protected Executor createExecutor(Transaction transaction) {
     return new ReuseExecutor(config,transaction);
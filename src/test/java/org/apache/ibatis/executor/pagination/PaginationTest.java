@@ -0,0 +1,175 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.pagination;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ParameterMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetRowBounds;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+class PaginationTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @Test
+  void shouldRewriteWithDialects() {
+    List<Object> parameters = new ArrayList<>();
+    assertEquals("SELECT * FROM blog LIMIT ? OFFSET ?", new LimitOffsetDialect().paginate("SELECT * FROM blog", 20, 10, parameters));
+    assertEquals(Arrays.asList(10, 20), parameters);
+    parameters.clear();
+    assertEquals("SELECT * FROM blog OFFSET ? ROWS FETCH FIRST ? ROWS ONLY", new OffsetFetchDialect().paginate("SELECT * FROM blog", 20, 10, parameters));
+    assertEquals(Arrays.asList(20, 10), parameters);
+    parameters.clear();
+    assertEquals("SELECT * FROM (SELECT page_.*, ROWNUM rownum_ FROM (SELECT * FROM blog) page_ WHERE ROWNUM <= ?) WHERE rownum_ > ?",
+        new RownumDialect().paginate("SELECT * FROM blog", 20, 10, parameters));
+    assertEquals(Arrays.asList(30, 20), parameters);
+  }
+
+  @Test
+  void shouldAppendAfterTrailingTerminatorsAndComments() {
+    List<Object> parameters = new ArrayList<>();
+    assertEquals("SELECT * FROM blog LIMIT ?", new LimitOffsetDialect().paginate("SELECT * FROM blog ; ", 0, 10, parameters));
+    assertEquals("SELECT * FROM blog -- all\n WHERE id > 0 LIMIT ?",
+        new LimitOffsetDialect().paginate("SELECT * FROM blog -- all\n WHERE id > 0 -- positive", 0, 10, parameters));
+    assertEquals("SELECT * FROM blog ORDER BY id OFFSET ? ROWS FETCH FIRST ? ROWS ONLY",
+        new OffsetFetchDialect().paginate("SELECT * FROM blog ORDER BY id /* by id */;", 20, 10, parameters));
+    assertEquals("SELECT * FROM (SELECT * FROM blog) WHERE ROWNUM <= ?",
+        new RownumDialect().paginate("SELECT * FROM blog -- all", 0, 10, parameters));
+  }
+
+  @Test
+  void shouldNotPaginateQueriesThatCannotBeExtended() {
+    List<Object> parameters = new ArrayList<>();
+    LimitOffsetDialect limitOffset = new LimitOffsetDialect();
+    assertNull(limitOffset.paginate("SELECT * FROM blog LIMIT 5", 20, 10, parameters));
+    assertNull(limitOffset.paginate("SELECT * FROM blog FETCH FIRST 5 ROWS ONLY", 20, 10, parameters));
+    assertNull(limitOffset.paginate("SELECT * FROM blog FOR UPDATE", 20, 10, parameters));
+    assertNull(limitOffset.paginate("SELECT * FROM blog; DELETE FROM blog", 20, 10, parameters));
+    assertNull(limitOffset.paginate("SELECT * FROM blog WHERE title = 'unterminated", 20, 10, parameters));
+    OffsetFetchDialect offsetFetch = new OffsetFetchDialect();
+    assertNull(offsetFetch.paginate("SELECT * FROM blog ORDER BY id FETCH FIRST 5 ROWS ONLY", 20, 10, parameters));
+    assertNull(offsetFetch.paginate("SELECT TOP 5 * FROM blog ORDER BY id", 20, 10, parameters));
+    assertNull(offsetFetch.paginate("SELECT * FROM blog FOR UPDATE", 20, 10, parameters));
+    assertNull(new RownumDialect().paginate("SELECT * FROM blog FOR UPDATE", 20, 10, parameters));
+    assertTrue(parameters.isEmpty());
+
+    assertEquals("SELECT * FROM blog WHERE id IN (SELECT blog_id FROM post LIMIT 5) LIMIT ?",
+        limitOffset.paginate("SELECT * FROM blog WHERE id IN (SELECT blog_id FROM post LIMIT 5)", 0, 10, parameters));
+    assertEquals("SELECT 'for update' AS note, b.offset FROM blog b LIMIT ?",
+        limitOffset.paginate("SELECT 'for update' AS note, b.offset FROM blog b", 0, 10, parameters));
+  }
+
+  @Test
+  void shouldRequireOrderByForSqlServer() {
+    List<Object> parameters = new ArrayList<>();
+    PaginationDialect dialect = Pagination.dialectFor("SQL Server");
+    assertNull(dialect.paginate("SELECT * FROM blog", 20, 10, parameters));
+    assertNull(dialect.paginate("SELECT ROW_NUMBER() OVER (ORDER BY id) AS n FROM blog", 20, 10, parameters));
+    assertEquals("SELECT * FROM blog ORDER BY id OFFSET ? ROWS FETCH FIRST ? ROWS ONLY",
+        dialect.paginate("SELECT * FROM blog ORDER BY id", 20, 10, parameters));
+    assertNotNull(Pagination.dialectFor("derby").paginate("SELECT * FROM blog", 20, 10, parameters));
+  }
+
+  @Test
+  void shouldSkipRowsWhenTheDialectCannotPaginate() {
+    configuration.setDatabasePagination(true);
+    configuration.setPaginationDialect(new LimitOffsetDialect());
+    MappedStatement ms = statement("SELECT * FROM blog WHERE author_id = ? FOR UPDATE");
+    assertNull(Pagination.paginate(ms, ms.getBoundSql(null), new RowBounds(10, 5)));
+
+    configuration.setPaginationDialect((sql, offset, limit, parameters) -> null);
+    ms = statement("SELECT * FROM blog WHERE author_id = ?;");
+    BoundSql page = Pagination.paginate(ms, ms.getBoundSql(null), new KeysetRowBounds(5, "id"));
+    assertEquals("SELECT * FROM (SELECT * FROM blog WHERE author_id = ?) keyset_ ORDER BY id", page.getSql());
+    assertEquals(5, Pagination.remainingRowBounds(new KeysetRowBounds(5, "id")).getLimit());
+  }
+
+  @Test
+  void shouldResolveDialectByDatabaseId() {
+    assertTrue(Pagination.dialectFor("mysql") instanceof LimitOffsetDialect);
+    assertTrue(Pagination.dialectFor("PostgreSQL") instanceof LimitOffsetDialect);
+    assertTrue(Pagination.dialectFor("sqlserver") instanceof OffsetFetchDialect);
+    assertTrue(Pagination.dialectFor("oracle") instanceof RownumDialect);
+    assertNull(Pagination.dialectFor("unknown"));
+    assertNull(Pagination.dialectFor(null));
+  }
+
+  @Test
+  void shouldKeepRowBoundsUnlessDatabasePaginationIsEnabled() {
+    configuration.setPaginationDialect(new LimitOffsetDialect());
+    MappedStatement ms = statement();
+    assertNull(Pagination.paginate(ms, ms.getBoundSql(null), new RowBounds(10, 5)));
+    configuration.setDatabasePagination(true);
+    assertNull(Pagination.paginate(ms, ms.getBoundSql(null), RowBounds.DEFAULT));
+
+    BoundSql page = Pagination.paginate(ms, ms.getBoundSql(null), new RowBounds(10, 5));
+    assertEquals("SELECT * FROM blog WHERE author_id = ? LIMIT ? OFFSET ?", page.getSql());
+    assertEquals(3, page.getParameterMappings().size());
+    assertEquals(5, page.getAdditionalParameter(page.getParameterMappings().get(1).getProperty()));
+    assertEquals(10, page.getAdditionalParameter(page.getParameterMappings().get(2).getProperty()));
+  }
+
+  @Test
+  void shouldNotPaginateWithoutDialect() {
+    configuration.setDatabasePagination(true);
+    MappedStatement ms = statement();
+    assertNull(Pagination.paginate(ms, ms.getBoundSql(null), new RowBounds(10, 5)));
+  }
+
+  @Test
+  void shouldSeekToKeysetPage() {
+    configuration.setPaginationDialect(new LimitOffsetDialect());
+    MappedStatement ms = statement();
+    KeysetRowBounds firstPage = new KeysetRowBounds(5, "created_on", "id");
+    assertEquals("SELECT * FROM (SELECT * FROM blog WHERE author_id = ?) keyset_ ORDER BY created_on, id LIMIT ?",
+        Pagination.paginate(ms, ms.getBoundSql(null), firstPage).getSql());
+
+    BoundSql page = Pagination.paginate(ms, ms.getBoundSql(null), firstPage.after("2019-01-01", 7));
+    assertEquals("SELECT * FROM (SELECT * FROM blog WHERE author_id = ?) keyset_"
+        + " WHERE (created_on > ?) OR (created_on = ? AND id > ?) ORDER BY created_on, id LIMIT ?", page.getSql());
+    List<Object> values = new ArrayList<>();
+    for (ParameterMapping parameterMapping : page.getParameterMappings().subList(1, 5)) {
+      values.add(page.getAdditionalParameter(parameterMapping.getProperty()));
+    }
+    assertEquals(Arrays.asList("2019-01-01", "2019-01-01", 7, 5), values);
+    assertEquals(5, Pagination.remainingRowBounds(firstPage).getLimit());
+  }
+
+  private MappedStatement statement() {
+    return statement("SELECT * FROM blog WHERE author_id = ?");
+  }
+
+  private MappedStatement statement(String sql) {
+    List<ParameterMapping> parameterMappings = Collections.singletonList(
+        new ParameterMapping.Builder(configuration, "authorId", Integer.class).build());
+    return new MappedStatement.Builder(configuration, "selectBlogs",
+        new StaticSqlSource(configuration, sql, parameterMappings), SqlCommandType.SELECT)
+        .resultMaps(Collections.emptyList()).build();
+  }
+
+}
@@ -0,0 +1,105 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.type.JdbcType;
+import org.junit.jupiter.api.Test;
+
+class ColumnarResultTest {
+
+  private final ColumnarResult result = new ColumnarResult(Arrays.asList("ID", "TOTAL", "PRICE", "NAME", "CREATED"),
+      Arrays.asList(JdbcType.INTEGER, JdbcType.BIGINT, JdbcType.DECIMAL, JdbcType.VARCHAR, JdbcType.TIMESTAMP));
+
+  @Test
+  void shouldReadColumnsIntoArrays() throws Exception {
+    result.readRow(row(1, 10L, new BigDecimal("1.50"), "a", new Timestamp(1000L)));
+    result.readRow(row(2, 20L, new BigDecimal("0.10"), "b", new Timestamp(2000L)));
+    assertEquals(2, result.size());
+    assertArrayEquals(new int[] { 1, 2 }, result.getInts("ID"));
+    assertArrayEquals(new long[] { 10L, 20L }, result.getLongs("TOTAL"));
+    assertArrayEquals(new BigDecimal[] { new BigDecimal("1.50"), new BigDecimal("0.10") }, result.getDecimals("price"));
+    assertArrayEquals(new String[] { "a", "b" }, result.getStrings("NAME"));
+    assertArrayEquals(new long[] { 1000L, 2000L }, result.getLongs("CREATED"));
+    assertEquals(ColumnarResult.ColumnType.LONG, result.getColumnType("CREATED"));
+  }
+
+  @Test
+  void shouldTrackNulls() throws Exception {
+    result.readRow(row(0, null, null, null, null));
+    result.readRow(row(null, 0L, BigDecimal.ZERO, "", new Timestamp(0L)));
+    assertFalse(result.isNull("ID", 0));
+    assertTrue(result.isNull("TOTAL", 0));
+    assertTrue(result.isNull("PRICE", 0));
+    assertTrue(result.isNull("NAME", 0));
+    assertTrue(result.isNull("CREATED", 0));
+    assertTrue(result.isNull("ID", 1));
+    assertFalse(result.isNull("TOTAL", 1));
+    assertFalse(result.isNull("CREATED", 1));
+    assertArrayEquals(new int[] { 0, 0 }, result.getInts("ID"));
+  }
+
+  @Test
+  void shouldGrowAcrossChunks() throws Exception {
+    for (int i = 0; i < 10000; i++) {
+      result.readRow(row(i, (long) i, BigDecimal.valueOf(i), null, null));
+    }
+    int[] ids = result.getInts("ID");
+    assertEquals(10000, ids.length);
+    for (int i = 0; i < ids.length; i++) {
+      assertEquals(i, ids[i]);
+    }
+    assertEquals(9999L, result.getLongs("TOTAL")[9999]);
+  }
+
+  @Test
+  void shouldRejectOtherColumnTypes() {
+    assertThrows(ExecutorException.class, () -> result.getInts("NAME"));
+    assertThrows(ExecutorException.class, () -> result.getDoubles("PRICE"));
+    assertThrows(ExecutorException.class, () -> result.getInts("UNKNOWN"));
+  }
+
+  private ResultSet row(Object... values) {
+    Object[] last = new Object[1];
+    return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+        (proxy, method, args) -> {
+          if ("wasNull".equals(method.getName())) {
+            return last[0] == null;
+          }
+          Object value = values[(Integer) args[0] - 1];
+          last[0] = value;
+          switch (method.getName()) {
+            case "getInt":
+              return value == null ? 0 : value;
+            case "getLong":
+              return value == null ? 0L : value;
+            case "getDouble":
+              return value == null ? 0d : value;
+            default:
+              return value;
+          }
+        });
+  }
+
+}
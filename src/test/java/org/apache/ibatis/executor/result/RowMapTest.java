@@ -0,0 +1,101 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.result;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class RowMapTest {
+
+  private final RowMap.Keys keys = new RowMap.Keys(Arrays.asList("ID", "NAME", "ID", "EMAIL"));
+
+  @Test
+  void shouldShareKeys() {
+    assertEquals(3, keys.size());
+    RowMap first = new RowMap(keys);
+    RowMap second = new RowMap(keys);
+    first.put("ID", 1);
+    second.put("ID", 2);
+    second.put("NAME", "bob");
+    assertEquals(1, first.get("ID"));
+    assertEquals(1, first.size());
+    assertEquals(2, second.get("ID"));
+    assertEquals("bob", second.get("NAME"));
+    assertEquals(2, second.size());
+  }
+
+  @Test
+  void shouldBehaveLikeHashMap() {
+    RowMap row = new RowMap(keys);
+    Map<String, Object> expected = new HashMap<>();
+    for (Map<String, Object> map : Arrays.asList(row, expected)) {
+      map.put("ID", 1);
+      map.put("EMAIL", null);
+      map.put("OTHER", "x");
+      map.put("NAME", "ann");
+      map.remove("NAME");
+    }
+    assertEquals(expected, row);
+    assertEquals(row, expected);
+    assertEquals(expected.hashCode(), row.hashCode());
+    assertTrue(row.containsKey("EMAIL"));
+    assertFalse(row.containsKey("NAME"));
+    assertNull(row.get("EMAIL"));
+    assertEquals("x", row.get("OTHER"));
+    assertEquals(3, row.size());
+  }
+
+  @Test
+  void shouldIterateSharedKeysInOrder() {
+    RowMap row = new RowMap(keys);
+    row.put("OTHER", "x");
+    row.put("EMAIL", "a@b.c");
+    row.put("ID", 1);
+    assertEquals(Arrays.asList("ID", "EMAIL", "OTHER"), Arrays.asList(row.keySet().toArray()));
+    Iterator<Map.Entry<String, Object>> iterator = row.entrySet().iterator();
+    iterator.next().setValue(2);
+    iterator.next();
+    iterator.remove();
+    assertEquals(2, row.get("ID"));
+    assertFalse(row.containsKey("EMAIL"));
+    assertEquals(2, row.size());
+  }
+
+  @Test
+  void shouldSerializeAsMap() throws Exception {
+    RowMap row = new RowMap(keys);
+    row.put("ID", 1);
+    row.put("NAME", null);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(row);
+    }
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertEquals(row, in.readObject());
+    }
+  }
+
+}
@@ -0,0 +1,283 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.UnorderedResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CompiledRowMapperTest {
+
+  private Configuration configuration;
+
+  @BeforeEach
+  void setUp() {
+    configuration = new Configuration();
+    configuration.setCompileRowMappers(true);
+  }
+
+  @Test
+  void shouldMapRowsWithCompiledMapper() throws Exception {
+    List<Object> results = handle(Person.class, new Object[] { 1, "Ann", "x" }, new Object[] { 2, null, "y" });
+    assertEquals(2, results.size());
+    assertEquals(1, ((Person) results.get(0)).getId());
+    assertEquals("Ann", ((Person) results.get(0)).getName());
+    assertEquals("x", ((Person) results.get(0)).nickname);
+    assertEquals(2, ((Person) results.get(1)).getId());
+    assertNull(((Person) results.get(1)).getName());
+    assertEquals(1, configuration.getCompiledRowMappers().size());
+  }
+
+  @Test
+  void shouldMapRowsLikeInterpreter() throws Exception {
+    configuration.setCallSettersOnNulls(true);
+    List<Object> compiled = handle(Person.class, new Object[] { null, null, null });
+    configuration.setCompileRowMappers(false);
+    List<Object> interpreted = handle(Person.class, new Object[] { null, null, null });
+    assertEquals(interpreted.size(), compiled.size());
+    assertNull(compiled.get(0));
+    assertNull(interpreted.get(0));
+    configuration.setReturnInstanceForEmptyRow(true);
+    Person person = (Person) handle(Person.class, new Object[] { null, null, null }).get(0);
+    assertEquals(0, person.getId());
+    assertTrue(person.nameSet);
+  }
+
+  @Test
+  void shouldReuseCompiledMapperForSameColumns() throws Exception {
+    handle(Person.class, new Object[] { 1, "Ann", "x" });
+    CompiledRowMapper rowMapper = configuration.getCompiledRowMappers().get(key(Person.class));
+    assertNotNull(rowMapper);
+    handle(Person.class, new Object[] { 2, "Bob", "y" });
+    assertSame(rowMapper, configuration.getCompiledRowMappers().get(key(Person.class)));
+  }
+
+  @Test
+  void shouldNotCompileMapResults() throws Exception {
+    List<Object> results = handle(HashMap.class, new Object[] { 1, "Ann", "x" });
+    assertEquals("Ann", ((HashMap<?, ?>) results.get(0)).get("NAME"));
+    assertEquals(0, configuration.getCompiledRowMappers().size());
+  }
+
+  @Test
+  void shouldMapRowsInParallelInOrder() throws Exception {
+    configuration.setParallelRowMapping(true);
+    Object[][] rows = new Object[1000][];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = new Object[] { i, "name" + i, null };
+    }
+    List<Object> results = handle(Person.class, RowBounds.DEFAULT, rows);
+    assertEquals(rows.length, results.size());
+    for (int i = 0; i < rows.length; i++) {
+      assertEquals(i, ((Person) results.get(i)).getId());
+      assertEquals("name" + i, ((Person) results.get(i)).getName());
+    }
+  }
+
+  @Test
+  void shouldStopParallelMappingAtLimit() throws Exception {
+    configuration.setParallelRowMapping(true);
+    Object[][] rows = new Object[1000][];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = new Object[] { i, "name" + i, null };
+    }
+    List<Object> results = handle(Person.class, new RowBounds(10, 300), rows);
+    assertEquals(300, results.size());
+    assertEquals(10, ((Person) results.get(0)).getId());
+    assertEquals(309, ((Person) results.get(299)).getId());
+  }
+
+  @Test
+  void shouldMapRejectedBatchesOnStatementThread() throws Exception {
+    configuration.setParallelRowMapping(true);
+    configuration.setAsyncExecutor(command -> {
+      throw new RejectedExecutionException("saturated");
+    });
+    Object[][] rows = new Object[1000][];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = new Object[] { i, "name" + i, null };
+    }
+    List<Object> results = handle(Person.class, RowBounds.DEFAULT, rows);
+    assertEquals(rows.length, results.size());
+    assertEquals(999, ((Person) results.get(999)).getId());
+  }
+
+  @Test
+  void shouldHandUnorderedResultsOver() throws Exception {
+    configuration.setParallelRowMapping(true);
+    Object[][] rows = new Object[1000][];
+    for (int i = 0; i < rows.length; i++) {
+      rows[i] = new Object[] { i, "name" + i, null };
+    }
+    Set<Integer> ids = new HashSet<>();
+    UnorderedResultHandler<Person> resultHandler = context -> ids.add(context.getResultObject().getId());
+    DefaultResultSetHandler handler = new DefaultResultSetHandler(null, mappedStatement(Person.class), null, resultHandler,
+        null, RowBounds.DEFAULT);
+    handler.handleResultSets(statement(resultSet(rows)));
+    assertEquals(rows.length, ids.size());
+  }
+
+  private String key(Class<?> type) throws Exception {
+    return CompiledRowMappers.key(configuration, resultMap(type), new ResultSetWrapper(resultSet(), configuration));
+  }
+
+  private ResultMap resultMap(Class<?> type) {
+    List<ResultMapping> mappings = new ArrayList<>();
+    if (type == Person.class) {
+      mappings.add(new ResultMapping.Builder(configuration, "name", "NAME", String.class).build());
+    }
+    return new ResultMap.Builder(configuration, "person", type, mappings).build();
+  }
+
+  private List<Object> handle(Class<?> type, Object[]... rows) throws Exception {
+    return handle(type, RowBounds.DEFAULT, rows);
+  }
+
+  private List<Object> handle(Class<?> type, RowBounds rowBounds, Object[]... rows) throws Exception {
+    DefaultResultSetHandler handler = new DefaultResultSetHandler(null, mappedStatement(type), null, null, null, rowBounds);
+    return handler.handleResultSets(statement(resultSet(rows)));
+  }
+
+  private MappedStatement mappedStatement(Class<?> type) {
+    return new MappedStatement.Builder(configuration, "selectPerson",
+        new StaticSqlSource(configuration, "select"), SqlCommandType.SELECT)
+        .resultMaps(Collections.singletonList(resultMap(type)))
+        .build();
+  }
+
+  private static final String[] LABELS = { "ID", "NAME", "NICKNAME" };
+  private static final int[] TYPES = { Types.INTEGER, Types.VARCHAR, Types.VARCHAR };
+  private static final String[] CLASSES = { Integer.class.getName(), String.class.getName(), String.class.getName() };
+
+  private ResultSet resultSet(Object[]... rows) {
+    ResultSetMetaData metaData = proxy(ResultSetMetaData.class, (method, args) -> {
+      switch (method) {
+        case "getColumnCount":
+          return LABELS.length;
+        case "getColumnLabel":
+        case "getColumnName":
+          return LABELS[(Integer) args[0] - 1];
+        case "getColumnType":
+          return TYPES[(Integer) args[0] - 1];
+        case "getColumnClassName":
+          return CLASSES[(Integer) args[0] - 1];
+        default:
+          return null;
+      }
+    });
+    int[] row = { -1 };
+    Object[] lastValue = { null };
+    return proxy(ResultSet.class, (method, args) -> {
+      switch (method) {
+        case "getMetaData":
+          return metaData;
+        case "getType":
+          return ResultSet.TYPE_FORWARD_ONLY;
+        case "next":
+          return ++row[0] < rows.length;
+        case "isClosed":
+          return false;
+        case "wasNull":
+          return lastValue[0] == null;
+        case "getInt":
+        case "getString":
+        case "getObject":
+          int index = args[0] instanceof Integer ? (Integer) args[0] : Arrays.asList(LABELS).indexOf(((String) args[0]).toUpperCase()) + 1;
+          lastValue[0] = rows[row[0]][index - 1];
+          if ("getInt".equals(method) && lastValue[0] == null) {
+            return 0;
+          }
+          return lastValue[0];
+        default:
+          return null;
+      }
+    });
+  }
+
+  private Statement statement(ResultSet rs) {
+    DatabaseMetaData databaseMetaData = proxy(DatabaseMetaData.class, (method, args) -> false);
+    Connection connection = proxy(Connection.class, (method, args) -> databaseMetaData);
+    return proxy(Statement.class, (method, args) -> {
+      switch (method) {
+        case "getResultSet":
+          return rs;
+        case "getConnection":
+          return connection;
+        default:
+          return null;
+      }
+    });
+  }
+
+  private interface Answer {
+    Object answer(String method, Object[] args) throws Exception;
+  }
+
+  private static <T> T proxy(Class<T> type, Answer answer) {
+    return type.cast(Proxy.newProxyInstance(CompiledRowMapperTest.class.getClassLoader(), new Class<?>[] { type },
+        (proxy, method, args) -> answer.answer(method.getName(), args)));
+  }
+
+  public static class Person {
+    private int id;
+    private String name;
+    private String nickname;
+    private boolean nameSet;
+
+    public int getId() {
+      return id;
+    }
+
+    public void setId(int id) {
+      this.id = id;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public void setName(String name) {
+      this.name = name;
+      this.nameSet = true;
+    }
+  }
+
+}
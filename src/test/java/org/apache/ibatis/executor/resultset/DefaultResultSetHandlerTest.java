@@ -17,6 +17,7 @@ package org.apache.ibatis.executor.resultset;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -28,14 +29,18 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.executor.result.RowMap;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultMap;
@@ -87,7 +92,7 @@ class DefaultResultSetHandlerTest {
     when(rs.getMetaData()).thenReturn(rsmd);
     when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
     when(rs.next()).thenReturn(true).thenReturn(false);
-    when(rs.getInt("CoLuMn1")).thenReturn(100);
+    when(rs.getInt(1)).thenReturn(100);
     when(rsmd.getColumnCount()).thenReturn(1);
     when(rsmd.getColumnLabel(1)).thenReturn("CoLuMn1");
     when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER);
@@ -129,6 +134,86 @@ class DefaultResultSetHandlerTest {
     }
   }
 
+  @Test
+  void shouldMapRowsToMapsSharingKeys() throws Exception {
+    final Configuration config = new Configuration();
+    config.setCompactRowMaps(true);
+    final MappedStatement ms = new MappedStatement.Builder(config, "testSelect", new StaticSqlSource(config, "some select statement"), SqlCommandType.SELECT)
+        .resultMaps(Collections.singletonList(new ResultMap.Builder(config, "testMap", Map.class, new ArrayList<>()).build())).build();
+    final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null, ms, null, null, null, new RowBounds(0, 100));
+
+    when(stmt.getResultSet()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(rs.next()).thenReturn(true).thenReturn(true).thenReturn(false);
+    when(rs.getInt(1)).thenReturn(1).thenReturn(2);
+    when(rs.getString(2)).thenReturn("ann").thenReturn("bob");
+    when(rsmd.getColumnCount()).thenReturn(2);
+    when(rsmd.getColumnLabel(1)).thenReturn("ID");
+    when(rsmd.getColumnLabel(2)).thenReturn("NAME");
+    when(rsmd.getColumnType(1)).thenReturn(Types.INTEGER);
+    when(rsmd.getColumnType(2)).thenReturn(Types.VARCHAR);
+    when(rsmd.getColumnClassName(1)).thenReturn(Integer.class.getCanonicalName());
+    when(rsmd.getColumnClassName(2)).thenReturn(String.class.getCanonicalName());
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(false); // for simplicity.
+
+    final List<Object> results = resultSetHandler.handleResultSets(stmt);
+    assertEquals(2, results.size());
+    Assertions.assertTrue(results.get(0) instanceof RowMap);
+    assertEquals(1, ((Map) results.get(0)).get("ID"));
+    assertEquals("ann", ((Map) results.get(0)).get("NAME"));
+    assertEquals(2, ((Map) results.get(1)).get("ID"));
+    assertEquals("bob", ((Map) results.get(1)).get("NAME"));
+  }
+
+  @Test
+  void shouldAutoMapResultSetsOfSameResultMapWithDifferentColumnOrders() throws Exception {
+    final Configuration config = new Configuration();
+    final ResultMap resultMap = new ResultMap.Builder(config, "authorMap", Author.class, new ArrayList<>()).build();
+    final MappedStatement ms = new MappedStatement.Builder(config, "testSelect", new StaticSqlSource(config, "some select statement"), SqlCommandType.SELECT)
+        .resultMaps(Arrays.asList(resultMap, resultMap)).build();
+    final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null, ms, null, null, null, new RowBounds(0, 100));
+    final ResultSet rs2 = mock(ResultSet.class);
+    final ResultSetMetaData rsmd2 = mock(ResultSetMetaData.class);
+
+    when(stmt.getResultSet()).thenReturn(rs).thenReturn(rs2);
+    lenient().when(stmt.getMoreResults()).thenReturn(true).thenReturn(false);
+    lenient().when(stmt.getUpdateCount()).thenReturn(-1);
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(true);
+    stubAuthorResultSet(rs, rsmd, "ID", "USERNAME");
+    lenient().when(rs.getInt(1)).thenReturn(101);
+    lenient().when(rs.getString(2)).thenReturn("jim");
+    stubAuthorResultSet(rs2, rsmd2, "USERNAME", "ID");
+    lenient().when(rs2.getString(1)).thenReturn("sally");
+    lenient().when(rs2.getInt(2)).thenReturn(102);
+
+    final List<Object> results = resultSetHandler.handleResultSets(stmt);
+    assertEquals(2, results.size());
+    final Author jim = (Author) ((List<?>) results.get(0)).get(0);
+    assertEquals(101, jim.getId());
+    assertEquals("jim", jim.getUsername());
+    final Author sally = (Author) ((List<?>) results.get(1)).get(0);
+    assertEquals(102, sally.getId());
+    assertEquals("sally", sally.getUsername());
+  }
+
+  private void stubAuthorResultSet(ResultSet resultSet, ResultSetMetaData metaData, String... columns) throws SQLException {
+    when(resultSet.getMetaData()).thenReturn(metaData);
+    lenient().when(resultSet.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(resultSet.next()).thenReturn(true).thenReturn(false);
+    when(metaData.getColumnCount()).thenReturn(columns.length);
+    for (int i = 0; i < columns.length; i++) {
+      boolean id = "ID".equals(columns[i]);
+      when(metaData.getColumnLabel(i + 1)).thenReturn(columns[i]);
+      when(metaData.getColumnType(i + 1)).thenReturn(id ? Types.INTEGER : Types.VARCHAR);
+      when(metaData.getColumnClassName(i + 1)).thenReturn(id ? Integer.class.getCanonicalName() : String.class.getCanonicalName());
+    }
+  }
+
   MappedStatement getMappedStatement() {
     final Configuration config = new Configuration();
     final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
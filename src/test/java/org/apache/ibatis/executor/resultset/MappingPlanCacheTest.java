@@ -0,0 +1,93 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.session.Configuration;
+import org.junit.jupiter.api.Test;
+
+class MappingPlanCacheTest {
+
+  private final Configuration configuration = new Configuration();
+
+  @Test
+  void shouldShareColumnNamesBetweenResultSetsOfSameLayout() throws Exception {
+    ResultMap resultMap = resultMap();
+    ResultSetWrapper first = new ResultSetWrapper(resultSet("ID", "NAME"), configuration);
+    ResultSetWrapper second = new ResultSetWrapper(resultSet("ID", "NAME"), configuration);
+    assertEquals(first.getColumnSignature(), second.getColumnSignature());
+    assertEquals(Collections.singletonList("NAME"), first.getMappedColumnNames(resultMap, null));
+    assertSame(first.getMappedColumnNames(resultMap, null), second.getMappedColumnNames(resultMap, null));
+    assertSame(first.getUnmappedColumnNames(resultMap, null), second.getUnmappedColumnNames(resultMap, null));
+    assertSame(first.getTypeHandler(Object.class, "ID"), second.getTypeHandler(Object.class, "ID"));
+  }
+
+  @Test
+  void shouldNotShareColumnNamesBetweenLayouts() throws Exception {
+    ResultMap resultMap = resultMap();
+    ResultSetWrapper first = new ResultSetWrapper(resultSet("ID", "NAME"), configuration);
+    ResultSetWrapper second = new ResultSetWrapper(resultSet("NAME", "ID"), configuration);
+    assertNotEquals(first.getColumnSignature(), second.getColumnSignature());
+    assertEquals(Collections.singletonList("ID"), first.getUnmappedColumnNames(resultMap, null));
+    assertEquals(Collections.singletonList("ID"), second.getUnmappedColumnNames(resultMap, null));
+    assertNotSame(first.getUnmappedColumnNames(resultMap, null), second.getUnmappedColumnNames(resultMap, null));
+  }
+
+  @Test
+  void shouldClearPlans() throws Exception {
+    new ResultSetWrapper(resultSet("ID", "NAME"), configuration).getMappedColumnNames(resultMap(), null);
+    assertTrue(configuration.getMappingPlanCache().size() > 0);
+    configuration.getMappingPlanCache().clear();
+    assertEquals(0, configuration.getMappingPlanCache().size());
+  }
+
+  private ResultMap resultMap() {
+    ArrayList<ResultMapping> mappings = new ArrayList<>();
+    mappings.add(new ResultMapping.Builder(configuration, "name", "NAME", String.class).build());
+    return new ResultMap.Builder(configuration, "person", Object.class, mappings).build();
+  }
+
+  private ResultSet resultSet(String... labels) {
+    ResultSetMetaData metaData = (ResultSetMetaData) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getColumnCount":
+              return labels.length;
+            case "getColumnLabel":
+              return labels[(Integer) args[0] - 1];
+            case "getColumnType":
+              return Types.VARCHAR;
+            case "getColumnClassName":
+              return String.class.getName();
+            default:
+              return null;
+          }
+        });
+    return (ResultSet) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ResultSet.class },
+        (proxy, method, args) -> "getMetaData".equals(method.getName()) ? metaData : null);
+  }
+
+}
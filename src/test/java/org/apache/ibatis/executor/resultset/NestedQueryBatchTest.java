@@ -0,0 +1,94 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.apache.ibatis.executor.resultset.NestedQueryBatch.KeyCondition;
+import org.junit.jupiter.api.Test;
+
+class NestedQueryBatchTest {
+
+  @Test
+  void shouldRewriteKeyConditionToInList() {
+    KeyCondition condition = KeyCondition.parse("select * from post p where p.blog_id = ? order by p.id");
+    assertNotNull(condition);
+    assertEquals("blog_id", condition.getColumn());
+    assertEquals("select * from post p where p.blog_id IN (?, ?, ?) order by p.id", condition.sql(3));
+  }
+
+  @Test
+  void shouldStripQuotesFromKeyColumn() {
+    KeyCondition condition = KeyCondition.parse("select * from author where \"ID\"=?");
+    assertNotNull(condition);
+    assertEquals("ID", condition.getColumn());
+    assertEquals("select * from author where \"ID\" IN (?)", condition.sql(1));
+  }
+
+  @Test
+  void shouldNotRewriteOtherConditions() {
+    assertNull(KeyCondition.parse("select * from post where blog_id >= ?"));
+    assertNull(KeyCondition.parse("select * from post where blog_id = ? and draft = ?"));
+    assertNull(KeyCondition.parse("select * from post where blog_id = ? limit 1"));
+    assertNull(KeyCondition.parse("select count(*) from post where blog_id = ? group by blog_id"));
+    assertNull(KeyCondition.parse("select * from post where id = 1"));
+  }
+
+  @Test
+  void shouldRewriteKeyConditionJoinedWithAnd() {
+    KeyCondition condition = KeyCondition.parse(
+        "select * from post where draft = 'or' and (section = 'NEWS' or section = 'VIDEOS') and blog_id = ? and id > 0");
+    assertNotNull(condition);
+    assertEquals("blog_id", condition.getColumn());
+    assertEquals("select * from post where draft = 'or' and (section = 'NEWS' or section = 'VIDEOS') and blog_id IN (?, ?) and id > 0",
+        condition.sql(2));
+  }
+
+  @Test
+  void shouldNotRewriteStatementsLimitingTheirRows() {
+    assertNull(KeyCondition.parse("select top 1 * from post where blog_id = ?"));
+    assertNull(KeyCondition.parse("select * from post where rownum <= 1 and blog_id = ?"));
+    assertNull(KeyCondition.parse("select distinct author_id from post where blog_id = ?"));
+    assertNull(KeyCondition.parse("select p.*, row_number() over (order by id) from post p where blog_id = ?"));
+    assertNull(KeyCondition.parse("select * from post where blog_id = ? fetch first 1 rows only"));
+  }
+
+  @Test
+  void shouldNotRewriteKeyConditionsOutsideOfTopLevelConjunction() {
+    assertNull(KeyCondition.parse("select * from post where blog_id = ? or draft = 1"));
+    assertNull(KeyCondition.parse("select * from post where draft = 1 or blog_id = ?"));
+    assertNull(KeyCondition.parse("select * from post where not blog_id = ?"));
+    assertNull(KeyCondition.parse("select * from post where id in (select post_id from comment where author_id = ?)"));
+    assertNull(KeyCondition.parse("select * from post where (blog_id = ?)"));
+    assertNull(KeyCondition.parse("select * from post where blog_id = ? -- key"));
+  }
+
+  @Test
+  void shouldCompareNumericKeysByValue() {
+    Object key = NestedQueryBatch.normalizeKey(100);
+    assertEquals(key, NestedQueryBatch.normalizeKey(100L));
+    assertEquals(key, NestedQueryBatch.normalizeKey((short) 100));
+    assertEquals(key, NestedQueryBatch.normalizeKey(BigInteger.valueOf(100)));
+    assertEquals(key, NestedQueryBatch.normalizeKey(new BigDecimal("100.00")));
+    assertEquals(NestedQueryBatch.normalizeKey(0), NestedQueryBatch.normalizeKey(new BigDecimal("0.0")));
+    assertNotEquals(key, NestedQueryBatch.normalizeKey("100"));
+    assertEquals("100", NestedQueryBatch.normalizeKey("100"));
+  }
+
+}
@@ -0,0 +1,77 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class RowKeyTest {
+
+  private final RowKey.Builder builder = new RowKey.Builder();
+
+  @Test
+  void shouldBeEqualForSameValues() {
+    RowKey first = key("blog", "ID", 1);
+    RowKey second = key("blog", "ID", 1);
+    assertNotSame(first, second);
+    assertEquals(first, second);
+    assertEquals(first.hashCode(), second.hashCode());
+    assertNotEquals(first, key("blog", "ID", 2));
+    assertNotEquals(first, key("post", "ID", 1));
+  }
+
+  @Test
+  void shouldCompareArrayValuesByContent() {
+    assertEquals(key("blog", "ID", new byte[] { 1, 2 }), key("blog", "ID", new byte[] { 1, 2 }));
+  }
+
+  @Test
+  void shouldCombineWithParent() {
+    RowKey post = key("post", "ID", 1);
+    assertEquals(post.combine(key("blog", "ID", 1)), key("post", "ID", 1).combine(key("blog", "ID", 1)));
+    assertNotEquals(post.combine(key("blog", "ID", 1)), post.combine(key("blog", "ID", 2)));
+    assertNotEquals(post, post.combine(key("blog", "ID", 1)));
+  }
+
+  @Test
+  void shouldBeNullWithoutValues() {
+    assertSame(RowKey.NULL, builder.start("blog").build());
+    assertSame(RowKey.NULL, key("post", "ID", 1).combine(RowKey.NULL));
+    assertSame(RowKey.NULL, RowKey.NULL.combine(key("blog", "ID", 1)));
+  }
+
+  @Test
+  void shouldGrowBuffer() {
+    builder.start("blog");
+    for (int i = 0; i < 20; i++) {
+      builder.add("C" + i, i);
+    }
+    RowKey wide = builder.build();
+    builder.start("blog");
+    for (int i = 0; i < 20; i++) {
+      builder.add("C" + i, i);
+    }
+    assertEquals(wide, builder.build());
+  }
+
+  private RowKey key(String resultMapId, String column, Object value) {
+    RowKey.Builder rowKey = builder.start(resultMapId);
+    rowKey.add(column, value);
+    return rowKey.build();
+  }
+
+}
@@ -25,8 +25,11 @@ import java.sql.SQLException;
 import java.sql.Statement;
 
 import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.executor.SingleResultRowBounds;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -145,4 +148,37 @@ class BaseStatementHandlerTest {
         verify(statement).setQueryTimeout(10);
     }
 
+    @Test
+    void specifyMaxRowsAndFetchSizeOfLimitedSelect() throws SQLException {
+        doReturn(100).when(configuration).getDefaultFetchSize();
+        mappedStatementBuilder = new MappedStatement.Builder(configuration, "id", new StaticSqlSource(configuration, "sql"), SqlCommandType.SELECT);
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, new RowBounds(1, 2), null, null);
+        handler.setMaxRows(statement);
+
+        verify(statement).setMaxRows(3); // the skipped rows and the limit
+        verify(statement).setFetchSize(3); // no need to fetch more rows
+    }
+
+    @Test
+    void specifyMaxRowsOfSelectOne() throws SQLException {
+        mappedStatementBuilder = new MappedStatement.Builder(configuration, "id", new StaticSqlSource(configuration, "sql"), SqlCommandType.SELECT);
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, SingleResultRowBounds.INSTANCE, null, null);
+        handler.setMaxRows(statement);
+
+        verify(statement).setMaxRows(2); // a second row is enough to fail
+        verify(statement).setFetchSize(2);
+    }
+
+    @Test
+    void notSpecifyMaxRowsWithoutLimit() throws SQLException {
+        mappedStatementBuilder = new MappedStatement.Builder(configuration, "id", new StaticSqlSource(configuration, "sql"), SqlCommandType.SELECT);
+
+        BaseStatementHandler handler = new SimpleStatementHandler(null, mappedStatementBuilder.build(), null, RowBounds.DEFAULT, null, null);
+        handler.setMaxRows(statement);
+
+        verifyZeroInteractions(statement); // not apply anything
+    }
+
 }
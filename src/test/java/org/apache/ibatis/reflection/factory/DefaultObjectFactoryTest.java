@@ -94,4 +94,40 @@ class DefaultObjectFactoryTest {
     Set set = defaultObjectFactory.create(Set.class);
     Assertions.assertTrue(set instanceof HashSet, " set should be HashSet");
   }
+
+  @Test
+  void createClassWithPrivateConstructorRepeatedly() {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    for (int i = 0; i < 3; i++) {
+      PrivateClass privateClass = defaultObjectFactory.create(PrivateClass.class,
+          Arrays.asList(int.class, String.class), Arrays.asList(i, "foo"));
+      Assertions.assertEquals(i, privateClass.myInt);
+      Assertions.assertEquals("foo", privateClass.myString);
+      Assertions.assertNotNull(defaultObjectFactory.create(PrivateClass.class));
+    }
+  }
+
+  @Test
+  void createClassThrowsExceptionOfConstructor() {
+    DefaultObjectFactory defaultObjectFactory = new DefaultObjectFactory();
+    ReflectionException e = Assertions.assertThrows(ReflectionException.class, () -> defaultObjectFactory.create(
+        PrivateClass.class, Arrays.asList(int.class, String.class), Arrays.asList(-1, "foo")));
+    Assertions.assertTrue(e.getCause() instanceof IllegalArgumentException);
+  }
+
+  private static class PrivateClass {
+    private int myInt;
+    private String myString;
+
+    private PrivateClass() {
+    }
+
+    private PrivateClass(int myInt, String myString) {
+      if (myInt < 0) {
+        throw new IllegalArgumentException("myInt");
+      }
+      this.myInt = myInt;
+      this.myString = myString;
+    }
+  }
 }
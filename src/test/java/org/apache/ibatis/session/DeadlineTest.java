@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.lang.reflect.Proxy;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.executor.statement.StatementUtil;
+import org.junit.jupiter.api.Test;
+
+class DeadlineTest {
+
+  private int queryTimeout;
+  private final CountDownLatch cancelled = new CountDownLatch(1);
+
+  @Test
+  void shouldDeriveQueryTimeoutFromRemainingTime() throws Exception {
+    Statement statement = newStatement();
+    queryTimeout = 30;
+    try (Deadline deadline = Deadline.start(1500, TimeUnit.MILLISECONDS)) {
+      StatementUtil.applyDeadline(statement);
+      assertEquals(2, queryTimeout);
+    }
+    assertNull(Deadline.current());
+  }
+
+  @Test
+  void shouldKeepShorterQueryTimeout() throws Exception {
+    Statement statement = newStatement();
+    queryTimeout = 5;
+    try (Deadline deadline = Deadline.start(1, TimeUnit.MINUTES)) {
+      StatementUtil.applyDeadline(statement);
+      assertEquals(5, queryTimeout);
+    }
+  }
+
+  @Test
+  void shouldCancelStatementAtDeadline() throws Exception {
+    Statement statement = newStatement();
+    try (Deadline deadline = Deadline.start(50, TimeUnit.MILLISECONDS)) {
+      StatementUtil.applyDeadline(statement);
+      assertTrue(cancelled.await(5, TimeUnit.SECONDS));
+      assertTrue(deadline.isExpired());
+      assertThrows(SQLTimeoutException.class, () -> StatementUtil.applyDeadline(statement));
+    }
+  }
+
+  @Test
+  void shouldNotCancelStatementAfterClose() throws Exception {
+    Statement statement = newStatement();
+    try (Deadline deadline = Deadline.start(50, TimeUnit.MILLISECONDS)) {
+      StatementUtil.applyDeadline(statement);
+    }
+    assertFalse(cancelled.await(200, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  void shouldNotOutliveEnclosingDeadline() {
+    try (Deadline outer = Deadline.start(1, TimeUnit.SECONDS)) {
+      try (Deadline inner = Deadline.start(1, TimeUnit.HOURS)) {
+        assertSame(inner, Deadline.current());
+        assertTrue(inner.remainingMillis() <= 1000);
+      }
+      assertSame(outer, Deadline.current());
+    }
+  }
+
+  private Statement newStatement() {
+    return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { Statement.class },
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getQueryTimeout":
+              return queryTimeout;
+            case "setQueryTimeout":
+              queryTimeout = (Integer) args[0];
+              return null;
+            case "cancel":
+              cancelled.countDown();
+              return null;
+            case "isClosed":
+              return false;
+            default:
+              return null;
+          }
+        });
+  }
+
+}
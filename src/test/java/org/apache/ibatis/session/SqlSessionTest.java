@@ -159,6 +159,32 @@ class SqlSessionTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldSelectMultipleStatements() {
+    try (SqlSession session = sqlMapper.openSession()) {
+      List<List<Object>> results = session.selectMultiple(new MultiQuery()
+          .add("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthors")
+          .add("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor", new Author(101)));
+      assertEquals(2, results.size());
+      assertEquals(2, results.get(0).size());
+      assertEquals(101, ((Author) results.get(1).get(0)).getId());
+    }
+  }
+
+  @Test
+  void shouldSelectMultipleStatementsInParallel() {
+    sqlMapper.getConfiguration().setParallelQueries(true);
+    try (SqlSession session = sqlMapper.openSession()) {
+      List<List<Object>> results = session.selectMultiple(new MultiQuery()
+          .add("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthors")
+          .add("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAuthor", new Author(101)));
+      assertEquals(2, results.get(0).size());
+      assertEquals(101, ((Author) results.get(1).get(0)).getId());
+    } finally {
+      sqlMapper.getConfiguration().setParallelQueries(false);
+    }
+  }
+
   @Test
   void shouldFailWithTooManyResultsException() {
     try (SqlSession session = sqlMapper.openSession(TransactionIsolationLevel.SERIALIZABLE)) {
@@ -168,6 +194,18 @@ class SqlSessionTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldNotCacheTheRowsReadBySelectOne() {
+    try (SqlSession session = sqlMapper.openSession()) {
+      Assertions.assertThrows(TooManyResultsException.class, () -> {
+        session.selectOne("org.apache.ibatis.domain.blog.mappers.PostMapper.findPost");
+      });
+      // selectOne() shares the cache key of the whole result but only read two rows
+      List<Post> posts = session.selectList("org.apache.ibatis.domain.blog.mappers.PostMapper.findPost");
+      assertEquals(5, posts.size());
+    }
+  }
+
   @Test
   void shouldSelectAllAuthorsAsMap() {
     try (SqlSession session = sqlMapper.openSession(TransactionIsolationLevel.SERIALIZABLE)) {
@@ -20,6 +20,7 @@ import java.util.Iterator;
 
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
@@ -88,6 +89,47 @@ class CursorNestedTest {
     Assertions.assertFalse(usersCursor.isOpen());
   }
 
+  @Test
+  void shouldStreamNestedResultsOfUnflaggedStatement() {
+    sqlSessionFactory.getConfiguration().setStreamNestedResults(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsersUnflagged");
+      Iterator<User> iterator = usersCursor.iterator();
+
+      User user = iterator.next();
+      Assertions.assertEquals(2, user.getGroups().size());
+      Assertions.assertEquals(3, user.getRoles().size());
+
+      user = iterator.next();
+      Assertions.assertEquals(1, user.getGroups().size());
+      Assertions.assertEquals(3, user.getRoles().size());
+
+      iterator.next();
+      iterator.next();
+      Assertions.assertFalse(iterator.hasNext());
+    } finally {
+      sqlSessionFactory.getConfiguration().setStreamNestedResults(false);
+    }
+  }
+
+  @Test
+  void shouldFailToStreamNestedResultsOfScatteredRows() {
+    sqlSessionFactory.getConfiguration().setStreamNestedResults(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsersByGroup");
+      Iterator<User> iterator = usersCursor.iterator();
+
+      // the rows of user 1 come back after those of the other users
+      Assertions.assertThrows(ExecutorException.class, () -> {
+        while (iterator.hasNext()) {
+          iterator.next();
+        }
+      });
+    } finally {
+      sqlSessionFactory.getConfiguration().setStreamNestedResults(false);
+    }
+  }
+
   @Test
   void testCursorWithRowBound() {
     try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
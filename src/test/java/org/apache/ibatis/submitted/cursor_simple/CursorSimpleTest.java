@@ -18,6 +18,7 @@ package org.apache.ibatis.submitted.cursor_simple;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -25,6 +26,7 @@ import java.util.NoSuchElementException;
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
@@ -97,6 +99,35 @@ class CursorSimpleTest {
     }
   }
 
+  @Test
+  void shouldPrefetchUsers() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Assertions.assertNull(configuration.getMappedStatement("getAllUsers").getCursorPrefetchSize());
+    Assertions.assertEquals(2, configuration.getMappedStatement("getAllUsersPrefetched").getCursorPrefetchSize());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsersPrefetched", null, new RowBounds(1, 3));
+      List<String> names = new ArrayList<>();
+      for (User user : usersCursor) {
+        names.add(user.getName());
+      }
+      Assertions.assertEquals(Arrays.asList("User2", "User3", "User4"), names);
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldStopPrefetchingOnSessionClose() {
+    Cursor<User> usersCursor;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      usersCursor = sqlSession.getMapper(Mapper.class).getUsersPrefetched();
+      Iterator<User> iterator = usersCursor.iterator();
+      Assertions.assertEquals("User1", iterator.next().getName());
+      Assertions.assertTrue(usersCursor.isOpen());
+    }
+    Assertions.assertFalse(usersCursor.isOpen());
+    Assertions.assertFalse(usersCursor.isConsumed());
+  }
+
   @Test
   void testCursorClosedOnSessionClose() {
     Cursor<User> usersCursor;
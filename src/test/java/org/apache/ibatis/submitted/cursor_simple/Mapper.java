@@ -38,4 +38,8 @@ public interface Mapper {
   @Select("select * from users")
   @Options(fetchSize = Integer.MIN_VALUE)
   Cursor<User> getUsersMysqlStream();
+
+  @Select("select * from users")
+  @Options(cursorPrefetchSize = 2)
+  Cursor<User> getUsersPrefetched();
 }
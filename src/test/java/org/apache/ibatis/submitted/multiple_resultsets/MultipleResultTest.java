@@ -21,6 +21,7 @@ import java.util.List;
 import org.apache.ibatis.BaseDataTest;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.MultiQuery;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
@@ -75,6 +76,30 @@ class MultipleResultTest {
     }
   }
 
+  @Test
+  void shouldJoinMultipleQueriesIntoOneStatement() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    configuration.setMultiStatementQueries(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<Object>> results = sqlSession.selectMultiple(new MultiQuery()
+          .add("org.apache.ibatis.submitted.multiple_resultsets.Mapper.getOrderDetails", 1)
+          .add("org.apache.ibatis.submitted.multiple_resultsets.Mapper.getOrderHeader", 2));
+      Assertions.assertEquals(2, results.size());
+
+      Assertions.assertEquals(3, results.get(0).size());
+      OrderDetail detail = (OrderDetail) results.get(0).get(1);
+      Assertions.assertEquals(1, detail.getOrderId());
+      Assertions.assertEquals("Pencil", detail.getItemDescription());
+
+      Assertions.assertEquals(1, results.get(1).size());
+      OrderHeader header = (OrderHeader) results.get(1).get(0);
+      Assertions.assertEquals(2, header.getOrderId());
+      Assertions.assertEquals("Barney", header.getCustName());
+    } finally {
+      configuration.setMultiStatementQueries(false);
+    }
+  }
+
   @Test
   void shouldSkipNullResultSet() {
     try (SqlSession sqlSession = sqlSessionFactory.openSession()) {